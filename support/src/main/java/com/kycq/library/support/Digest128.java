@@ -0,0 +1,197 @@
+package com.kycq.library.support;
+
+/**
+ * 128位摘要值
+ * 以两个长整数保存摘要(大端序, 高64位在前), 可直接作为映射键或拆分保存到基本类型数组
+ */
+public final class Digest128 implements Comparable<Digest128> {
+	/** 高64位 */
+	private final long mHigh;
+	/** 低64位 */
+	private final long mLow;
+	/** 十六进制字符串缓存 */
+	private String mHex;
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param high 高64位
+	 * @param low  低64位
+	 */
+	public Digest128(long high, long low) {
+		mHigh = high;
+		mLow = low;
+	}
+	
+	/**
+	 * 从字节数组创建摘要值
+	 *
+	 * @param md     摘要字节数组
+	 * @param offset 摘要偏移(读取16字节)
+	 * @return 摘要值
+	 */
+	public static Digest128 fromBytes(byte[] md, int offset) {
+		return new Digest128(getLong(md, offset), getLong(md, offset + 8));
+	}
+	
+	/**
+	 * 解析十六进制字符串
+	 *
+	 * @param hex 32位十六进制字符串(不区分大小写)
+	 * @return 摘要值
+	 * @throws NumberFormatException 格式错误
+	 */
+	public static Digest128 parseHex(CharSequence hex) {
+		if (hex.length() != 32) {
+			throw new NumberFormatException("digest hex must be 32 chars: " + hex);
+		}
+		return new Digest128(parseHex(hex, 0), parseHex(hex, 16));
+	}
+	
+	/**
+	 * 高64位
+	 *
+	 * @return 高64位
+	 */
+	public long getHigh() {
+		return mHigh;
+	}
+	
+	/**
+	 * 低64位
+	 *
+	 * @return 低64位
+	 */
+	public long getLow() {
+		return mLow;
+	}
+	
+	/**
+	 * 写入字节数组
+	 *
+	 * @param out    结果数组
+	 * @param offset 结果数组偏移(写入16字节)
+	 */
+	public void toBytes(byte[] out, int offset) {
+		putLong(mHigh, out, offset);
+		putLong(mLow, out, offset + 8);
+	}
+	
+	/**
+	 * 转换为字节数组
+	 *
+	 * @return 16字节数组
+	 */
+	public byte[] toBytes() {
+		byte[] md = new byte[16];
+		toBytes(md, 0);
+		return md;
+	}
+	
+	/**
+	 * 转换为十六进制字符串(首次调用时生成)
+	 *
+	 * @return 32位小写十六进制字符串
+	 */
+	public String toHex() {
+		String hex = mHex;
+		if (hex == null) {
+			char[] set = new char[32];
+			toHex(set, 0, false);
+			mHex = hex = new String(set);
+		}
+		return hex;
+	}
+	
+	/**
+	 * 写入十六进制字符
+	 *
+	 * @param out       结果数组(写入32个字符)
+	 * @param offset    结果数组偏移
+	 * @param upperCase true大写 false小写
+	 */
+	public void toHex(char[] out, int offset, boolean upperCase) {
+		DigestEncoder.toHex(mHigh, out, offset, upperCase);
+		DigestEncoder.toHex(mLow, out, offset + 16, upperCase);
+	}
+	
+	/**
+	 * 转换为URL安全的Base64字符串(无填充)
+	 *
+	 * @return 22位Base64字符串
+	 */
+	public String toBase64() {
+		return DigestEncoder.toBase64(toBytes());
+	}
+	
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (!(object instanceof Digest128)) {
+			return false;
+		}
+		Digest128 digest = (Digest128) object;
+		return mHigh == digest.mHigh && mLow == digest.mLow;
+	}
+	
+	@Override
+	public int hashCode() {
+		// 摘要本身分布均匀, 直接取低位
+		return (int) mLow;
+	}
+	
+	/**
+	 * 按无符号大端序比较, 与十六进制字符串的字典序一致
+	 */
+	@Override
+	public int compareTo(Digest128 digest) {
+		if (mHigh != digest.mHigh) {
+			return mHigh + Long.MIN_VALUE < digest.mHigh + Long.MIN_VALUE ? -1 : 1;
+		}
+		if (mLow != digest.mLow) {
+			return mLow + Long.MIN_VALUE < digest.mLow + Long.MIN_VALUE ? -1 : 1;
+		}
+		return 0;
+	}
+	
+	@Override
+	public String toString() {
+		return toHex();
+	}
+	
+	private static long getLong(byte[] md, int offset) {
+		long value = 0;
+		for (int index = 0; index < 8; index++) {
+			value = value << 8 | (md[offset + index] & 0xff);
+		}
+		return value;
+	}
+	
+	private static void putLong(long value, byte[] out, int offset) {
+		for (int index = 7; index >= 0; index--) {
+			out[offset + index] = (byte) value;
+			value >>>= 8;
+		}
+	}
+	
+	private static long parseHex(CharSequence hex, int offset) {
+		long value = 0;
+		for (int index = offset; index < offset + 16; index++) {
+			char c = hex.charAt(index);
+			int digit;
+			if (c >= '0' && c <= '9') {
+				digit = c - '0';
+			} else if (c >= 'a' && c <= 'f') {
+				digit = c - 'a' + 10;
+			} else if (c >= 'A' && c <= 'F') {
+				digit = c - 'A' + 10;
+			} else {
+				throw new NumberFormatException("invalid digest hex: " + hex);
+			}
+			value = value << 4 | digit;
+		}
+		return value;
+	}
+}
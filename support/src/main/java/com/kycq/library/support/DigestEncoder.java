@@ -0,0 +1,296 @@
+package com.kycq.library.support;
+
+/**
+ * 摘要输出编码
+ * 十六进制按字节查表(每个字节对应两个字符), 支持大小写, URL安全的Base64(无填充)可缩短缓存文件名,
+ * 结果可直接写入调用方提供的char[]、byte[]或StringBuilder
+ */
+public final class DigestEncoder {
+	/** 小写十六进制表(下标为字节值*2) */
+	private static final char[] HEX_LOWER = buildHexTable("0123456789abcdef");
+	/** 大写十六进制表(下标为字节值*2) */
+	private static final char[] HEX_UPPER = buildHexTable("0123456789ABCDEF");
+	/** URL安全的Base64字符表 */
+	private static final char[] BASE64_URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+	
+	private DigestEncoder() {
+	}
+	
+	private static char[] buildHexTable(String digits) {
+		char[] table = new char[512];
+		for (int index = 0; index < 256; index++) {
+			table[index << 1] = digits.charAt(index >>> 4);
+			table[index << 1 | 1] = digits.charAt(index & 0xf);
+		}
+		return table;
+	}
+	
+	/**
+	 * 转换为小写十六进制字符串
+	 *
+	 * @param md 摘要
+	 * @return 十六进制字符串
+	 */
+	public static String toHex(byte[] md) {
+		return toHex(md, false);
+	}
+	
+	/**
+	 * 转换为十六进制字符串
+	 *
+	 * @param md        摘要
+	 * @param upperCase true大写 false小写
+	 * @return 十六进制字符串
+	 */
+	public static String toHex(byte[] md, boolean upperCase) {
+		char[] set = new char[md.length << 1];
+		toHex(md, 0, md.length, set, 0, upperCase);
+		return new String(set);
+	}
+	
+	/**
+	 * 转换为十六进制字符
+	 *
+	 * @param input     摘要
+	 * @param offset    摘要偏移
+	 * @param length    摘要长度
+	 * @param out       结果数组(写入length*2个字符)
+	 * @param outOffset 结果数组偏移
+	 * @param upperCase true大写 false小写
+	 */
+	public static void toHex(byte[] input, int offset, int length, char[] out, int outOffset, boolean upperCase) {
+		char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+		int end = offset + length;
+		for (int index = offset; index < end; index++) {
+			int position = (input[index] & 0xff) << 1;
+			out[outOffset++] = table[position];
+			out[outOffset++] = table[position + 1];
+		}
+	}
+	
+	/**
+	 * 转换为十六进制ASCII字节
+	 *
+	 * @param input     摘要
+	 * @param offset    摘要偏移
+	 * @param length    摘要长度
+	 * @param out       结果数组(写入length*2个字节)
+	 * @param outOffset 结果数组偏移
+	 * @param upperCase true大写 false小写
+	 */
+	public static void toHex(byte[] input, int offset, int length, byte[] out, int outOffset, boolean upperCase) {
+		char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+		int end = offset + length;
+		for (int index = offset; index < end; index++) {
+			int position = (input[index] & 0xff) << 1;
+			out[outOffset++] = (byte) table[position];
+			out[outOffset++] = (byte) table[position + 1];
+		}
+	}
+	
+	/**
+	 * 将长整数按大端序转换为16位十六进制字符
+	 *
+	 * @param value     长整数
+	 * @param out       结果数组(写入16个字符)
+	 * @param outOffset 结果数组偏移
+	 * @param upperCase true大写 false小写
+	 */
+	public static void toHex(long value, char[] out, int outOffset, boolean upperCase) {
+		char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			int position = ((int) (value >>> shift) & 0xff) << 1;
+			out[outOffset++] = table[position];
+			out[outOffset++] = table[position + 1];
+		}
+	}
+	
+	/**
+	 * 追加十六进制字符
+	 *
+	 * @param builder   字符串构建器
+	 * @param input     摘要
+	 * @param offset    摘要偏移
+	 * @param length    摘要长度
+	 * @param upperCase true大写 false小写
+	 * @return 字符串构建器
+	 */
+	public static StringBuilder appendHex(StringBuilder builder, byte[] input, int offset, int length, boolean upperCase) {
+		char[] table = upperCase ? HEX_UPPER : HEX_LOWER;
+		builder.ensureCapacity(builder.length() + (length << 1));
+		int end = offset + length;
+		for (int index = offset; index < end; index++) {
+			int position = (input[index] & 0xff) << 1;
+			builder.append(table[position]).append(table[position + 1]);
+		}
+		return builder;
+	}
+	
+	/**
+	 * 批量转换为十六进制字符串
+	 *
+	 * @param mds       摘要列表
+	 * @param upperCase true大写 false小写
+	 * @return 十六进制字符串列表
+	 */
+	public static String[] toHex(byte[][] mds, boolean upperCase) {
+		String[] results = new String[mds.length];
+		char[] set = new char[0];
+		for (int index = 0; index < mds.length; index++) {
+			byte[] md = mds[index];
+			int length = md.length << 1;
+			if (set.length < length) {
+				set = new char[length];
+			}
+			toHex(md, 0, md.length, set, 0, upperCase);
+			results[index] = new String(set, 0, length);
+		}
+		return results;
+	}
+	
+	/**
+	 * 批量追加十六进制字符, 每个摘要后追加分隔符
+	 *
+	 * @param builder   字符串构建器
+	 * @param mds       摘要列表
+	 * @param separator 分隔符
+	 * @param upperCase true大写 false小写
+	 * @return 字符串构建器
+	 */
+	public static StringBuilder appendHex(StringBuilder builder, byte[][] mds, char separator, boolean upperCase) {
+		int capacity = builder.length();
+		for (byte[] md : mds) {
+			capacity += (md.length << 1) + 1;
+		}
+		builder.ensureCapacity(capacity);
+		for (byte[] md : mds) {
+			appendHex(builder, md, 0, md.length, upperCase).append(separator);
+		}
+		return builder;
+	}
+	
+	/**
+	 * URL安全的Base64编码长度(无填充)
+	 *
+	 * @param length 数据长度
+	 * @return 编码长度
+	 */
+	public static int base64Length(int length) {
+		return (length * 4 + 2) / 3;
+	}
+	
+	/**
+	 * 转换为URL安全的Base64字符串(无填充)
+	 *
+	 * @param md 摘要
+	 * @return Base64字符串(16字节摘要为22位)
+	 */
+	public static String toBase64(byte[] md) {
+		char[] set = new char[base64Length(md.length)];
+		toBase64(md, 0, md.length, set, 0);
+		return new String(set);
+	}
+	
+	/**
+	 * 转换为URL安全的Base64字符(无填充)
+	 *
+	 * @param input     摘要
+	 * @param offset    摘要偏移
+	 * @param length    摘要长度
+	 * @param out       结果数组
+	 * @param outOffset 结果数组偏移
+	 * @return 写入的字符数
+	 * @see #base64Length(int)
+	 */
+	public static int toBase64(byte[] input, int offset, int length, char[] out, int outOffset) {
+		int index = outOffset;
+		int end = offset + length;
+		int position = offset;
+		for (; position + 3 <= end; position += 3) {
+			int bits = (input[position] & 0xff) << 16 | (input[position + 1] & 0xff) << 8 | (input[position + 2] & 0xff);
+			out[index++] = BASE64_URL[bits >>> 18];
+			out[index++] = BASE64_URL[bits >>> 12 & 0x3f];
+			out[index++] = BASE64_URL[bits >>> 6 & 0x3f];
+			out[index++] = BASE64_URL[bits & 0x3f];
+		}
+		int remaining = end - position;
+		if (remaining == 1) {
+			int bits = input[position] & 0xff;
+			out[index++] = BASE64_URL[bits >>> 2];
+			out[index++] = BASE64_URL[bits << 4 & 0x3f];
+		} else if (remaining == 2) {
+			int bits = (input[position] & 0xff) << 8 | (input[position + 1] & 0xff);
+			out[index++] = BASE64_URL[bits >>> 10];
+			out[index++] = BASE64_URL[bits >>> 4 & 0x3f];
+			out[index++] = BASE64_URL[bits << 2 & 0x3f];
+		}
+		return index - outOffset;
+	}
+	
+	/**
+	 * 转换为URL安全的Base64 ASCII字节(无填充)
+	 *
+	 * @param input     摘要
+	 * @param offset    摘要偏移
+	 * @param length    摘要长度
+	 * @param out       结果数组
+	 * @param outOffset 结果数组偏移
+	 * @return 写入的字节数
+	 * @see #base64Length(int)
+	 */
+	public static int toBase64(byte[] input, int offset, int length, byte[] out, int outOffset) {
+		int index = outOffset;
+		int end = offset + length;
+		int position = offset;
+		for (; position + 3 <= end; position += 3) {
+			int bits = (input[position] & 0xff) << 16 | (input[position + 1] & 0xff) << 8 | (input[position + 2] & 0xff);
+			out[index++] = (byte) BASE64_URL[bits >>> 18];
+			out[index++] = (byte) BASE64_URL[bits >>> 12 & 0x3f];
+			out[index++] = (byte) BASE64_URL[bits >>> 6 & 0x3f];
+			out[index++] = (byte) BASE64_URL[bits & 0x3f];
+		}
+		int remaining = end - position;
+		if (remaining == 1) {
+			int bits = input[position] & 0xff;
+			out[index++] = (byte) BASE64_URL[bits >>> 2];
+			out[index++] = (byte) BASE64_URL[bits << 4 & 0x3f];
+		} else if (remaining == 2) {
+			int bits = (input[position] & 0xff) << 8 | (input[position + 1] & 0xff);
+			out[index++] = (byte) BASE64_URL[bits >>> 10];
+			out[index++] = (byte) BASE64_URL[bits >>> 4 & 0x3f];
+			out[index++] = (byte) BASE64_URL[bits << 2 & 0x3f];
+		}
+		return index - outOffset;
+	}
+	
+	/**
+	 * 追加URL安全的Base64字符(无填充)
+	 *
+	 * @param builder 字符串构建器
+	 * @param input   摘要
+	 * @param offset  摘要偏移
+	 * @param length  摘要长度
+	 * @return 字符串构建器
+	 */
+	public static StringBuilder appendBase64(StringBuilder builder, byte[] input, int offset, int length) {
+		builder.ensureCapacity(builder.length() + base64Length(length));
+		int end = offset + length;
+		int position = offset;
+		for (; position + 3 <= end; position += 3) {
+			int bits = (input[position] & 0xff) << 16 | (input[position + 1] & 0xff) << 8 | (input[position + 2] & 0xff);
+			builder.append(BASE64_URL[bits >>> 18])
+					.append(BASE64_URL[bits >>> 12 & 0x3f])
+					.append(BASE64_URL[bits >>> 6 & 0x3f])
+					.append(BASE64_URL[bits & 0x3f]);
+		}
+		int remaining = end - position;
+		if (remaining == 1) {
+			int bits = input[position] & 0xff;
+			builder.append(BASE64_URL[bits >>> 2]).append(BASE64_URL[bits << 4 & 0x3f]);
+		} else if (remaining == 2) {
+			int bits = (input[position] & 0xff) << 8 | (input[position + 1] & 0xff);
+			builder.append(BASE64_URL[bits >>> 10]).append(BASE64_URL[bits >>> 4 & 0x3f]).append(BASE64_URL[bits << 2 & 0x3f]);
+		}
+		return builder;
+	}
+}
@@ -0,0 +1,344 @@
+package com.kycq.library.support;
+
+/**
+ * 快速哈希工具(非加密)
+ * 用于缓存文件名, 映射键等不需要抗碰撞攻击的场景, 输出格式与{@link MD5Utils}一致(小写十六进制)
+ * 字符序列按UTF-16LE编码单元直接读取, 不复制也不转换编码
+ */
+public class HashUtils {
+	
+	private static final long XX_PRIME_1 = 0x9E3779B185EBCA87L;
+	private static final long XX_PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long XX_PRIME_3 = 0x165667B19E3779F9L;
+	private static final long XX_PRIME_4 = 0x85EBCA77C2B2AE63L;
+	private static final long XX_PRIME_5 = 0x27D4EB2F165667C5L;
+	
+	private static final long MURMUR_C1 = 0x87c37b91114253d5L;
+	private static final long MURMUR_C2 = 0x4cf5ad432745937fL;
+	
+	private HashUtils() {
+	}
+	
+	/**
+	 * 64位哈希(xxHash64)
+	 *
+	 * @param str 哈希字符序列
+	 * @return 16位十六进制哈希结果
+	 */
+	public static String encode64(CharSequence str) {
+		return toHex(xxHash64(str, 0, str.length(), 0));
+	}
+	
+	/**
+	 * 64位哈希(xxHash64)
+	 *
+	 * @param input  哈希数据
+	 * @param offset 哈希数据偏移
+	 * @param length 哈希数据长度
+	 * @return 16位十六进制哈希结果
+	 */
+	public static String encode64(byte[] input, int offset, int length) {
+		return toHex(xxHash64(input, offset, length, 0));
+	}
+	
+	/**
+	 * 128位哈希(MurmurHash3_x64_128)
+	 *
+	 * @param str 哈希字符序列
+	 * @return 32位十六进制哈希结果(h1在前, h2在后)
+	 */
+	public static String encode128(CharSequence str) {
+		long[] hash = new long[2];
+		murmur3_128(str, 0, str.length(), 0, hash);
+		return toHex(hash[0], hash[1]);
+	}
+	
+	/**
+	 * 128位哈希(MurmurHash3_x64_128)
+	 *
+	 * @param input  哈希数据
+	 * @param offset 哈希数据偏移
+	 * @param length 哈希数据长度
+	 * @return 32位十六进制哈希结果(h1在前, h2在后)
+	 */
+	public static String encode128(byte[] input, int offset, int length) {
+		long[] hash = new long[2];
+		murmur3_128(input, offset, length, 0, hash);
+		return toHex(hash[0], hash[1]);
+	}
+	
+	/**
+	 * xxHash64
+	 *
+	 * @param input  哈希数据
+	 * @param offset 哈希数据偏移
+	 * @param length 哈希数据长度
+	 * @param seed   种子
+	 * @return 哈希结果
+	 */
+	public static long xxHash64(byte[] input, int offset, int length, long seed) {
+		checkRange(input.length, offset, length);
+		int end = offset + length;
+		long hash;
+		if (length >= 32) {
+			long v1 = seed + XX_PRIME_1 + XX_PRIME_2;
+			long v2 = seed + XX_PRIME_2;
+			long v3 = seed;
+			long v4 = seed - XX_PRIME_1;
+			int limit = end - 32;
+			do {
+				v1 = xxRound(v1, getLong(input, offset));
+				v2 = xxRound(v2, getLong(input, offset + 8));
+				v3 = xxRound(v3, getLong(input, offset + 16));
+				v4 = xxRound(v4, getLong(input, offset + 24));
+				offset += 32;
+			} while (offset <= limit);
+			hash = xxMerge(v1, v2, v3, v4);
+		} else {
+			hash = seed + XX_PRIME_5;
+		}
+		hash += length;
+		
+		while (offset + 8 <= end) {
+			hash ^= xxRound(0, getLong(input, offset));
+			hash = Long.rotateLeft(hash, 27) * XX_PRIME_1 + XX_PRIME_4;
+			offset += 8;
+		}
+		if (offset + 4 <= end) {
+			hash ^= (getInt(input, offset) & 0xffffffffL) * XX_PRIME_1;
+			hash = Long.rotateLeft(hash, 23) * XX_PRIME_2 + XX_PRIME_3;
+			offset += 4;
+		}
+		while (offset < end) {
+			hash ^= (input[offset] & 0xff) * XX_PRIME_5;
+			hash = Long.rotateLeft(hash, 11) * XX_PRIME_1;
+			offset++;
+		}
+		return xxAvalanche(hash);
+	}
+	
+	/**
+	 * xxHash64(按UTF-16LE编码单元读取)
+	 *
+	 * @param str   哈希字符序列
+	 * @param start 起始位置
+	 * @param end   结束位置(不包含)
+	 * @param seed  种子
+	 * @return 哈希结果
+	 */
+	public static long xxHash64(CharSequence str, int start, int end, long seed) {
+		checkRange(str.length(), start, end - start);
+		long hash;
+		if (end - start >= 16) {
+			long v1 = seed + XX_PRIME_1 + XX_PRIME_2;
+			long v2 = seed + XX_PRIME_2;
+			long v3 = seed;
+			long v4 = seed - XX_PRIME_1;
+			int index = start;
+			int limit = end - 16;
+			do {
+				v1 = xxRound(v1, getLong(str, index));
+				v2 = xxRound(v2, getLong(str, index + 4));
+				v3 = xxRound(v3, getLong(str, index + 8));
+				v4 = xxRound(v4, getLong(str, index + 12));
+				index += 16;
+			} while (index <= limit);
+			hash = xxMerge(v1, v2, v3, v4);
+			hash += (long) (end - start) * 2;
+			start = index;
+		} else {
+			hash = seed + XX_PRIME_5;
+			hash += (long) (end - start) * 2;
+		}
+		
+		while (start + 4 <= end) {
+			hash ^= xxRound(0, getLong(str, start));
+			hash = Long.rotateLeft(hash, 27) * XX_PRIME_1 + XX_PRIME_4;
+			start += 4;
+		}
+		if (start + 2 <= end) {
+			hash ^= (str.charAt(start) | (long) str.charAt(start + 1) << 16) * XX_PRIME_1;
+			hash = Long.rotateLeft(hash, 23) * XX_PRIME_2 + XX_PRIME_3;
+			start += 2;
+		}
+		if (start < end) {
+			char c = str.charAt(start);
+			hash ^= (c & 0xff) * XX_PRIME_5;
+			hash = Long.rotateLeft(hash, 11) * XX_PRIME_1;
+			hash ^= (c >>> 8) * XX_PRIME_5;
+			hash = Long.rotateLeft(hash, 11) * XX_PRIME_1;
+		}
+		return xxAvalanche(hash);
+	}
+	
+	/**
+	 * MurmurHash3_x64_128
+	 *
+	 * @param input  哈希数据
+	 * @param offset 哈希数据偏移
+	 * @param length 哈希数据长度
+	 * @param seed   种子
+	 * @param out    结果数组(h1, h2)
+	 */
+	public static void murmur3_128(byte[] input, int offset, int length, int seed, long[] out) {
+		checkRange(input.length, offset, length);
+		long h1 = seed & 0xffffffffL;
+		long h2 = h1;
+		int end = offset + length;
+		while (offset + 16 <= end) {
+			long k1 = getLong(input, offset);
+			long k2 = getLong(input, offset + 8);
+			h1 ^= murmurMixK1(k1);
+			h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+			h2 ^= murmurMixK2(k2);
+			h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+			offset += 16;
+		}
+		long k1 = 0;
+		long k2 = 0;
+		for (int index = end - 1; index >= offset + 8; index--) {
+			k2 = k2 << 8 | (input[index] & 0xff);
+		}
+		for (int index = Math.min(end, offset + 8) - 1; index >= offset; index--) {
+			k1 = k1 << 8 | (input[index] & 0xff);
+		}
+		murmurFinish(h1 ^ murmurMixK1(k1), h2 ^ murmurMixK2(k2), length, out);
+	}
+	
+	/**
+	 * MurmurHash3_x64_128(按UTF-16LE编码单元读取)
+	 *
+	 * @param str   哈希字符序列
+	 * @param start 起始位置
+	 * @param end   结束位置(不包含)
+	 * @param seed  种子
+	 * @param out   结果数组(h1, h2)
+	 */
+	public static void murmur3_128(CharSequence str, int start, int end, int seed, long[] out) {
+		checkRange(str.length(), start, end - start);
+		long h1 = seed & 0xffffffffL;
+		long h2 = h1;
+		int length = (end - start) * 2;
+		while (start + 8 <= end) {
+			long k1 = getLong(str, start);
+			long k2 = getLong(str, start + 4);
+			h1 ^= murmurMixK1(k1);
+			h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+			h2 ^= murmurMixK2(k2);
+			h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+			start += 8;
+		}
+		long k1 = 0;
+		long k2 = 0;
+		for (int index = end - 1; index >= start + 4; index--) {
+			k2 = k2 << 16 | str.charAt(index);
+		}
+		for (int index = Math.min(end, start + 4) - 1; index >= start; index--) {
+			k1 = k1 << 16 | str.charAt(index);
+		}
+		murmurFinish(h1 ^ murmurMixK1(k1), h2 ^ murmurMixK2(k2), length, out);
+	}
+	
+	private static long xxRound(long acc, long input) {
+		return Long.rotateLeft(acc + input * XX_PRIME_2, 31) * XX_PRIME_1;
+	}
+	
+	private static long xxMerge(long v1, long v2, long v3, long v4) {
+		long hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+		hash = (hash ^ xxRound(0, v1)) * XX_PRIME_1 + XX_PRIME_4;
+		hash = (hash ^ xxRound(0, v2)) * XX_PRIME_1 + XX_PRIME_4;
+		hash = (hash ^ xxRound(0, v3)) * XX_PRIME_1 + XX_PRIME_4;
+		return (hash ^ xxRound(0, v4)) * XX_PRIME_1 + XX_PRIME_4;
+	}
+	
+	private static long xxAvalanche(long hash) {
+		hash ^= hash >>> 33;
+		hash *= XX_PRIME_2;
+		hash ^= hash >>> 29;
+		hash *= XX_PRIME_3;
+		return hash ^ hash >>> 32;
+	}
+	
+	private static long murmurMixK1(long k1) {
+		return Long.rotateLeft(k1 * MURMUR_C1, 31) * MURMUR_C2;
+	}
+	
+	private static long murmurMixK2(long k2) {
+		return Long.rotateLeft(k2 * MURMUR_C2, 33) * MURMUR_C1;
+	}
+	
+	private static void murmurFinish(long h1, long h2, int length, long[] out) {
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = murmurFmix(h1);
+		h2 = murmurFmix(h2);
+		h1 += h2;
+		h2 += h1;
+		out[0] = h1;
+		out[1] = h2;
+	}
+	
+	private static long murmurFmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		return k ^ k >>> 33;
+	}
+	
+	/**
+	 * 以小端序读取长整数
+	 */
+	private static long getLong(byte[] input, int offset) {
+		return (input[offset] & 0xffL)
+				| (input[offset + 1] & 0xffL) << 8
+				| (input[offset + 2] & 0xffL) << 16
+				| (input[offset + 3] & 0xffL) << 24
+				| (input[offset + 4] & 0xffL) << 32
+				| (input[offset + 5] & 0xffL) << 40
+				| (input[offset + 6] & 0xffL) << 48
+				| (long) input[offset + 7] << 56;
+	}
+	
+	/**
+	 * 以小端序读取整数
+	 */
+	private static int getInt(byte[] input, int offset) {
+		return (input[offset] & 0xff)
+				| (input[offset + 1] & 0xff) << 8
+				| (input[offset + 2] & 0xff) << 16
+				| input[offset + 3] << 24;
+	}
+	
+	/**
+	 * 以UTF-16LE读取4个字符组成的长整数
+	 */
+	private static long getLong(CharSequence str, int index) {
+		return str.charAt(index)
+				| (long) str.charAt(index + 1) << 16
+				| (long) str.charAt(index + 2) << 32
+				| (long) str.charAt(index + 3) << 48;
+	}
+	
+	private static void checkRange(int size, int offset, int length) {
+		if (offset < 0 || length < 0 || offset > size - length) {
+			throw new IndexOutOfBoundsException("size=" + size + " offset=" + offset + " length=" + length);
+		}
+	}
+	
+	/**
+	 * 转换为十六进制字符串
+	 *
+	 * @param values 哈希结果(按大端序依次输出)
+	 * @return 十六进制字符串
+	 */
+	private static String toHex(long... values) {
+		char[] set = new char[values.length * 16];
+		for (int index = 0; index < values.length; index++) {
+			DigestEncoder.toHex(values[index], set, index * 16, false);
+		}
+		return new String(set);
+	}
+}
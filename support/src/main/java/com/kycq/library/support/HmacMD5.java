@@ -0,0 +1,141 @@
+package com.kycq.library.support;
+
+import java.security.DigestException;
+
+/**
+ * HMAC-MD5签名(RFC 2104)
+ * 创建时计算一次密钥内外填充分组后的摘要状态, 每次签名只需处理消息分组和外层的一个分组, 线程安全
+ */
+public final class HmacMD5 {
+	/** 签名长度 */
+	public static final int MAC_LENGTH = MD5Digest.DIGEST_LENGTH;
+	/** 内层填充 */
+	private static final byte IPAD = 0x36;
+	/** 外层填充 */
+	private static final byte OPAD = 0x5c;
+	
+	/** 处理内层填充分组后的状态 */
+	private final MD5Digest mInnerState = new MD5Digest();
+	/** 处理外层填充分组后的状态 */
+	private final MD5Digest mOuterState = new MD5Digest();
+	/** 签名使用的内层摘要 */
+	private final MD5Digest mInner = new MD5Digest();
+	/** 签名使用的外层摘要 */
+	private final MD5Digest mOuter = new MD5Digest();
+	/** 内层摘要结果 */
+	private final byte[] mInnerMac = new byte[MAC_LENGTH];
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param key 密钥(超过64字节时使用其MD5摘要)
+	 */
+	public HmacMD5(byte[] key) {
+		if (key.length > MD5Digest.BLOCK_LENGTH) {
+			key = new MD5Digest().digest(key);
+		}
+		byte[] pad = new byte[MD5Digest.BLOCK_LENGTH];
+		for (int index = 0; index < pad.length; index++) {
+			pad[index] = (byte) ((index < key.length ? key[index] : 0) ^ IPAD);
+		}
+		mInnerState.update(pad);
+		for (int index = 0; index < pad.length; index++) {
+			pad[index] ^= IPAD ^ OPAD;
+		}
+		mOuterState.update(pad);
+	}
+	
+	/**
+	 * 签名
+	 *
+	 * @param message 消息
+	 * @return 16字节签名
+	 */
+	public byte[] sign(byte[] message) {
+		byte[] mac = new byte[MAC_LENGTH];
+		sign(message, 0, message.length, mac, 0);
+		return mac;
+	}
+	
+	/**
+	 * 签名
+	 *
+	 * @param message   消息
+	 * @param offset    消息偏移
+	 * @param length    消息长度
+	 * @param out       结果数组
+	 * @param outOffset 结果数组偏移(写入16字节)
+	 */
+	public synchronized void sign(byte[] message, int offset, int length, byte[] out, int outOffset) {
+		mInner.copyFrom(mInnerState);
+		mInner.update(message, offset, length);
+		finish(out, outOffset);
+	}
+	
+	/**
+	 * 签名(UTF-8编码)
+	 *
+	 * @param message 消息
+	 * @return 16字节签名
+	 */
+	public synchronized byte[] sign(CharSequence message) {
+		byte[] mac = new byte[MAC_LENGTH];
+		mInner.copyFrom(mInnerState);
+		mInner.update(message, 0, message.length());
+		finish(mac, 0);
+		return mac;
+	}
+	
+	/**
+	 * 签名
+	 *
+	 * @param message 消息
+	 * @return 32位十六进制签名
+	 */
+	public String signHex(byte[] message) {
+		return DigestEncoder.toHex(sign(message));
+	}
+	
+	/**
+	 * 签名(UTF-8编码)
+	 *
+	 * @param message 消息
+	 * @return 32位十六进制签名
+	 */
+	public String signHex(CharSequence message) {
+		return DigestEncoder.toHex(sign(message));
+	}
+	
+	/**
+	 * 校验签名(比较耗时与签名内容无关)
+	 *
+	 * @param message 消息
+	 * @param mac     签名
+	 * @return true签名一致 false签名不一致
+	 */
+	public boolean verify(byte[] message, byte[] mac) {
+		if (mac.length != MAC_LENGTH) {
+			return false;
+		}
+		byte[] expected = sign(message);
+		int result = 0;
+		for (int index = 0; index < MAC_LENGTH; index++) {
+			result |= expected[index] ^ mac[index];
+		}
+		return result == 0;
+	}
+	
+	/**
+	 * 完成内层摘要并计算外层摘要
+	 */
+	private void finish(byte[] out, int outOffset) {
+		try {
+			mInner.digest(mInnerMac, 0, MAC_LENGTH);
+			mOuter.copyFrom(mOuterState);
+			mOuter.update(mInnerMac, 0, MAC_LENGTH);
+			mOuter.digest(out, outOffset, MAC_LENGTH);
+		} catch (DigestException ex) {
+			throw new IllegalArgumentException(ex);
+		}
+	}
+}
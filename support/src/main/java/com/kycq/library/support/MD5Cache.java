@@ -0,0 +1,108 @@
+package com.kycq.library.support;
+
+import android.support.v4.util.LruCache;
+
+/**
+ * MD5加密结果缓存
+ * 有界LRU缓存, 重复加密相同字符串时直接返回缓存结果
+ *
+ * @see MD5Utils#cached(int)
+ */
+public class MD5Cache {
+	/** 加密结果缓存 */
+	private final LruCache<String, String> mCache;
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param maxEntries 最大缓存数量
+	 */
+	MD5Cache(int maxEntries) {
+		mCache = new LruCache<String, String>(maxEntries) {
+			@Override
+			protected String create(String key) {
+				return encodeUncached(key);
+			}
+		};
+	}
+	
+	/**
+	 * 未命中时加密, 加密失败返回null(不缓存)
+	 *
+	 * @param str 加密字符串
+	 * @return 加密结果
+	 */
+	String encodeUncached(String str) {
+		return MD5Utils.encode(str);
+	}
+	
+	/**
+	 * MD5加密
+	 *
+	 * @param str 加密字符串
+	 * @return 加密结果
+	 */
+	public String encode(String str) {
+		if (str == null) {
+			return null;
+		}
+		return mCache.get(str);
+	}
+	
+	/**
+	 * 清空缓存
+	 */
+	public void clear() {
+		mCache.evictAll();
+	}
+	
+	/**
+	 * 缓存数量
+	 *
+	 * @return 缓存数量
+	 */
+	public int size() {
+		return mCache.size();
+	}
+	
+	/**
+	 * 最大缓存数量
+	 *
+	 * @return 最大缓存数量
+	 */
+	public int maxSize() {
+		return mCache.maxSize();
+	}
+	
+	/**
+	 * 命中次数
+	 *
+	 * @return 命中次数
+	 */
+	public int hitCount() {
+		return mCache.hitCount();
+	}
+	
+	/**
+	 * 未命中次数
+	 *
+	 * @return 未命中次数
+	 */
+	public int missCount() {
+		return mCache.missCount();
+	}
+	
+	/**
+	 * 淘汰次数
+	 *
+	 * @return 淘汰次数
+	 */
+	public int evictionCount() {
+		return mCache.evictionCount();
+	}
+	
+	@Override
+	public String toString() {
+		return "MD5Cache[maxSize=" + maxSize() + ",hits=" + hitCount() + ",misses=" + missCount() + ",evictions=" + evictionCount() + "]";
+	}
+}
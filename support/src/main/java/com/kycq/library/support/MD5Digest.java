@@ -0,0 +1,401 @@
+package com.kycq.library.support;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+
+/**
+ * MD5摘要(纯Java实现, 不经过安全提供者)
+ */
+public final class MD5Digest extends MessageDigest implements Cloneable {
+	/** 摘要长度 */
+	public static final int DIGEST_LENGTH = 16;
+	/** 分组长度 */
+	static final int BLOCK_LENGTH = 64;
+	/** 状态快照版本 */
+	private static final int SNAPSHOT_VERSION = 1;
+	/** 状态快照头部长度(版本, 摘要状态, 已处理字节数) */
+	private static final int SNAPSHOT_HEADER_LENGTH = 1 + 16 + 8;
+	
+	/** 摘要状态 */
+	private int mA, mB, mC, mD;
+	/** 分组缓冲区 */
+	private byte[] mBuffer = new byte[BLOCK_LENGTH];
+	/** 已处理字节数 */
+	private long mCount;
+	
+	/**
+	 * 构造方法
+	 */
+	public MD5Digest() {
+		super("MD5");
+		engineReset();
+	}
+	
+	@Override
+	protected int engineGetDigestLength() {
+		return DIGEST_LENGTH;
+	}
+	
+	@Override
+	protected void engineUpdate(byte input) {
+		int index = (int) mCount & (BLOCK_LENGTH - 1);
+		mBuffer[index] = input;
+		mCount++;
+		if (index == BLOCK_LENGTH - 1) {
+			processBlock(mBuffer, 0);
+		}
+	}
+	
+	@Override
+	protected void engineUpdate(byte[] input, int offset, int length) {
+		if (length <= 0) {
+			return;
+		}
+		int index = (int) mCount & (BLOCK_LENGTH - 1);
+		mCount += length;
+		if (index != 0) {
+			int fill = Math.min(BLOCK_LENGTH - index, length);
+			System.arraycopy(input, offset, mBuffer, index, fill);
+			if (index + fill < BLOCK_LENGTH) {
+				return;
+			}
+			processBlock(mBuffer, 0);
+			offset += fill;
+			length -= fill;
+		}
+		while (length >= BLOCK_LENGTH) {
+			processBlock(input, offset);
+			offset += BLOCK_LENGTH;
+			length -= BLOCK_LENGTH;
+		}
+		if (length > 0) {
+			System.arraycopy(input, offset, mBuffer, 0, length);
+		}
+	}
+	
+	@Override
+	protected void engineUpdate(ByteBuffer input) {
+		if (input.hasArray()) {
+			int position = input.position();
+			int length = input.remaining();
+			engineUpdate(input.array(), input.arrayOffset() + position, length);
+			input.position(position + length);
+			return;
+		}
+		// 直接缓冲区或内存映射缓冲区按分组批量读取, 不分配临时数组
+		while (input.hasRemaining()) {
+			int index = (int) mCount & (BLOCK_LENGTH - 1);
+			int length = Math.min(BLOCK_LENGTH - index, input.remaining());
+			input.get(mBuffer, index, length);
+			mCount += length;
+			if (index + length == BLOCK_LENGTH) {
+				processBlock(mBuffer, 0);
+			}
+		}
+	}
+	
+	/**
+	 * 从状态快照创建摘要
+	 *
+	 * @param snapshot 状态快照
+	 * @return 摘要
+	 * @throws IllegalArgumentException 快照格式错误
+	 * @see #snapshot()
+	 */
+	public static MD5Digest fromSnapshot(byte[] snapshot) {
+		MD5Digest digest = new MD5Digest();
+		digest.restore(snapshot);
+		return digest;
+	}
+	
+	/**
+	 * 已处理字节数
+	 *
+	 * @return 已处理字节数
+	 */
+	public long getByteCount() {
+		return mCount;
+	}
+	
+	/**
+	 * 保存中间状态快照(不超过88字节), 可持久化后通过{@link #restore(byte[])}继续计算
+	 *
+	 * @return 状态快照
+	 */
+	public byte[] snapshot() {
+		int bufferLength = (int) mCount & (BLOCK_LENGTH - 1);
+		byte[] snapshot = new byte[SNAPSHOT_HEADER_LENGTH + bufferLength];
+		snapshot[0] = SNAPSHOT_VERSION;
+		writeInt(mA, snapshot, 1);
+		writeInt(mB, snapshot, 5);
+		writeInt(mC, snapshot, 9);
+		writeInt(mD, snapshot, 13);
+		writeInt((int) mCount, snapshot, 17);
+		writeInt((int) (mCount >>> 32), snapshot, 21);
+		System.arraycopy(mBuffer, 0, snapshot, SNAPSHOT_HEADER_LENGTH, bufferLength);
+		return snapshot;
+	}
+	
+	/**
+	 * 恢复中间状态快照
+	 *
+	 * @param snapshot 状态快照
+	 * @throws IllegalArgumentException 快照格式错误
+	 * @see #snapshot()
+	 */
+	public void restore(byte[] snapshot) {
+		if (snapshot.length < SNAPSHOT_HEADER_LENGTH || snapshot[0] != SNAPSHOT_VERSION) {
+			throw new IllegalArgumentException("invalid MD5 snapshot");
+		}
+		long count = (readInt(snapshot, 17) & 0xffffffffL) | (long) readInt(snapshot, 21) << 32;
+		int bufferLength = (int) count & (BLOCK_LENGTH - 1);
+		if (count < 0 || snapshot.length != SNAPSHOT_HEADER_LENGTH + bufferLength) {
+			throw new IllegalArgumentException("invalid MD5 snapshot");
+		}
+		mA = readInt(snapshot, 1);
+		mB = readInt(snapshot, 5);
+		mC = readInt(snapshot, 9);
+		mD = readInt(snapshot, 13);
+		mCount = count;
+		System.arraycopy(snapshot, SNAPSHOT_HEADER_LENGTH, mBuffer, 0, bufferLength);
+	}
+	
+	/**
+	 * 以UTF-8编码更新摘要
+	 * 字符直接编码写入分组缓冲区, 不生成中间字节数组, 不成对的代理字符按'?'编码(与{@link String#getBytes(String)}一致)
+	 *
+	 * @param str   字符序列
+	 * @param start 起始位置
+	 * @param end   结束位置(不包含)
+	 */
+	public void update(CharSequence str, int start, int end) {
+		byte[] buffer = mBuffer;
+		int index = (int) mCount & (BLOCK_LENGTH - 1);
+		for (int position = start; position < end; position++) {
+			char c = str.charAt(position);
+			if (c < 0x80) {
+				// ASCII直接写入缓冲区
+				buffer[index++] = (byte) c;
+				mCount++;
+				if (index == BLOCK_LENGTH) {
+					processBlock(buffer, 0);
+					index = 0;
+				}
+				continue;
+			}
+			
+			if (c < 0x800) {
+				engineUpdate((byte) (0xc0 | c >> 6));
+				engineUpdate((byte) (0x80 | c & 0x3f));
+			} else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+				engineUpdate((byte) (0xe0 | c >> 12));
+				engineUpdate((byte) (0x80 | c >> 6 & 0x3f));
+				engineUpdate((byte) (0x80 | c & 0x3f));
+			} else if (Character.isHighSurrogate(c) && position + 1 < end && Character.isLowSurrogate(str.charAt(position + 1))) {
+				int codePoint = Character.toCodePoint(c, str.charAt(++position));
+				engineUpdate((byte) (0xf0 | codePoint >> 18));
+				engineUpdate((byte) (0x80 | codePoint >> 12 & 0x3f));
+				engineUpdate((byte) (0x80 | codePoint >> 6 & 0x3f));
+				engineUpdate((byte) (0x80 | codePoint & 0x3f));
+			} else {
+				engineUpdate((byte) '?');
+			}
+			index = (int) mCount & (BLOCK_LENGTH - 1);
+		}
+	}
+	
+	@Override
+	protected byte[] engineDigest() {
+		byte[] md = new byte[DIGEST_LENGTH];
+		finish(md, 0);
+		return md;
+	}
+	
+	@Override
+	protected int engineDigest(byte[] buf, int offset, int length) throws DigestException {
+		if (length < DIGEST_LENGTH) {
+			throw new DigestException("partial digests not returned");
+		}
+		if (buf.length - offset < DIGEST_LENGTH) {
+			throw new DigestException("insufficient space in the output buffer to store the digest");
+		}
+		finish(buf, offset);
+		return DIGEST_LENGTH;
+	}
+	
+	@Override
+	protected void engineReset() {
+		mA = 0x67452301;
+		mB = 0xefcdab89;
+		mC = 0x98badcfe;
+		mD = 0x10325476;
+		mCount = 0;
+	}
+	
+	@Override
+	public Object clone() throws CloneNotSupportedException {
+		MD5Digest digest = (MD5Digest) super.clone();
+		digest.mBuffer = mBuffer.clone();
+		return digest;
+	}
+	
+	/**
+	 * 复制另一个摘要的中间状态(不分配对象)
+	 *
+	 * @param digest 摘要
+	 */
+	void copyFrom(MD5Digest digest) {
+		mA = digest.mA;
+		mB = digest.mB;
+		mC = digest.mC;
+		mD = digest.mD;
+		mCount = digest.mCount;
+		System.arraycopy(digest.mBuffer, 0, mBuffer, 0, (int) mCount & (BLOCK_LENGTH - 1));
+	}
+	
+	/**
+	 * 填充并输出摘要, 然后重置状态
+	 *
+	 * @param out    结果数组
+	 * @param offset 结果数组偏移
+	 */
+	private void finish(byte[] out, int offset) {
+		long bitCount = mCount << 3;
+		int index = (int) mCount & (BLOCK_LENGTH - 1);
+		byte[] buffer = mBuffer;
+		buffer[index++] = (byte) 0x80;
+		if (index > BLOCK_LENGTH - 8) {
+			while (index < BLOCK_LENGTH) {
+				buffer[index++] = 0;
+			}
+			processBlock(buffer, 0);
+			index = 0;
+		}
+		while (index < BLOCK_LENGTH - 8) {
+			buffer[index++] = 0;
+		}
+		for (int shift = 0; shift < 64; shift += 8) {
+			buffer[index++] = (byte) (bitCount >>> shift);
+		}
+		processBlock(buffer, 0);
+		
+		writeInt(mA, out, offset);
+		writeInt(mB, out, offset + 4);
+		writeInt(mC, out, offset + 8);
+		writeInt(mD, out, offset + 12);
+		engineReset();
+	}
+	
+	/**
+	 * 以小端序写入整数
+	 */
+	static void writeInt(int value, byte[] out, int offset) {
+		out[offset] = (byte) value;
+		out[offset + 1] = (byte) (value >>> 8);
+		out[offset + 2] = (byte) (value >>> 16);
+		out[offset + 3] = (byte) (value >>> 24);
+	}
+	
+	/**
+	 * 以小端序读取整数
+	 */
+	static int readInt(byte[] input, int offset) {
+		return (input[offset] & 0xff)
+				| (input[offset + 1] & 0xff) << 8
+				| (input[offset + 2] & 0xff) << 16
+				| input[offset + 3] << 24;
+	}
+	
+	/**
+	 * 处理一个分组(RFC 1321 压缩函数, 64步展开)
+	 *
+	 * @param block  分组数据
+	 * @param offset 分组偏移
+	 */
+	private void processBlock(byte[] block, int offset) {
+		int x0 = readInt(block, offset), x1 = readInt(block, offset + 4);
+		int x2 = readInt(block, offset + 8), x3 = readInt(block, offset + 12);
+		int x4 = readInt(block, offset + 16), x5 = readInt(block, offset + 20);
+		int x6 = readInt(block, offset + 24), x7 = readInt(block, offset + 28);
+		int x8 = readInt(block, offset + 32), x9 = readInt(block, offset + 36);
+		int x10 = readInt(block, offset + 40), x11 = readInt(block, offset + 44);
+		int x12 = readInt(block, offset + 48), x13 = readInt(block, offset + 52);
+		int x14 = readInt(block, offset + 56), x15 = readInt(block, offset + 60);
+		
+		int a = mA, b = mB, c = mC, d = mD;
+		
+		a = b + Integer.rotateLeft(a + (b & c | ~b & d) + x0 + 0xd76aa478, 7);
+		d = a + Integer.rotateLeft(d + (a & b | ~a & c) + x1 + 0xe8c7b756, 12);
+		c = d + Integer.rotateLeft(c + (d & a | ~d & b) + x2 + 0x242070db, 17);
+		b = c + Integer.rotateLeft(b + (c & d | ~c & a) + x3 + 0xc1bdceee, 22);
+		a = b + Integer.rotateLeft(a + (b & c | ~b & d) + x4 + 0xf57c0faf, 7);
+		d = a + Integer.rotateLeft(d + (a & b | ~a & c) + x5 + 0x4787c62a, 12);
+		c = d + Integer.rotateLeft(c + (d & a | ~d & b) + x6 + 0xa8304613, 17);
+		b = c + Integer.rotateLeft(b + (c & d | ~c & a) + x7 + 0xfd469501, 22);
+		a = b + Integer.rotateLeft(a + (b & c | ~b & d) + x8 + 0x698098d8, 7);
+		d = a + Integer.rotateLeft(d + (a & b | ~a & c) + x9 + 0x8b44f7af, 12);
+		c = d + Integer.rotateLeft(c + (d & a | ~d & b) + x10 + 0xffff5bb1, 17);
+		b = c + Integer.rotateLeft(b + (c & d | ~c & a) + x11 + 0x895cd7be, 22);
+		a = b + Integer.rotateLeft(a + (b & c | ~b & d) + x12 + 0x6b901122, 7);
+		d = a + Integer.rotateLeft(d + (a & b | ~a & c) + x13 + 0xfd987193, 12);
+		c = d + Integer.rotateLeft(c + (d & a | ~d & b) + x14 + 0xa679438e, 17);
+		b = c + Integer.rotateLeft(b + (c & d | ~c & a) + x15 + 0x49b40821, 22);
+		
+		a = b + Integer.rotateLeft(a + (d & b | ~d & c) + x1 + 0xf61e2562, 5);
+		d = a + Integer.rotateLeft(d + (c & a | ~c & b) + x6 + 0xc040b340, 9);
+		c = d + Integer.rotateLeft(c + (b & d | ~b & a) + x11 + 0x265e5a51, 14);
+		b = c + Integer.rotateLeft(b + (a & c | ~a & d) + x0 + 0xe9b6c7aa, 20);
+		a = b + Integer.rotateLeft(a + (d & b | ~d & c) + x5 + 0xd62f105d, 5);
+		d = a + Integer.rotateLeft(d + (c & a | ~c & b) + x10 + 0x02441453, 9);
+		c = d + Integer.rotateLeft(c + (b & d | ~b & a) + x15 + 0xd8a1e681, 14);
+		b = c + Integer.rotateLeft(b + (a & c | ~a & d) + x4 + 0xe7d3fbc8, 20);
+		a = b + Integer.rotateLeft(a + (d & b | ~d & c) + x9 + 0x21e1cde6, 5);
+		d = a + Integer.rotateLeft(d + (c & a | ~c & b) + x14 + 0xc33707d6, 9);
+		c = d + Integer.rotateLeft(c + (b & d | ~b & a) + x3 + 0xf4d50d87, 14);
+		b = c + Integer.rotateLeft(b + (a & c | ~a & d) + x8 + 0x455a14ed, 20);
+		a = b + Integer.rotateLeft(a + (d & b | ~d & c) + x13 + 0xa9e3e905, 5);
+		d = a + Integer.rotateLeft(d + (c & a | ~c & b) + x2 + 0xfcefa3f8, 9);
+		c = d + Integer.rotateLeft(c + (b & d | ~b & a) + x7 + 0x676f02d9, 14);
+		b = c + Integer.rotateLeft(b + (a & c | ~a & d) + x12 + 0x8d2a4c8a, 20);
+		
+		a = b + Integer.rotateLeft(a + (b ^ c ^ d) + x5 + 0xfffa3942, 4);
+		d = a + Integer.rotateLeft(d + (a ^ b ^ c) + x8 + 0x8771f681, 11);
+		c = d + Integer.rotateLeft(c + (d ^ a ^ b) + x11 + 0x6d9d6122, 16);
+		b = c + Integer.rotateLeft(b + (c ^ d ^ a) + x14 + 0xfde5380c, 23);
+		a = b + Integer.rotateLeft(a + (b ^ c ^ d) + x1 + 0xa4beea44, 4);
+		d = a + Integer.rotateLeft(d + (a ^ b ^ c) + x4 + 0x4bdecfa9, 11);
+		c = d + Integer.rotateLeft(c + (d ^ a ^ b) + x7 + 0xf6bb4b60, 16);
+		b = c + Integer.rotateLeft(b + (c ^ d ^ a) + x10 + 0xbebfbc70, 23);
+		a = b + Integer.rotateLeft(a + (b ^ c ^ d) + x13 + 0x289b7ec6, 4);
+		d = a + Integer.rotateLeft(d + (a ^ b ^ c) + x0 + 0xeaa127fa, 11);
+		c = d + Integer.rotateLeft(c + (d ^ a ^ b) + x3 + 0xd4ef3085, 16);
+		b = c + Integer.rotateLeft(b + (c ^ d ^ a) + x6 + 0x04881d05, 23);
+		a = b + Integer.rotateLeft(a + (b ^ c ^ d) + x9 + 0xd9d4d039, 4);
+		d = a + Integer.rotateLeft(d + (a ^ b ^ c) + x12 + 0xe6db99e5, 11);
+		c = d + Integer.rotateLeft(c + (d ^ a ^ b) + x15 + 0x1fa27cf8, 16);
+		b = c + Integer.rotateLeft(b + (c ^ d ^ a) + x2 + 0xc4ac5665, 23);
+		
+		a = b + Integer.rotateLeft(a + (c ^ (b | ~d)) + x0 + 0xf4292244, 6);
+		d = a + Integer.rotateLeft(d + (b ^ (a | ~c)) + x7 + 0x432aff97, 10);
+		c = d + Integer.rotateLeft(c + (a ^ (d | ~b)) + x14 + 0xab9423a7, 15);
+		b = c + Integer.rotateLeft(b + (d ^ (c | ~a)) + x5 + 0xfc93a039, 21);
+		a = b + Integer.rotateLeft(a + (c ^ (b | ~d)) + x12 + 0x655b59c3, 6);
+		d = a + Integer.rotateLeft(d + (b ^ (a | ~c)) + x3 + 0x8f0ccc92, 10);
+		c = d + Integer.rotateLeft(c + (a ^ (d | ~b)) + x10 + 0xffeff47d, 15);
+		b = c + Integer.rotateLeft(b + (d ^ (c | ~a)) + x1 + 0x85845dd1, 21);
+		a = b + Integer.rotateLeft(a + (c ^ (b | ~d)) + x8 + 0x6fa87e4f, 6);
+		d = a + Integer.rotateLeft(d + (b ^ (a | ~c)) + x15 + 0xfe2ce6e0, 10);
+		c = d + Integer.rotateLeft(c + (a ^ (d | ~b)) + x6 + 0xa3014314, 15);
+		b = c + Integer.rotateLeft(b + (d ^ (c | ~a)) + x13 + 0x4e0811a1, 21);
+		a = b + Integer.rotateLeft(a + (c ^ (b | ~d)) + x4 + 0xf7537e82, 6);
+		d = a + Integer.rotateLeft(d + (b ^ (a | ~c)) + x11 + 0xbd3af235, 10);
+		c = d + Integer.rotateLeft(c + (a ^ (d | ~b)) + x2 + 0x2ad7d2bb, 15);
+		b = c + Integer.rotateLeft(b + (d ^ (c | ~a)) + x9 + 0xeb86d391, 21);
+		
+		mA += a;
+		mB += b;
+		mC += c;
+		mD += d;
+	}
+}
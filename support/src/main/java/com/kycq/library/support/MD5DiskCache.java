@@ -0,0 +1,645 @@
+package com.kycq.library.support;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 以MD5摘要命名的磁盘缓存
+ * 缓存文件按摘要前两位分散到256个子目录, 通过追加写入的日志恢复索引(启动时不遍历目录),
+ * 超出容量时按LRU淘汰, 写入先保存到临时文件再重命名, 不会读取到写入一半的文件;
+ * 重命名前先记录开始写入, 重命名后未记录写入完成的缓存文件在下次打开时删除
+ */
+public class MD5DiskCache implements Closeable {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	
+	/** 日志文件 */
+	private static final String JOURNAL_FILE = "journal";
+	/** 重建中的日志文件 */
+	private static final String JOURNAL_FILE_TEMP = "journal.tmp";
+	/** 临时文件目录 */
+	private static final String TEMP_DIRECTORY = "tmp";
+	/** 日志头 */
+	private static final String MAGIC = "kycq.MD5DiskCache";
+	/** 日志版本 */
+	private static final String VERSION = "1";
+	
+	/** 日志操作:开始写入(重命名前记录) */
+	private static final char OP_WRITE = 'W';
+	/** 日志操作:写入 */
+	private static final char OP_PUT = 'P';
+	/** 日志操作:读取 */
+	private static final char OP_READ = 'R';
+	/** 日志操作:删除 */
+	private static final char OP_DELETE = 'D';
+	
+	/** 触发日志重建的冗余操作数量 */
+	private static final int REDUNDANT_OP_COMPACT_THRESHOLD = 2000;
+	/** 复制缓冲区大小 */
+	private static final int BUFFER_SIZE = 8 * 1024;
+	
+	/** 缓存目录 */
+	private final File mDirectory;
+	/** 临时文件目录 */
+	private final File mTempDirectory;
+	/** 最大缓存容量(字节) */
+	private final long mMaxSize;
+	/** 缓存索引(按访问顺序排列, 值为文件大小) */
+	private final LinkedHashMap<Digest128, Long> mEntries = new LinkedHashMap<>(0, 0.75f, true);
+	/** 临时文件序号 */
+	private final AtomicLong mTempSequence = new AtomicLong();
+	/** 当前缓存大小(字节) */
+	private long mSize;
+	/** 日志写入器, 重建日志失败时为null(下次写入时重建) */
+	private Writer mJournalWriter;
+	/** 是否已关闭 */
+	private boolean mClosed;
+	/** 日志中的冗余操作数量 */
+	private int mRedundantOpCount;
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param directory 缓存目录
+	 * @param maxSize   最大缓存容量(字节)
+	 */
+	private MD5DiskCache(File directory, long maxSize) {
+		mDirectory = directory;
+		mTempDirectory = new File(directory, TEMP_DIRECTORY);
+		mMaxSize = maxSize;
+	}
+	
+	/**
+	 * 打开磁盘缓存
+	 *
+	 * @param directory 缓存目录(独占使用)
+	 * @param maxSize   最大缓存容量(字节)
+	 * @return 磁盘缓存
+	 * @throws IOException 读写异常
+	 */
+	public static MD5DiskCache open(File directory, long maxSize) throws IOException {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+		MD5DiskCache cache = new MD5DiskCache(directory, maxSize);
+		cache.clearTempFiles();
+		File journalFile = new File(directory, JOURNAL_FILE);
+		if (journalFile.exists()) {
+			try {
+				if (cache.readJournal(journalFile)) {
+					cache.mJournalWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalFile, true), UTF_8));
+				} else {
+					// 最后一行写入不完整, 重建日志后再追加, 避免新记录接在残缺的行后
+					cache.rebuildJournal();
+					cache.deleteOrphanFiles();
+				}
+				cache.trimToSize();
+				return cache;
+			} catch (IOException ignored) {
+				// 日志损坏时清空缓存重新创建
+				cache.delete();
+				cache = new MD5DiskCache(directory, maxSize);
+			}
+		}
+		if (!directory.mkdirs() && !directory.isDirectory()) {
+			throw new IOException("failed to create directory " + directory);
+		}
+		cache.rebuildJournal();
+		return cache;
+	}
+	
+	/**
+	 * 获取缓存文件
+	 *
+	 * @param key 缓存键值
+	 * @return 缓存文件, 不存在返回null
+	 * @throws IOException 读写异常
+	 */
+	public File get(String key) throws IOException {
+		return getContent(MD5Utils.digest(key));
+	}
+	
+	/**
+	 * 按内容摘要获取缓存文件
+	 *
+	 * @param md5 内容摘要
+	 * @return 缓存文件, 不存在返回null
+	 * @throws IOException 读写异常
+	 * @see #putContent(InputStream)
+	 */
+	public synchronized File getContent(Digest128 md5) throws IOException {
+		checkNotClosed();
+		if (mEntries.get(md5) == null) {
+			return null;
+		}
+		appendJournal(OP_READ, md5, -1, false);
+		return getEntryFile(md5);
+	}
+	
+	/**
+	 * 写入缓存
+	 *
+	 * @param key         缓存键值
+	 * @param inputStream 缓存内容(读取至结束, 不会关闭)
+	 * @return 缓存文件, 超过最大缓存容量不保存时返回null
+	 * @throws IOException 读写异常
+	 */
+	public File put(String key, InputStream inputStream) throws IOException {
+		File tempFile = writeTempFile(inputStream, null);
+		return commit(MD5Utils.digest(key), tempFile);
+	}
+	
+	/**
+	 * 按内容摘要写入缓存, 相同内容只保存一份
+	 * 超过最大缓存容量时不保存, 之后{@link #getContent(Digest128)}返回null
+	 *
+	 * @param inputStream 缓存内容(读取至结束, 不会关闭)
+	 * @return 内容摘要
+	 * @throws IOException 读写异常
+	 */
+	public Digest128 putContent(InputStream inputStream) throws IOException {
+		MD5Digest digest = new MD5Digest();
+		File tempFile = writeTempFile(inputStream, digest);
+		Digest128 md5 = Digest128.fromBytes(digest.digest(), 0);
+		commit(md5, tempFile);
+		return md5;
+	}
+	
+	/**
+	 * 删除缓存
+	 *
+	 * @param key 缓存键值
+	 * @return true已删除 false不存在
+	 * @throws IOException 读写异常
+	 */
+	public boolean remove(String key) throws IOException {
+		return removeContent(MD5Utils.digest(key));
+	}
+	
+	/**
+	 * 按内容摘要删除缓存
+	 *
+	 * @param md5 内容摘要
+	 * @return true已删除 false不存在
+	 * @throws IOException 读写异常
+	 */
+	public synchronized boolean removeContent(Digest128 md5) throws IOException {
+		checkNotClosed();
+		if (!removeEntry(md5)) {
+			return false;
+		}
+		getJournalWriter().flush();
+		return true;
+	}
+	
+	/**
+	 * 当前缓存大小
+	 *
+	 * @return 当前缓存大小(字节)
+	 */
+	public synchronized long size() {
+		return mSize;
+	}
+	
+	/**
+	 * 最大缓存容量
+	 *
+	 * @return 最大缓存容量(字节)
+	 */
+	public long getMaxSize() {
+		return mMaxSize;
+	}
+	
+	/**
+	 * 缓存数量
+	 *
+	 * @return 缓存数量
+	 */
+	public synchronized int getEntryCount() {
+		return mEntries.size();
+	}
+	
+	/**
+	 * 关闭缓存
+	 *
+	 * @throws IOException 读写异常
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		mClosed = true;
+		if (mJournalWriter != null) {
+			mJournalWriter.close();
+			mJournalWriter = null;
+		}
+	}
+	
+	/**
+	 * 关闭并删除所有缓存
+	 *
+	 * @throws IOException 读写异常
+	 */
+	public synchronized void delete() throws IOException {
+		close();
+		deleteRecursively(mDirectory);
+		mEntries.clear();
+		mSize = 0;
+	}
+	
+	/**
+	 * 缓存文件路径(按摘要前两位分散到子目录)
+	 *
+	 * @param md5 摘要
+	 * @return 缓存文件
+	 */
+	private File getEntryFile(Digest128 md5) {
+		String name = md5.toHex();
+		return new File(new File(mDirectory, name.substring(0, 2)), name);
+	}
+	
+	/**
+	 * 写入临时文件
+	 *
+	 * @param inputStream 输入流
+	 * @param digest      同时更新的摘要, 可为null
+	 * @return 临时文件
+	 * @throws IOException 读写异常
+	 */
+	private File writeTempFile(InputStream inputStream, MD5Digest digest) throws IOException {
+		if (!mTempDirectory.mkdirs() && !mTempDirectory.isDirectory()) {
+			throw new IOException("failed to create directory " + mTempDirectory);
+		}
+		File tempFile = new File(mTempDirectory, mTempSequence.incrementAndGet() + "-" + System.nanoTime() + ".tmp");
+		OutputStream outputStream = new FileOutputStream(tempFile);
+		boolean success = false;
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int length;
+			while ((length = inputStream.read(buffer)) != -1) {
+				outputStream.write(buffer, 0, length);
+				if (digest != null) {
+					digest.update(buffer, 0, length);
+				}
+			}
+			success = true;
+		} finally {
+			MD5Utils.closeQuietly(outputStream);
+			if (!success) {
+				tempFile.delete();
+			}
+		}
+		return tempFile;
+	}
+	
+	/**
+	 * 将临时文件重命名为缓存文件并记录日志
+	 *
+	 * @param md5      摘要
+	 * @param tempFile 临时文件
+	 * @return 缓存文件, 超过最大缓存容量被淘汰时返回null
+	 * @throws IOException 读写异常
+	 */
+	private synchronized File commit(Digest128 md5, File tempFile) throws IOException {
+		try {
+			checkNotClosed();
+			File entryFile = getEntryFile(md5);
+			File shardDirectory = entryFile.getParentFile();
+			if (!shardDirectory.mkdirs() && !shardDirectory.isDirectory()) {
+				throw new IOException("failed to create directory " + shardDirectory);
+			}
+			// 重命名后到记录写入前中断时, 下次打开根据该记录删除缓存文件
+			appendJournal(OP_WRITE, md5, -1, true);
+			getJournalWriter().flush();
+			if (!tempFile.renameTo(entryFile)) {
+				throw new IOException("failed to rename " + tempFile + " to " + entryFile);
+			}
+			
+			long length = entryFile.length();
+			Long oldLength = mEntries.put(md5, length);
+			if (oldLength != null) {
+				mSize -= oldLength;
+			}
+			mSize += length;
+			appendJournal(OP_PUT, md5, length, oldLength != null);
+			if (length > mMaxSize) {
+				// 超过最大缓存容量的文件不保存, 也不淘汰其他缓存
+				removeEntry(md5);
+			}
+			trimToSize();
+			getJournalWriter().flush();
+			return mEntries.containsKey(md5) ? entryFile : null;
+		} finally {
+			tempFile.delete();
+		}
+	}
+	
+	/**
+	 * 删除缓存项
+	 *
+	 * @param md5 摘要
+	 * @return true已删除 false不存在
+	 * @throws IOException 读写异常
+	 */
+	private boolean removeEntry(Digest128 md5) throws IOException {
+		Long length = mEntries.remove(md5);
+		if (length == null) {
+			return false;
+		}
+		File entryFile = getEntryFile(md5);
+		if (!entryFile.delete() && entryFile.exists()) {
+			throw new IOException("failed to delete " + entryFile);
+		}
+		mSize -= length;
+		appendJournal(OP_DELETE, md5, -1, true);
+		return true;
+	}
+	
+	/**
+	 * 按LRU淘汰超出容量的缓存
+	 *
+	 * @throws IOException 读写异常
+	 */
+	private void trimToSize() throws IOException {
+		while (mSize > mMaxSize && !mEntries.isEmpty()) {
+			removeEntry(mEntries.keySet().iterator().next());
+		}
+	}
+	
+	/**
+	 * 追加日志, 冗余操作过多时重建日志
+	 *
+	 * @param op        操作
+	 * @param md5       摘要
+	 * @param length    文件大小(写入操作)
+	 * @param redundant 是否使之前的日志冗余
+	 * @throws IOException 读写异常
+	 */
+	private void appendJournal(char op, Digest128 md5, long length, boolean redundant) throws IOException {
+		Writer writer = getJournalWriter();
+		writer.write(op);
+		writer.write(' ');
+		writer.write(md5.toHex());
+		if (op == OP_PUT) {
+			writer.write(' ');
+			writer.write(Long.toString(length));
+		}
+		writer.write('\n');
+		
+		if (redundant || op == OP_READ) {
+			mRedundantOpCount++;
+		}
+		// 开始写入的记录必须保留到写入完成, 不在此时重建
+		if (op != OP_WRITE && mRedundantOpCount >= REDUNDANT_OP_COMPACT_THRESHOLD && mRedundantOpCount >= mEntries.size()) {
+			rebuildJournal();
+		}
+	}
+	
+	/**
+	 * 获取日志写入器, 之前重建日志失败时重新重建
+	 *
+	 * @return 日志写入器
+	 * @throws IOException 读写异常
+	 */
+	private Writer getJournalWriter() throws IOException {
+		if (mJournalWriter == null) {
+			rebuildJournal();
+		}
+		return mJournalWriter;
+	}
+	
+	/**
+	 * 读取日志恢复索引
+	 * 最后一行没有换行或格式错误时视为写入不完整, 忽略该行;
+	 * 开始写入后没有完成记录的缓存文件不可信, 删除文件及索引
+	 *
+	 * @param journalFile 日志文件
+	 * @return true日志完整 false最后一行写入不完整或存在未完成的写入(需要重建日志)
+	 * @throws IOException 日志损坏
+	 */
+	private boolean readJournal(File journalFile) throws IOException {
+		boolean complete = endsWithNewLine(journalFile);
+		Set<Digest128> pendingWrites = new HashSet<>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), UTF_8), BUFFER_SIZE);
+		try {
+			if (!MAGIC.equals(reader.readLine()) || !VERSION.equals(reader.readLine())) {
+				throw new IOException("unexpected journal header");
+			}
+			int lineCount = 0;
+			String line = reader.readLine();
+			while (line != null) {
+				String nextLine = reader.readLine();
+				if (nextLine == null && !complete) {
+					// 没有换行的最后一行可能被截断(如长度不完整), 即使格式正确也不可信
+					break;
+				}
+				if (!readJournalLine(line, pendingWrites)) {
+					if (nextLine == null) {
+						complete = false;
+						break;
+					}
+					throw new IOException("unexpected journal line: " + line);
+				}
+				lineCount++;
+				line = nextLine;
+			}
+			for (Digest128 md5 : pendingWrites) {
+				Long length = mEntries.remove(md5);
+				if (length != null) {
+					mSize -= length;
+				}
+				getEntryFile(md5).delete();
+				complete = false;
+			}
+			mRedundantOpCount = lineCount - mEntries.size();
+			return complete;
+		} finally {
+			MD5Utils.closeQuietly(reader);
+		}
+	}
+	
+	/**
+	 * 文件是否以换行结束
+	 *
+	 * @param file 文件
+	 * @return true以换行结束 false未以换行结束
+	 * @throws IOException 读取异常
+	 */
+	private static boolean endsWithNewLine(File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			long length = randomAccessFile.length();
+			if (length == 0) {
+				return false;
+			}
+			randomAccessFile.seek(length - 1);
+			return randomAccessFile.read() == '\n';
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+	
+	/**
+	 * 读取一行日志
+	 *
+	 * @param line          日志
+	 * @param pendingWrites 开始写入但未完成的摘要
+	 * @return true格式正确 false格式错误
+	 */
+	private boolean readJournalLine(String line, Set<Digest128> pendingWrites) {
+		if (line.length() < 34 || line.charAt(1) != ' ') {
+			return false;
+		}
+		Digest128 md5;
+		try {
+			md5 = Digest128.parseHex(line.substring(2, 34));
+		} catch (NumberFormatException ex) {
+			return false;
+		}
+		switch (line.charAt(0)) {
+			case OP_PUT:
+				if (line.length() < 36 || line.charAt(34) != ' ') {
+					return false;
+				}
+				long length;
+				try {
+					length = Long.parseLong(line.substring(35));
+				} catch (NumberFormatException ex) {
+					return false;
+				}
+				Long oldLength = mEntries.put(md5, length);
+				if (oldLength != null) {
+					mSize -= oldLength;
+				}
+				mSize += length;
+				pendingWrites.remove(md5);
+				return true;
+			case OP_WRITE:
+				pendingWrites.add(md5);
+				return line.length() == 34;
+			case OP_READ:
+				mEntries.get(md5);
+				return line.length() == 34;
+			case OP_DELETE:
+				Long removedLength = mEntries.remove(md5);
+				if (removedLength != null) {
+					mSize -= removedLength;
+				}
+				pendingWrites.remove(md5);
+				return line.length() == 34;
+			default:
+				return false;
+		}
+	}
+	
+	/**
+	 * 按当前索引重建日志, 失败时日志写入器为null
+	 *
+	 * @throws IOException 读写异常
+	 */
+	private void rebuildJournal() throws IOException {
+		if (mJournalWriter != null) {
+			Writer journalWriter = mJournalWriter;
+			mJournalWriter = null;
+			journalWriter.close();
+		}
+		File journalFile = new File(mDirectory, JOURNAL_FILE);
+		File tempFile = new File(mDirectory, JOURNAL_FILE_TEMP);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), UTF_8), BUFFER_SIZE);
+		try {
+			writer.write(MAGIC);
+			writer.write('\n');
+			writer.write(VERSION);
+			writer.write('\n');
+			for (Map.Entry<Digest128, Long> entry : mEntries.entrySet()) {
+				writer.write(OP_PUT);
+				writer.write(' ');
+				writer.write(entry.getKey().toHex());
+				writer.write(' ');
+				writer.write(entry.getValue().toString());
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+		if (!tempFile.renameTo(journalFile)) {
+			throw new IOException("failed to rename " + tempFile + " to " + journalFile);
+		}
+		mJournalWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalFile, true), UTF_8), BUFFER_SIZE);
+		mRedundantOpCount = 0;
+	}
+	
+	/**
+	 * 删除索引中不存在的缓存文件(日志未记录的写入)
+	 */
+	private void deleteOrphanFiles() {
+		File[] directories = mDirectory.listFiles();
+		if (directories == null) {
+			return;
+		}
+		for (File directory : directories) {
+			if (!directory.isDirectory() || directory.getName().length() != 2) {
+				continue;
+			}
+			File[] files = directory.listFiles();
+			if (files == null) {
+				continue;
+			}
+			for (File file : files) {
+				Digest128 md5;
+				try {
+					md5 = Digest128.parseHex(file.getName());
+				} catch (NumberFormatException ex) {
+					md5 = null;
+				}
+				if (md5 == null || !mEntries.containsKey(md5)) {
+					file.delete();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 删除上次未完成写入的临时文件
+	 */
+	private void clearTempFiles() {
+		File[] files = mTempDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+	}
+	
+	private void checkNotClosed() {
+		if (mClosed) {
+			throw new IllegalStateException("cache is closed");
+		}
+	}
+	
+	private static void deleteRecursively(File file) throws IOException {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				deleteRecursively(child);
+			}
+		}
+		if (!file.delete() && file.exists()) {
+			throw new IOException("failed to delete " + file);
+		}
+	}
+}
@@ -0,0 +1,344 @@
+package com.kycq.library.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 目录摘要清单
+ * 以二进制索引保存目录下每个文件的(路径, 大小, 修改时间, 摘要), 重新扫描时只计算大小或修改时间变化的文件
+ */
+public class MD5Manifest {
+	/** 索引文件标识 */
+	private static final int MAGIC = 0x4d44354d;
+	/** 索引文件版本 */
+	private static final int VERSION = 1;
+	/** 修改时间精度(部分文件系统为2秒), 扫描前这段时间内修改的文件下次扫描仍重新计算 */
+	private static final long MTIME_GRANULARITY = 2000;
+	
+	/** 根目录 */
+	private final File mRoot;
+	/** 文件清单(相对路径, 以'/'分隔) */
+	private Map<String, Entry> mEntries;
+	/** 上次扫描开始时间 */
+	private long mScanTime;
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param root 根目录
+	 */
+	public MD5Manifest(File root) {
+		mRoot = root;
+		mEntries = new HashMap<>();
+	}
+	
+	/**
+	 * 读取索引文件, 索引不存在或已损坏时返回空清单
+	 *
+	 * @param root      根目录
+	 * @param indexFile 索引文件
+	 * @return 目录摘要清单
+	 */
+	public static MD5Manifest load(File root, File indexFile) {
+		MD5Manifest manifest = new MD5Manifest(root);
+		if (!indexFile.isFile()) {
+			return manifest;
+		}
+		DataInputStream inputStream = null;
+		try {
+			inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			if (inputStream.readInt() != MAGIC || inputStream.readInt() != VERSION) {
+				return manifest;
+			}
+			long scanTime = inputStream.readLong();
+			int count = inputStream.readInt();
+			Map<String, Entry> entries = new HashMap<>(Math.max(count, 16) * 4 / 3);
+			String previousPath = "";
+			for (int index = 0; index < count; index++) {
+				// 路径按顺序保存, 只记录与上一路径不同的后缀
+				int prefixLength = inputStream.readUnsignedShort();
+				String path = previousPath.substring(0, prefixLength) + inputStream.readUTF();
+				long size = inputStream.readLong();
+				long lastModified = inputStream.readLong();
+				Digest128 md5 = new Digest128(inputStream.readLong(), inputStream.readLong());
+				entries.put(path, new Entry(path, size, lastModified, md5));
+				previousPath = path;
+			}
+			manifest.mEntries = entries;
+			manifest.mScanTime = scanTime;
+		} catch (Exception ignored) {
+			// 索引损坏时重新扫描
+		} finally {
+			MD5Utils.closeQuietly(inputStream);
+		}
+		return manifest;
+	}
+	
+	/**
+	 * 扫描根目录下的所有文件
+	 *
+	 * @return 变化的文件
+	 * @throws IOException 读取异常
+	 * @see #scan(FileFilter)
+	 */
+	public Changes scan() throws IOException {
+		return scan(null);
+	}
+	
+	/**
+	 * 扫描根目录, 只计算新增或大小、修改时间变化的文件
+	 *
+	 * @param filter 文件过滤器, 可为null
+	 * @return 变化的文件
+	 * @throws IOException 读取异常
+	 */
+	public synchronized Changes scan(FileFilter filter) throws IOException {
+		long scanTime = System.currentTimeMillis();
+		Map<String, Entry> entries = new HashMap<>(Math.max(mEntries.size(), 16) * 4 / 3);
+		Changes changes = new Changes();
+		MessageDigest digest;
+		try {
+			digest = MD5Utils.obtainDigest();
+		} catch (Exception ex) {
+			throw new IOException(ex);
+		}
+		scan(mRoot, "", filter, digest, entries, changes);
+		
+		for (String path : mEntries.keySet()) {
+			if (!entries.containsKey(path)) {
+				changes.mRemoved.add(path);
+			}
+		}
+		Collections.sort(changes.mAdded);
+		Collections.sort(changes.mModified);
+		Collections.sort(changes.mRemoved);
+		mEntries = entries;
+		mScanTime = scanTime;
+		return changes;
+	}
+	
+	private void scan(File directory, String prefix, FileFilter filter, MessageDigest digest,
+	                  Map<String, Entry> entries, Changes changes) throws IOException {
+		File[] files = filter == null ? directory.listFiles() : directory.listFiles(filter);
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String path = prefix + file.getName();
+			if (file.isDirectory()) {
+				scan(file, path + '/', filter, digest, entries, changes);
+				continue;
+			}
+			long size = file.length();
+			long lastModified = file.lastModified();
+			Entry entry = mEntries.get(path);
+			if (entry != null && entry.mSize == size && entry.mLastModified == lastModified
+					&& lastModified < mScanTime - MTIME_GRANULARITY) {
+				entries.put(path, entry);
+				continue;
+			}
+			
+			FileInputStream inputStream = new FileInputStream(file);
+			try {
+				digest.reset();
+				MD5Utils.update(digest, inputStream.getChannel());
+			} finally {
+				MD5Utils.closeQuietly(inputStream);
+			}
+			Digest128 md5 = Digest128.fromBytes(digest.digest(), 0);
+			entries.put(path, new Entry(path, size, lastModified, md5));
+			if (entry == null) {
+				changes.mAdded.add(path);
+			} else if (!entry.mMD5.equals(md5)) {
+				changes.mModified.add(path);
+			}
+		}
+	}
+	
+	/**
+	 * 保存索引文件(先写入临时文件再重命名)
+	 *
+	 * @param indexFile 索引文件
+	 * @throws IOException 写入异常
+	 */
+	public synchronized void save(File indexFile) throws IOException {
+		String[] paths = mEntries.keySet().toArray(new String[mEntries.size()]);
+		Arrays.sort(paths);
+		
+		File tempFile = new File(indexFile.getPath() + ".tmp");
+		DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			outputStream.writeInt(MAGIC);
+			outputStream.writeInt(VERSION);
+			outputStream.writeLong(mScanTime);
+			outputStream.writeInt(paths.length);
+			String previousPath = "";
+			for (String path : paths) {
+				int prefixLength = 0;
+				int maxLength = Math.min(Math.min(previousPath.length(), path.length()), 0xffff);
+				while (prefixLength < maxLength && previousPath.charAt(prefixLength) == path.charAt(prefixLength)) {
+					prefixLength++;
+				}
+				Entry entry = mEntries.get(path);
+				outputStream.writeShort(prefixLength);
+				outputStream.writeUTF(path.substring(prefixLength));
+				outputStream.writeLong(entry.mSize);
+				outputStream.writeLong(entry.mLastModified);
+				outputStream.writeLong(entry.mMD5.getHigh());
+				outputStream.writeLong(entry.mMD5.getLow());
+				previousPath = path;
+			}
+		} finally {
+			outputStream.close();
+		}
+		if (!tempFile.renameTo(indexFile)) {
+			tempFile.delete();
+			throw new IOException("failed to rename " + tempFile + " to " + indexFile);
+		}
+	}
+	
+	/**
+	 * 根目录
+	 *
+	 * @return 根目录
+	 */
+	public File getRoot() {
+		return mRoot;
+	}
+	
+	/**
+	 * 获取文件清单项
+	 *
+	 * @param path 相对路径(以'/'分隔)
+	 * @return 清单项, 不存在返回null
+	 */
+	public synchronized Entry get(String path) {
+		return mEntries.get(path);
+	}
+	
+	/**
+	 * 获取文件摘要
+	 *
+	 * @param path 相对路径(以'/'分隔)
+	 * @return 32位十六进制摘要, 不存在返回null
+	 */
+	public String getMD5(String path) {
+		Entry entry = get(path);
+		return entry == null ? null : entry.mMD5.toHex();
+	}
+	
+	/**
+	 * 所有文件的相对路径
+	 *
+	 * @return 相对路径集合
+	 */
+	public synchronized Set<String> getPaths() {
+		return Collections.unmodifiableSet(mEntries.keySet());
+	}
+	
+	/**
+	 * 文件数量
+	 *
+	 * @return 文件数量
+	 */
+	public synchronized int size() {
+		return mEntries.size();
+	}
+	
+	/**
+	 * 文件清单项
+	 */
+	public static final class Entry {
+		private final String mPath;
+		private final long mSize;
+		private final long mLastModified;
+		private final Digest128 mMD5;
+		
+		Entry(String path, long size, long lastModified, Digest128 md5) {
+			mPath = path;
+			mSize = size;
+			mLastModified = lastModified;
+			mMD5 = md5;
+		}
+		
+		public String getPath() {
+			return mPath;
+		}
+		
+		public long getSize() {
+			return mSize;
+		}
+		
+		public long getLastModified() {
+			return mLastModified;
+		}
+		
+		public Digest128 getMD5() {
+			return mMD5;
+		}
+		
+		@Override
+		public String toString() {
+			return mPath + " " + mSize + " " + mLastModified + " " + mMD5;
+		}
+	}
+	
+	/**
+	 * 扫描结果(按路径排序)
+	 */
+	public static final class Changes {
+		private final List<String> mAdded = new ArrayList<>();
+		private final List<String> mModified = new ArrayList<>();
+		private final List<String> mRemoved = new ArrayList<>();
+		
+		/**
+		 * 新增的文件
+		 */
+		public List<String> getAdded() {
+			return mAdded;
+		}
+		
+		/**
+		 * 内容变化的文件
+		 */
+		public List<String> getModified() {
+			return mModified;
+		}
+		
+		/**
+		 * 删除的文件
+		 */
+		public List<String> getRemoved() {
+			return mRemoved;
+		}
+		
+		/**
+		 * 是否没有变化
+		 *
+		 * @return true没有变化
+		 */
+		public boolean isEmpty() {
+			return mAdded.isEmpty() && mModified.isEmpty() && mRemoved.isEmpty();
+		}
+		
+		@Override
+		public String toString() {
+			return "added=" + mAdded + ", modified=" + mModified + ", removed=" + mRemoved;
+		}
+	}
+}
@@ -0,0 +1,505 @@
+package com.kycq.library.support;
+
+/**
+ * 多路交错MD5摘要
+ * 同时推进多个相互独立的摘要状态, 使各路的依赖链可以交错执行, 适合批量计算大量短消息
+ */
+final class MD5MultiBuffer {
+	/** 并行路数 */
+	static final int LANES = 4;
+	
+	/** 各路摘要状态(每路a, b, c, d) */
+	private final int[] mState = new int[LANES * 4];
+	/** 各路分组处理前的摘要状态 */
+	private final int[] mSavedState = new int[LANES * 4];
+	/** 各路当前分组的字 */
+	private final int[] mWords = new int[LANES * 16];
+	/** 填充分组缓冲区 */
+	private final byte[] mBlock = new byte[MD5Digest.BLOCK_LENGTH];
+	/** 各路当前消息序号, -1为空闲 */
+	private final int[] mMessages = new int[LANES];
+	/** 各路当前分组序号 */
+	private final int[] mBlocks = new int[LANES];
+	/** 各路消息分组总数 */
+	private final int[] mBlockCounts = new int[LANES];
+	
+	/**
+	 * 批量计算摘要
+	 *
+	 * @param inputs 消息列表
+	 * @param out    结果列表(每项至少16字节)
+	 */
+	void digest(byte[][] inputs, byte[][] out) {
+		int next = 0;
+		int active = 0;
+		for (int lane = 0; lane < LANES; lane++) {
+			if (next < inputs.length) {
+				start(lane, next++, inputs);
+				active++;
+			} else {
+				mMessages[lane] = -1;
+			}
+		}
+		
+		while (active > 0) {
+			for (int lane = 0; lane < LANES; lane++) {
+				int message = mMessages[lane];
+				if (message != -1) {
+					loadBlock(lane, inputs[message], mBlocks[lane], mBlocks[lane] == mBlockCounts[lane] - 1);
+				}
+			}
+			compress(mState, mWords);
+			for (int lane = 0; lane < LANES; lane++) {
+				int message = mMessages[lane];
+				if (message == -1 || ++mBlocks[lane] < mBlockCounts[lane]) {
+					continue;
+				}
+				byte[] md = out[message];
+				MD5Digest.writeInt(mState[lane * 4], md, 0);
+				MD5Digest.writeInt(mState[lane * 4 + 1], md, 4);
+				MD5Digest.writeInt(mState[lane * 4 + 2], md, 8);
+				MD5Digest.writeInt(mState[lane * 4 + 3], md, 12);
+				if (next < inputs.length) {
+					start(lane, next++, inputs);
+				} else {
+					mMessages[lane] = -1;
+					active--;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 在指定路开始计算新消息
+	 */
+	private void start(int lane, int message, byte[][] inputs) {
+		mMessages[lane] = message;
+		mBlocks[lane] = 0;
+		mBlockCounts[lane] = (inputs[message].length + 8) / MD5Digest.BLOCK_LENGTH + 1;
+		mState[lane * 4] = 0x67452301;
+		mState[lane * 4 + 1] = 0xefcdab89;
+		mState[lane * 4 + 2] = 0x98badcfe;
+		mState[lane * 4 + 3] = 0x10325476;
+	}
+	
+	/**
+	 * 载入消息的指定分组(必要时按RFC 1321填充)
+	 */
+	private void loadBlock(int lane, byte[] input, int blockIndex, boolean lastBlock) {
+		int start = blockIndex * MD5Digest.BLOCK_LENGTH;
+		byte[] block = input;
+		int offset = start;
+		if (start + MD5Digest.BLOCK_LENGTH > input.length) {
+			block = mBlock;
+			offset = 0;
+			int length = Math.max(0, input.length - start);
+			if (length > 0) {
+				System.arraycopy(input, start, block, 0, length);
+			}
+			for (int index = length; index < MD5Digest.BLOCK_LENGTH; index++) {
+				block[index] = 0;
+			}
+			if (start <= input.length) {
+				block[length] = (byte) 0x80;
+			}
+			if (lastBlock) {
+				long bitCount = (long) input.length << 3;
+				for (int index = 0; index < 8; index++) {
+					block[56 + index] = (byte) (bitCount >>> (index * 8));
+				}
+			}
+		}
+		int[] words = mWords;
+		int base = lane * 16;
+		for (int index = 0; index < 16; index++) {
+			words[base + index] = MD5Digest.readInt(block, offset + index * 4);
+		}
+	}
+	
+	/**
+	 * 交错处理各路的当前分组
+	 * 四轮分别拆分为独立方法, 避免方法体超出JIT编译的大小限制
+	 *
+	 * @param state 各路摘要状态
+	 * @param w     各路当前分组的字
+	 */
+	private void compress(int[] state, int[] w) {
+		int[] saved = mSavedState;
+		System.arraycopy(state, 0, saved, 0, saved.length);
+		round1(state, w);
+		round2(state, w);
+		round3(state, w);
+		round4(state, w);
+		for (int index = 0; index < saved.length; index++) {
+			state[index] += saved[index];
+		}
+	}
+	
+	/**
+	 * 第1轮
+	 */
+	private static void round1(int[] state, int[] w) {
+		int a0 = state[0], b0 = state[1], c0 = state[2], d0 = state[3];
+		int a1 = state[4], b1 = state[5], c1 = state[6], d1 = state[7];
+		int a2 = state[8], b2 = state[9], c2 = state[10], d2 = state[11];
+		int a3 = state[12], b3 = state[13], c3 = state[14], d3 = state[15];
+		
+		a0 = b0 + Integer.rotateLeft(a0 + (b0 & c0 | ~b0 & d0) + w[0] + 0xd76aa478, 7);
+		a1 = b1 + Integer.rotateLeft(a1 + (b1 & c1 | ~b1 & d1) + w[16] + 0xd76aa478, 7);
+		a2 = b2 + Integer.rotateLeft(a2 + (b2 & c2 | ~b2 & d2) + w[32] + 0xd76aa478, 7);
+		a3 = b3 + Integer.rotateLeft(a3 + (b3 & c3 | ~b3 & d3) + w[48] + 0xd76aa478, 7);
+		d0 = a0 + Integer.rotateLeft(d0 + (a0 & b0 | ~a0 & c0) + w[1] + 0xe8c7b756, 12);
+		d1 = a1 + Integer.rotateLeft(d1 + (a1 & b1 | ~a1 & c1) + w[17] + 0xe8c7b756, 12);
+		d2 = a2 + Integer.rotateLeft(d2 + (a2 & b2 | ~a2 & c2) + w[33] + 0xe8c7b756, 12);
+		d3 = a3 + Integer.rotateLeft(d3 + (a3 & b3 | ~a3 & c3) + w[49] + 0xe8c7b756, 12);
+		c0 = d0 + Integer.rotateLeft(c0 + (d0 & a0 | ~d0 & b0) + w[2] + 0x242070db, 17);
+		c1 = d1 + Integer.rotateLeft(c1 + (d1 & a1 | ~d1 & b1) + w[18] + 0x242070db, 17);
+		c2 = d2 + Integer.rotateLeft(c2 + (d2 & a2 | ~d2 & b2) + w[34] + 0x242070db, 17);
+		c3 = d3 + Integer.rotateLeft(c3 + (d3 & a3 | ~d3 & b3) + w[50] + 0x242070db, 17);
+		b0 = c0 + Integer.rotateLeft(b0 + (c0 & d0 | ~c0 & a0) + w[3] + 0xc1bdceee, 22);
+		b1 = c1 + Integer.rotateLeft(b1 + (c1 & d1 | ~c1 & a1) + w[19] + 0xc1bdceee, 22);
+		b2 = c2 + Integer.rotateLeft(b2 + (c2 & d2 | ~c2 & a2) + w[35] + 0xc1bdceee, 22);
+		b3 = c3 + Integer.rotateLeft(b3 + (c3 & d3 | ~c3 & a3) + w[51] + 0xc1bdceee, 22);
+		a0 = b0 + Integer.rotateLeft(a0 + (b0 & c0 | ~b0 & d0) + w[4] + 0xf57c0faf, 7);
+		a1 = b1 + Integer.rotateLeft(a1 + (b1 & c1 | ~b1 & d1) + w[20] + 0xf57c0faf, 7);
+		a2 = b2 + Integer.rotateLeft(a2 + (b2 & c2 | ~b2 & d2) + w[36] + 0xf57c0faf, 7);
+		a3 = b3 + Integer.rotateLeft(a3 + (b3 & c3 | ~b3 & d3) + w[52] + 0xf57c0faf, 7);
+		d0 = a0 + Integer.rotateLeft(d0 + (a0 & b0 | ~a0 & c0) + w[5] + 0x4787c62a, 12);
+		d1 = a1 + Integer.rotateLeft(d1 + (a1 & b1 | ~a1 & c1) + w[21] + 0x4787c62a, 12);
+		d2 = a2 + Integer.rotateLeft(d2 + (a2 & b2 | ~a2 & c2) + w[37] + 0x4787c62a, 12);
+		d3 = a3 + Integer.rotateLeft(d3 + (a3 & b3 | ~a3 & c3) + w[53] + 0x4787c62a, 12);
+		c0 = d0 + Integer.rotateLeft(c0 + (d0 & a0 | ~d0 & b0) + w[6] + 0xa8304613, 17);
+		c1 = d1 + Integer.rotateLeft(c1 + (d1 & a1 | ~d1 & b1) + w[22] + 0xa8304613, 17);
+		c2 = d2 + Integer.rotateLeft(c2 + (d2 & a2 | ~d2 & b2) + w[38] + 0xa8304613, 17);
+		c3 = d3 + Integer.rotateLeft(c3 + (d3 & a3 | ~d3 & b3) + w[54] + 0xa8304613, 17);
+		b0 = c0 + Integer.rotateLeft(b0 + (c0 & d0 | ~c0 & a0) + w[7] + 0xfd469501, 22);
+		b1 = c1 + Integer.rotateLeft(b1 + (c1 & d1 | ~c1 & a1) + w[23] + 0xfd469501, 22);
+		b2 = c2 + Integer.rotateLeft(b2 + (c2 & d2 | ~c2 & a2) + w[39] + 0xfd469501, 22);
+		b3 = c3 + Integer.rotateLeft(b3 + (c3 & d3 | ~c3 & a3) + w[55] + 0xfd469501, 22);
+		a0 = b0 + Integer.rotateLeft(a0 + (b0 & c0 | ~b0 & d0) + w[8] + 0x698098d8, 7);
+		a1 = b1 + Integer.rotateLeft(a1 + (b1 & c1 | ~b1 & d1) + w[24] + 0x698098d8, 7);
+		a2 = b2 + Integer.rotateLeft(a2 + (b2 & c2 | ~b2 & d2) + w[40] + 0x698098d8, 7);
+		a3 = b3 + Integer.rotateLeft(a3 + (b3 & c3 | ~b3 & d3) + w[56] + 0x698098d8, 7);
+		d0 = a0 + Integer.rotateLeft(d0 + (a0 & b0 | ~a0 & c0) + w[9] + 0x8b44f7af, 12);
+		d1 = a1 + Integer.rotateLeft(d1 + (a1 & b1 | ~a1 & c1) + w[25] + 0x8b44f7af, 12);
+		d2 = a2 + Integer.rotateLeft(d2 + (a2 & b2 | ~a2 & c2) + w[41] + 0x8b44f7af, 12);
+		d3 = a3 + Integer.rotateLeft(d3 + (a3 & b3 | ~a3 & c3) + w[57] + 0x8b44f7af, 12);
+		c0 = d0 + Integer.rotateLeft(c0 + (d0 & a0 | ~d0 & b0) + w[10] + 0xffff5bb1, 17);
+		c1 = d1 + Integer.rotateLeft(c1 + (d1 & a1 | ~d1 & b1) + w[26] + 0xffff5bb1, 17);
+		c2 = d2 + Integer.rotateLeft(c2 + (d2 & a2 | ~d2 & b2) + w[42] + 0xffff5bb1, 17);
+		c3 = d3 + Integer.rotateLeft(c3 + (d3 & a3 | ~d3 & b3) + w[58] + 0xffff5bb1, 17);
+		b0 = c0 + Integer.rotateLeft(b0 + (c0 & d0 | ~c0 & a0) + w[11] + 0x895cd7be, 22);
+		b1 = c1 + Integer.rotateLeft(b1 + (c1 & d1 | ~c1 & a1) + w[27] + 0x895cd7be, 22);
+		b2 = c2 + Integer.rotateLeft(b2 + (c2 & d2 | ~c2 & a2) + w[43] + 0x895cd7be, 22);
+		b3 = c3 + Integer.rotateLeft(b3 + (c3 & d3 | ~c3 & a3) + w[59] + 0x895cd7be, 22);
+		a0 = b0 + Integer.rotateLeft(a0 + (b0 & c0 | ~b0 & d0) + w[12] + 0x6b901122, 7);
+		a1 = b1 + Integer.rotateLeft(a1 + (b1 & c1 | ~b1 & d1) + w[28] + 0x6b901122, 7);
+		a2 = b2 + Integer.rotateLeft(a2 + (b2 & c2 | ~b2 & d2) + w[44] + 0x6b901122, 7);
+		a3 = b3 + Integer.rotateLeft(a3 + (b3 & c3 | ~b3 & d3) + w[60] + 0x6b901122, 7);
+		d0 = a0 + Integer.rotateLeft(d0 + (a0 & b0 | ~a0 & c0) + w[13] + 0xfd987193, 12);
+		d1 = a1 + Integer.rotateLeft(d1 + (a1 & b1 | ~a1 & c1) + w[29] + 0xfd987193, 12);
+		d2 = a2 + Integer.rotateLeft(d2 + (a2 & b2 | ~a2 & c2) + w[45] + 0xfd987193, 12);
+		d3 = a3 + Integer.rotateLeft(d3 + (a3 & b3 | ~a3 & c3) + w[61] + 0xfd987193, 12);
+		c0 = d0 + Integer.rotateLeft(c0 + (d0 & a0 | ~d0 & b0) + w[14] + 0xa679438e, 17);
+		c1 = d1 + Integer.rotateLeft(c1 + (d1 & a1 | ~d1 & b1) + w[30] + 0xa679438e, 17);
+		c2 = d2 + Integer.rotateLeft(c2 + (d2 & a2 | ~d2 & b2) + w[46] + 0xa679438e, 17);
+		c3 = d3 + Integer.rotateLeft(c3 + (d3 & a3 | ~d3 & b3) + w[62] + 0xa679438e, 17);
+		b0 = c0 + Integer.rotateLeft(b0 + (c0 & d0 | ~c0 & a0) + w[15] + 0x49b40821, 22);
+		b1 = c1 + Integer.rotateLeft(b1 + (c1 & d1 | ~c1 & a1) + w[31] + 0x49b40821, 22);
+		b2 = c2 + Integer.rotateLeft(b2 + (c2 & d2 | ~c2 & a2) + w[47] + 0x49b40821, 22);
+		b3 = c3 + Integer.rotateLeft(b3 + (c3 & d3 | ~c3 & a3) + w[63] + 0x49b40821, 22);
+		
+		state[0] = a0;
+		state[1] = b0;
+		state[2] = c0;
+		state[3] = d0;
+		state[4] = a1;
+		state[5] = b1;
+		state[6] = c1;
+		state[7] = d1;
+		state[8] = a2;
+		state[9] = b2;
+		state[10] = c2;
+		state[11] = d2;
+		state[12] = a3;
+		state[13] = b3;
+		state[14] = c3;
+		state[15] = d3;
+	}
+	
+	/**
+	 * 第2轮
+	 */
+	private static void round2(int[] state, int[] w) {
+		int a0 = state[0], b0 = state[1], c0 = state[2], d0 = state[3];
+		int a1 = state[4], b1 = state[5], c1 = state[6], d1 = state[7];
+		int a2 = state[8], b2 = state[9], c2 = state[10], d2 = state[11];
+		int a3 = state[12], b3 = state[13], c3 = state[14], d3 = state[15];
+		
+		a0 = b0 + Integer.rotateLeft(a0 + (d0 & b0 | ~d0 & c0) + w[1] + 0xf61e2562, 5);
+		a1 = b1 + Integer.rotateLeft(a1 + (d1 & b1 | ~d1 & c1) + w[17] + 0xf61e2562, 5);
+		a2 = b2 + Integer.rotateLeft(a2 + (d2 & b2 | ~d2 & c2) + w[33] + 0xf61e2562, 5);
+		a3 = b3 + Integer.rotateLeft(a3 + (d3 & b3 | ~d3 & c3) + w[49] + 0xf61e2562, 5);
+		d0 = a0 + Integer.rotateLeft(d0 + (c0 & a0 | ~c0 & b0) + w[6] + 0xc040b340, 9);
+		d1 = a1 + Integer.rotateLeft(d1 + (c1 & a1 | ~c1 & b1) + w[22] + 0xc040b340, 9);
+		d2 = a2 + Integer.rotateLeft(d2 + (c2 & a2 | ~c2 & b2) + w[38] + 0xc040b340, 9);
+		d3 = a3 + Integer.rotateLeft(d3 + (c3 & a3 | ~c3 & b3) + w[54] + 0xc040b340, 9);
+		c0 = d0 + Integer.rotateLeft(c0 + (b0 & d0 | ~b0 & a0) + w[11] + 0x265e5a51, 14);
+		c1 = d1 + Integer.rotateLeft(c1 + (b1 & d1 | ~b1 & a1) + w[27] + 0x265e5a51, 14);
+		c2 = d2 + Integer.rotateLeft(c2 + (b2 & d2 | ~b2 & a2) + w[43] + 0x265e5a51, 14);
+		c3 = d3 + Integer.rotateLeft(c3 + (b3 & d3 | ~b3 & a3) + w[59] + 0x265e5a51, 14);
+		b0 = c0 + Integer.rotateLeft(b0 + (a0 & c0 | ~a0 & d0) + w[0] + 0xe9b6c7aa, 20);
+		b1 = c1 + Integer.rotateLeft(b1 + (a1 & c1 | ~a1 & d1) + w[16] + 0xe9b6c7aa, 20);
+		b2 = c2 + Integer.rotateLeft(b2 + (a2 & c2 | ~a2 & d2) + w[32] + 0xe9b6c7aa, 20);
+		b3 = c3 + Integer.rotateLeft(b3 + (a3 & c3 | ~a3 & d3) + w[48] + 0xe9b6c7aa, 20);
+		a0 = b0 + Integer.rotateLeft(a0 + (d0 & b0 | ~d0 & c0) + w[5] + 0xd62f105d, 5);
+		a1 = b1 + Integer.rotateLeft(a1 + (d1 & b1 | ~d1 & c1) + w[21] + 0xd62f105d, 5);
+		a2 = b2 + Integer.rotateLeft(a2 + (d2 & b2 | ~d2 & c2) + w[37] + 0xd62f105d, 5);
+		a3 = b3 + Integer.rotateLeft(a3 + (d3 & b3 | ~d3 & c3) + w[53] + 0xd62f105d, 5);
+		d0 = a0 + Integer.rotateLeft(d0 + (c0 & a0 | ~c0 & b0) + w[10] + 0x02441453, 9);
+		d1 = a1 + Integer.rotateLeft(d1 + (c1 & a1 | ~c1 & b1) + w[26] + 0x02441453, 9);
+		d2 = a2 + Integer.rotateLeft(d2 + (c2 & a2 | ~c2 & b2) + w[42] + 0x02441453, 9);
+		d3 = a3 + Integer.rotateLeft(d3 + (c3 & a3 | ~c3 & b3) + w[58] + 0x02441453, 9);
+		c0 = d0 + Integer.rotateLeft(c0 + (b0 & d0 | ~b0 & a0) + w[15] + 0xd8a1e681, 14);
+		c1 = d1 + Integer.rotateLeft(c1 + (b1 & d1 | ~b1 & a1) + w[31] + 0xd8a1e681, 14);
+		c2 = d2 + Integer.rotateLeft(c2 + (b2 & d2 | ~b2 & a2) + w[47] + 0xd8a1e681, 14);
+		c3 = d3 + Integer.rotateLeft(c3 + (b3 & d3 | ~b3 & a3) + w[63] + 0xd8a1e681, 14);
+		b0 = c0 + Integer.rotateLeft(b0 + (a0 & c0 | ~a0 & d0) + w[4] + 0xe7d3fbc8, 20);
+		b1 = c1 + Integer.rotateLeft(b1 + (a1 & c1 | ~a1 & d1) + w[20] + 0xe7d3fbc8, 20);
+		b2 = c2 + Integer.rotateLeft(b2 + (a2 & c2 | ~a2 & d2) + w[36] + 0xe7d3fbc8, 20);
+		b3 = c3 + Integer.rotateLeft(b3 + (a3 & c3 | ~a3 & d3) + w[52] + 0xe7d3fbc8, 20);
+		a0 = b0 + Integer.rotateLeft(a0 + (d0 & b0 | ~d0 & c0) + w[9] + 0x21e1cde6, 5);
+		a1 = b1 + Integer.rotateLeft(a1 + (d1 & b1 | ~d1 & c1) + w[25] + 0x21e1cde6, 5);
+		a2 = b2 + Integer.rotateLeft(a2 + (d2 & b2 | ~d2 & c2) + w[41] + 0x21e1cde6, 5);
+		a3 = b3 + Integer.rotateLeft(a3 + (d3 & b3 | ~d3 & c3) + w[57] + 0x21e1cde6, 5);
+		d0 = a0 + Integer.rotateLeft(d0 + (c0 & a0 | ~c0 & b0) + w[14] + 0xc33707d6, 9);
+		d1 = a1 + Integer.rotateLeft(d1 + (c1 & a1 | ~c1 & b1) + w[30] + 0xc33707d6, 9);
+		d2 = a2 + Integer.rotateLeft(d2 + (c2 & a2 | ~c2 & b2) + w[46] + 0xc33707d6, 9);
+		d3 = a3 + Integer.rotateLeft(d3 + (c3 & a3 | ~c3 & b3) + w[62] + 0xc33707d6, 9);
+		c0 = d0 + Integer.rotateLeft(c0 + (b0 & d0 | ~b0 & a0) + w[3] + 0xf4d50d87, 14);
+		c1 = d1 + Integer.rotateLeft(c1 + (b1 & d1 | ~b1 & a1) + w[19] + 0xf4d50d87, 14);
+		c2 = d2 + Integer.rotateLeft(c2 + (b2 & d2 | ~b2 & a2) + w[35] + 0xf4d50d87, 14);
+		c3 = d3 + Integer.rotateLeft(c3 + (b3 & d3 | ~b3 & a3) + w[51] + 0xf4d50d87, 14);
+		b0 = c0 + Integer.rotateLeft(b0 + (a0 & c0 | ~a0 & d0) + w[8] + 0x455a14ed, 20);
+		b1 = c1 + Integer.rotateLeft(b1 + (a1 & c1 | ~a1 & d1) + w[24] + 0x455a14ed, 20);
+		b2 = c2 + Integer.rotateLeft(b2 + (a2 & c2 | ~a2 & d2) + w[40] + 0x455a14ed, 20);
+		b3 = c3 + Integer.rotateLeft(b3 + (a3 & c3 | ~a3 & d3) + w[56] + 0x455a14ed, 20);
+		a0 = b0 + Integer.rotateLeft(a0 + (d0 & b0 | ~d0 & c0) + w[13] + 0xa9e3e905, 5);
+		a1 = b1 + Integer.rotateLeft(a1 + (d1 & b1 | ~d1 & c1) + w[29] + 0xa9e3e905, 5);
+		a2 = b2 + Integer.rotateLeft(a2 + (d2 & b2 | ~d2 & c2) + w[45] + 0xa9e3e905, 5);
+		a3 = b3 + Integer.rotateLeft(a3 + (d3 & b3 | ~d3 & c3) + w[61] + 0xa9e3e905, 5);
+		d0 = a0 + Integer.rotateLeft(d0 + (c0 & a0 | ~c0 & b0) + w[2] + 0xfcefa3f8, 9);
+		d1 = a1 + Integer.rotateLeft(d1 + (c1 & a1 | ~c1 & b1) + w[18] + 0xfcefa3f8, 9);
+		d2 = a2 + Integer.rotateLeft(d2 + (c2 & a2 | ~c2 & b2) + w[34] + 0xfcefa3f8, 9);
+		d3 = a3 + Integer.rotateLeft(d3 + (c3 & a3 | ~c3 & b3) + w[50] + 0xfcefa3f8, 9);
+		c0 = d0 + Integer.rotateLeft(c0 + (b0 & d0 | ~b0 & a0) + w[7] + 0x676f02d9, 14);
+		c1 = d1 + Integer.rotateLeft(c1 + (b1 & d1 | ~b1 & a1) + w[23] + 0x676f02d9, 14);
+		c2 = d2 + Integer.rotateLeft(c2 + (b2 & d2 | ~b2 & a2) + w[39] + 0x676f02d9, 14);
+		c3 = d3 + Integer.rotateLeft(c3 + (b3 & d3 | ~b3 & a3) + w[55] + 0x676f02d9, 14);
+		b0 = c0 + Integer.rotateLeft(b0 + (a0 & c0 | ~a0 & d0) + w[12] + 0x8d2a4c8a, 20);
+		b1 = c1 + Integer.rotateLeft(b1 + (a1 & c1 | ~a1 & d1) + w[28] + 0x8d2a4c8a, 20);
+		b2 = c2 + Integer.rotateLeft(b2 + (a2 & c2 | ~a2 & d2) + w[44] + 0x8d2a4c8a, 20);
+		b3 = c3 + Integer.rotateLeft(b3 + (a3 & c3 | ~a3 & d3) + w[60] + 0x8d2a4c8a, 20);
+		
+		state[0] = a0;
+		state[1] = b0;
+		state[2] = c0;
+		state[3] = d0;
+		state[4] = a1;
+		state[5] = b1;
+		state[6] = c1;
+		state[7] = d1;
+		state[8] = a2;
+		state[9] = b2;
+		state[10] = c2;
+		state[11] = d2;
+		state[12] = a3;
+		state[13] = b3;
+		state[14] = c3;
+		state[15] = d3;
+	}
+	
+	/**
+	 * 第3轮
+	 */
+	private static void round3(int[] state, int[] w) {
+		int a0 = state[0], b0 = state[1], c0 = state[2], d0 = state[3];
+		int a1 = state[4], b1 = state[5], c1 = state[6], d1 = state[7];
+		int a2 = state[8], b2 = state[9], c2 = state[10], d2 = state[11];
+		int a3 = state[12], b3 = state[13], c3 = state[14], d3 = state[15];
+		
+		a0 = b0 + Integer.rotateLeft(a0 + (b0 ^ c0 ^ d0) + w[5] + 0xfffa3942, 4);
+		a1 = b1 + Integer.rotateLeft(a1 + (b1 ^ c1 ^ d1) + w[21] + 0xfffa3942, 4);
+		a2 = b2 + Integer.rotateLeft(a2 + (b2 ^ c2 ^ d2) + w[37] + 0xfffa3942, 4);
+		a3 = b3 + Integer.rotateLeft(a3 + (b3 ^ c3 ^ d3) + w[53] + 0xfffa3942, 4);
+		d0 = a0 + Integer.rotateLeft(d0 + (a0 ^ b0 ^ c0) + w[8] + 0x8771f681, 11);
+		d1 = a1 + Integer.rotateLeft(d1 + (a1 ^ b1 ^ c1) + w[24] + 0x8771f681, 11);
+		d2 = a2 + Integer.rotateLeft(d2 + (a2 ^ b2 ^ c2) + w[40] + 0x8771f681, 11);
+		d3 = a3 + Integer.rotateLeft(d3 + (a3 ^ b3 ^ c3) + w[56] + 0x8771f681, 11);
+		c0 = d0 + Integer.rotateLeft(c0 + (d0 ^ a0 ^ b0) + w[11] + 0x6d9d6122, 16);
+		c1 = d1 + Integer.rotateLeft(c1 + (d1 ^ a1 ^ b1) + w[27] + 0x6d9d6122, 16);
+		c2 = d2 + Integer.rotateLeft(c2 + (d2 ^ a2 ^ b2) + w[43] + 0x6d9d6122, 16);
+		c3 = d3 + Integer.rotateLeft(c3 + (d3 ^ a3 ^ b3) + w[59] + 0x6d9d6122, 16);
+		b0 = c0 + Integer.rotateLeft(b0 + (c0 ^ d0 ^ a0) + w[14] + 0xfde5380c, 23);
+		b1 = c1 + Integer.rotateLeft(b1 + (c1 ^ d1 ^ a1) + w[30] + 0xfde5380c, 23);
+		b2 = c2 + Integer.rotateLeft(b2 + (c2 ^ d2 ^ a2) + w[46] + 0xfde5380c, 23);
+		b3 = c3 + Integer.rotateLeft(b3 + (c3 ^ d3 ^ a3) + w[62] + 0xfde5380c, 23);
+		a0 = b0 + Integer.rotateLeft(a0 + (b0 ^ c0 ^ d0) + w[1] + 0xa4beea44, 4);
+		a1 = b1 + Integer.rotateLeft(a1 + (b1 ^ c1 ^ d1) + w[17] + 0xa4beea44, 4);
+		a2 = b2 + Integer.rotateLeft(a2 + (b2 ^ c2 ^ d2) + w[33] + 0xa4beea44, 4);
+		a3 = b3 + Integer.rotateLeft(a3 + (b3 ^ c3 ^ d3) + w[49] + 0xa4beea44, 4);
+		d0 = a0 + Integer.rotateLeft(d0 + (a0 ^ b0 ^ c0) + w[4] + 0x4bdecfa9, 11);
+		d1 = a1 + Integer.rotateLeft(d1 + (a1 ^ b1 ^ c1) + w[20] + 0x4bdecfa9, 11);
+		d2 = a2 + Integer.rotateLeft(d2 + (a2 ^ b2 ^ c2) + w[36] + 0x4bdecfa9, 11);
+		d3 = a3 + Integer.rotateLeft(d3 + (a3 ^ b3 ^ c3) + w[52] + 0x4bdecfa9, 11);
+		c0 = d0 + Integer.rotateLeft(c0 + (d0 ^ a0 ^ b0) + w[7] + 0xf6bb4b60, 16);
+		c1 = d1 + Integer.rotateLeft(c1 + (d1 ^ a1 ^ b1) + w[23] + 0xf6bb4b60, 16);
+		c2 = d2 + Integer.rotateLeft(c2 + (d2 ^ a2 ^ b2) + w[39] + 0xf6bb4b60, 16);
+		c3 = d3 + Integer.rotateLeft(c3 + (d3 ^ a3 ^ b3) + w[55] + 0xf6bb4b60, 16);
+		b0 = c0 + Integer.rotateLeft(b0 + (c0 ^ d0 ^ a0) + w[10] + 0xbebfbc70, 23);
+		b1 = c1 + Integer.rotateLeft(b1 + (c1 ^ d1 ^ a1) + w[26] + 0xbebfbc70, 23);
+		b2 = c2 + Integer.rotateLeft(b2 + (c2 ^ d2 ^ a2) + w[42] + 0xbebfbc70, 23);
+		b3 = c3 + Integer.rotateLeft(b3 + (c3 ^ d3 ^ a3) + w[58] + 0xbebfbc70, 23);
+		a0 = b0 + Integer.rotateLeft(a0 + (b0 ^ c0 ^ d0) + w[13] + 0x289b7ec6, 4);
+		a1 = b1 + Integer.rotateLeft(a1 + (b1 ^ c1 ^ d1) + w[29] + 0x289b7ec6, 4);
+		a2 = b2 + Integer.rotateLeft(a2 + (b2 ^ c2 ^ d2) + w[45] + 0x289b7ec6, 4);
+		a3 = b3 + Integer.rotateLeft(a3 + (b3 ^ c3 ^ d3) + w[61] + 0x289b7ec6, 4);
+		d0 = a0 + Integer.rotateLeft(d0 + (a0 ^ b0 ^ c0) + w[0] + 0xeaa127fa, 11);
+		d1 = a1 + Integer.rotateLeft(d1 + (a1 ^ b1 ^ c1) + w[16] + 0xeaa127fa, 11);
+		d2 = a2 + Integer.rotateLeft(d2 + (a2 ^ b2 ^ c2) + w[32] + 0xeaa127fa, 11);
+		d3 = a3 + Integer.rotateLeft(d3 + (a3 ^ b3 ^ c3) + w[48] + 0xeaa127fa, 11);
+		c0 = d0 + Integer.rotateLeft(c0 + (d0 ^ a0 ^ b0) + w[3] + 0xd4ef3085, 16);
+		c1 = d1 + Integer.rotateLeft(c1 + (d1 ^ a1 ^ b1) + w[19] + 0xd4ef3085, 16);
+		c2 = d2 + Integer.rotateLeft(c2 + (d2 ^ a2 ^ b2) + w[35] + 0xd4ef3085, 16);
+		c3 = d3 + Integer.rotateLeft(c3 + (d3 ^ a3 ^ b3) + w[51] + 0xd4ef3085, 16);
+		b0 = c0 + Integer.rotateLeft(b0 + (c0 ^ d0 ^ a0) + w[6] + 0x04881d05, 23);
+		b1 = c1 + Integer.rotateLeft(b1 + (c1 ^ d1 ^ a1) + w[22] + 0x04881d05, 23);
+		b2 = c2 + Integer.rotateLeft(b2 + (c2 ^ d2 ^ a2) + w[38] + 0x04881d05, 23);
+		b3 = c3 + Integer.rotateLeft(b3 + (c3 ^ d3 ^ a3) + w[54] + 0x04881d05, 23);
+		a0 = b0 + Integer.rotateLeft(a0 + (b0 ^ c0 ^ d0) + w[9] + 0xd9d4d039, 4);
+		a1 = b1 + Integer.rotateLeft(a1 + (b1 ^ c1 ^ d1) + w[25] + 0xd9d4d039, 4);
+		a2 = b2 + Integer.rotateLeft(a2 + (b2 ^ c2 ^ d2) + w[41] + 0xd9d4d039, 4);
+		a3 = b3 + Integer.rotateLeft(a3 + (b3 ^ c3 ^ d3) + w[57] + 0xd9d4d039, 4);
+		d0 = a0 + Integer.rotateLeft(d0 + (a0 ^ b0 ^ c0) + w[12] + 0xe6db99e5, 11);
+		d1 = a1 + Integer.rotateLeft(d1 + (a1 ^ b1 ^ c1) + w[28] + 0xe6db99e5, 11);
+		d2 = a2 + Integer.rotateLeft(d2 + (a2 ^ b2 ^ c2) + w[44] + 0xe6db99e5, 11);
+		d3 = a3 + Integer.rotateLeft(d3 + (a3 ^ b3 ^ c3) + w[60] + 0xe6db99e5, 11);
+		c0 = d0 + Integer.rotateLeft(c0 + (d0 ^ a0 ^ b0) + w[15] + 0x1fa27cf8, 16);
+		c1 = d1 + Integer.rotateLeft(c1 + (d1 ^ a1 ^ b1) + w[31] + 0x1fa27cf8, 16);
+		c2 = d2 + Integer.rotateLeft(c2 + (d2 ^ a2 ^ b2) + w[47] + 0x1fa27cf8, 16);
+		c3 = d3 + Integer.rotateLeft(c3 + (d3 ^ a3 ^ b3) + w[63] + 0x1fa27cf8, 16);
+		b0 = c0 + Integer.rotateLeft(b0 + (c0 ^ d0 ^ a0) + w[2] + 0xc4ac5665, 23);
+		b1 = c1 + Integer.rotateLeft(b1 + (c1 ^ d1 ^ a1) + w[18] + 0xc4ac5665, 23);
+		b2 = c2 + Integer.rotateLeft(b2 + (c2 ^ d2 ^ a2) + w[34] + 0xc4ac5665, 23);
+		b3 = c3 + Integer.rotateLeft(b3 + (c3 ^ d3 ^ a3) + w[50] + 0xc4ac5665, 23);
+		
+		state[0] = a0;
+		state[1] = b0;
+		state[2] = c0;
+		state[3] = d0;
+		state[4] = a1;
+		state[5] = b1;
+		state[6] = c1;
+		state[7] = d1;
+		state[8] = a2;
+		state[9] = b2;
+		state[10] = c2;
+		state[11] = d2;
+		state[12] = a3;
+		state[13] = b3;
+		state[14] = c3;
+		state[15] = d3;
+	}
+	
+	/**
+	 * 第4轮
+	 */
+	private static void round4(int[] state, int[] w) {
+		int a0 = state[0], b0 = state[1], c0 = state[2], d0 = state[3];
+		int a1 = state[4], b1 = state[5], c1 = state[6], d1 = state[7];
+		int a2 = state[8], b2 = state[9], c2 = state[10], d2 = state[11];
+		int a3 = state[12], b3 = state[13], c3 = state[14], d3 = state[15];
+		
+		a0 = b0 + Integer.rotateLeft(a0 + (c0 ^ (b0 | ~d0)) + w[0] + 0xf4292244, 6);
+		a1 = b1 + Integer.rotateLeft(a1 + (c1 ^ (b1 | ~d1)) + w[16] + 0xf4292244, 6);
+		a2 = b2 + Integer.rotateLeft(a2 + (c2 ^ (b2 | ~d2)) + w[32] + 0xf4292244, 6);
+		a3 = b3 + Integer.rotateLeft(a3 + (c3 ^ (b3 | ~d3)) + w[48] + 0xf4292244, 6);
+		d0 = a0 + Integer.rotateLeft(d0 + (b0 ^ (a0 | ~c0)) + w[7] + 0x432aff97, 10);
+		d1 = a1 + Integer.rotateLeft(d1 + (b1 ^ (a1 | ~c1)) + w[23] + 0x432aff97, 10);
+		d2 = a2 + Integer.rotateLeft(d2 + (b2 ^ (a2 | ~c2)) + w[39] + 0x432aff97, 10);
+		d3 = a3 + Integer.rotateLeft(d3 + (b3 ^ (a3 | ~c3)) + w[55] + 0x432aff97, 10);
+		c0 = d0 + Integer.rotateLeft(c0 + (a0 ^ (d0 | ~b0)) + w[14] + 0xab9423a7, 15);
+		c1 = d1 + Integer.rotateLeft(c1 + (a1 ^ (d1 | ~b1)) + w[30] + 0xab9423a7, 15);
+		c2 = d2 + Integer.rotateLeft(c2 + (a2 ^ (d2 | ~b2)) + w[46] + 0xab9423a7, 15);
+		c3 = d3 + Integer.rotateLeft(c3 + (a3 ^ (d3 | ~b3)) + w[62] + 0xab9423a7, 15);
+		b0 = c0 + Integer.rotateLeft(b0 + (d0 ^ (c0 | ~a0)) + w[5] + 0xfc93a039, 21);
+		b1 = c1 + Integer.rotateLeft(b1 + (d1 ^ (c1 | ~a1)) + w[21] + 0xfc93a039, 21);
+		b2 = c2 + Integer.rotateLeft(b2 + (d2 ^ (c2 | ~a2)) + w[37] + 0xfc93a039, 21);
+		b3 = c3 + Integer.rotateLeft(b3 + (d3 ^ (c3 | ~a3)) + w[53] + 0xfc93a039, 21);
+		a0 = b0 + Integer.rotateLeft(a0 + (c0 ^ (b0 | ~d0)) + w[12] + 0x655b59c3, 6);
+		a1 = b1 + Integer.rotateLeft(a1 + (c1 ^ (b1 | ~d1)) + w[28] + 0x655b59c3, 6);
+		a2 = b2 + Integer.rotateLeft(a2 + (c2 ^ (b2 | ~d2)) + w[44] + 0x655b59c3, 6);
+		a3 = b3 + Integer.rotateLeft(a3 + (c3 ^ (b3 | ~d3)) + w[60] + 0x655b59c3, 6);
+		d0 = a0 + Integer.rotateLeft(d0 + (b0 ^ (a0 | ~c0)) + w[3] + 0x8f0ccc92, 10);
+		d1 = a1 + Integer.rotateLeft(d1 + (b1 ^ (a1 | ~c1)) + w[19] + 0x8f0ccc92, 10);
+		d2 = a2 + Integer.rotateLeft(d2 + (b2 ^ (a2 | ~c2)) + w[35] + 0x8f0ccc92, 10);
+		d3 = a3 + Integer.rotateLeft(d3 + (b3 ^ (a3 | ~c3)) + w[51] + 0x8f0ccc92, 10);
+		c0 = d0 + Integer.rotateLeft(c0 + (a0 ^ (d0 | ~b0)) + w[10] + 0xffeff47d, 15);
+		c1 = d1 + Integer.rotateLeft(c1 + (a1 ^ (d1 | ~b1)) + w[26] + 0xffeff47d, 15);
+		c2 = d2 + Integer.rotateLeft(c2 + (a2 ^ (d2 | ~b2)) + w[42] + 0xffeff47d, 15);
+		c3 = d3 + Integer.rotateLeft(c3 + (a3 ^ (d3 | ~b3)) + w[58] + 0xffeff47d, 15);
+		b0 = c0 + Integer.rotateLeft(b0 + (d0 ^ (c0 | ~a0)) + w[1] + 0x85845dd1, 21);
+		b1 = c1 + Integer.rotateLeft(b1 + (d1 ^ (c1 | ~a1)) + w[17] + 0x85845dd1, 21);
+		b2 = c2 + Integer.rotateLeft(b2 + (d2 ^ (c2 | ~a2)) + w[33] + 0x85845dd1, 21);
+		b3 = c3 + Integer.rotateLeft(b3 + (d3 ^ (c3 | ~a3)) + w[49] + 0x85845dd1, 21);
+		a0 = b0 + Integer.rotateLeft(a0 + (c0 ^ (b0 | ~d0)) + w[8] + 0x6fa87e4f, 6);
+		a1 = b1 + Integer.rotateLeft(a1 + (c1 ^ (b1 | ~d1)) + w[24] + 0x6fa87e4f, 6);
+		a2 = b2 + Integer.rotateLeft(a2 + (c2 ^ (b2 | ~d2)) + w[40] + 0x6fa87e4f, 6);
+		a3 = b3 + Integer.rotateLeft(a3 + (c3 ^ (b3 | ~d3)) + w[56] + 0x6fa87e4f, 6);
+		d0 = a0 + Integer.rotateLeft(d0 + (b0 ^ (a0 | ~c0)) + w[15] + 0xfe2ce6e0, 10);
+		d1 = a1 + Integer.rotateLeft(d1 + (b1 ^ (a1 | ~c1)) + w[31] + 0xfe2ce6e0, 10);
+		d2 = a2 + Integer.rotateLeft(d2 + (b2 ^ (a2 | ~c2)) + w[47] + 0xfe2ce6e0, 10);
+		d3 = a3 + Integer.rotateLeft(d3 + (b3 ^ (a3 | ~c3)) + w[63] + 0xfe2ce6e0, 10);
+		c0 = d0 + Integer.rotateLeft(c0 + (a0 ^ (d0 | ~b0)) + w[6] + 0xa3014314, 15);
+		c1 = d1 + Integer.rotateLeft(c1 + (a1 ^ (d1 | ~b1)) + w[22] + 0xa3014314, 15);
+		c2 = d2 + Integer.rotateLeft(c2 + (a2 ^ (d2 | ~b2)) + w[38] + 0xa3014314, 15);
+		c3 = d3 + Integer.rotateLeft(c3 + (a3 ^ (d3 | ~b3)) + w[54] + 0xa3014314, 15);
+		b0 = c0 + Integer.rotateLeft(b0 + (d0 ^ (c0 | ~a0)) + w[13] + 0x4e0811a1, 21);
+		b1 = c1 + Integer.rotateLeft(b1 + (d1 ^ (c1 | ~a1)) + w[29] + 0x4e0811a1, 21);
+		b2 = c2 + Integer.rotateLeft(b2 + (d2 ^ (c2 | ~a2)) + w[45] + 0x4e0811a1, 21);
+		b3 = c3 + Integer.rotateLeft(b3 + (d3 ^ (c3 | ~a3)) + w[61] + 0x4e0811a1, 21);
+		a0 = b0 + Integer.rotateLeft(a0 + (c0 ^ (b0 | ~d0)) + w[4] + 0xf7537e82, 6);
+		a1 = b1 + Integer.rotateLeft(a1 + (c1 ^ (b1 | ~d1)) + w[20] + 0xf7537e82, 6);
+		a2 = b2 + Integer.rotateLeft(a2 + (c2 ^ (b2 | ~d2)) + w[36] + 0xf7537e82, 6);
+		a3 = b3 + Integer.rotateLeft(a3 + (c3 ^ (b3 | ~d3)) + w[52] + 0xf7537e82, 6);
+		d0 = a0 + Integer.rotateLeft(d0 + (b0 ^ (a0 | ~c0)) + w[11] + 0xbd3af235, 10);
+		d1 = a1 + Integer.rotateLeft(d1 + (b1 ^ (a1 | ~c1)) + w[27] + 0xbd3af235, 10);
+		d2 = a2 + Integer.rotateLeft(d2 + (b2 ^ (a2 | ~c2)) + w[43] + 0xbd3af235, 10);
+		d3 = a3 + Integer.rotateLeft(d3 + (b3 ^ (a3 | ~c3)) + w[59] + 0xbd3af235, 10);
+		c0 = d0 + Integer.rotateLeft(c0 + (a0 ^ (d0 | ~b0)) + w[2] + 0x2ad7d2bb, 15);
+		c1 = d1 + Integer.rotateLeft(c1 + (a1 ^ (d1 | ~b1)) + w[18] + 0x2ad7d2bb, 15);
+		c2 = d2 + Integer.rotateLeft(c2 + (a2 ^ (d2 | ~b2)) + w[34] + 0x2ad7d2bb, 15);
+		c3 = d3 + Integer.rotateLeft(c3 + (a3 ^ (d3 | ~b3)) + w[50] + 0x2ad7d2bb, 15);
+		b0 = c0 + Integer.rotateLeft(b0 + (d0 ^ (c0 | ~a0)) + w[9] + 0xeb86d391, 21);
+		b1 = c1 + Integer.rotateLeft(b1 + (d1 ^ (c1 | ~a1)) + w[25] + 0xeb86d391, 21);
+		b2 = c2 + Integer.rotateLeft(b2 + (d2 ^ (c2 | ~a2)) + w[41] + 0xeb86d391, 21);
+		b3 = c3 + Integer.rotateLeft(b3 + (d3 ^ (c3 | ~a3)) + w[57] + 0xeb86d391, 21);
+		
+		state[0] = a0;
+		state[1] = b0;
+		state[2] = c0;
+		state[3] = d0;
+		state[4] = a1;
+		state[5] = b1;
+		state[6] = c1;
+		state[7] = d1;
+		state[8] = a2;
+		state[9] = b2;
+		state[10] = c2;
+		state[11] = d2;
+		state[12] = a3;
+		state[13] = b3;
+		state[14] = c3;
+		state[15] = d3;
+	}
+}
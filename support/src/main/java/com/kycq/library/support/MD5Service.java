@@ -0,0 +1,496 @@
+package com.kycq.library.support;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步MD5计算服务
+ * 有界线程池按优先级计算文件或输入流的摘要, 同一文件的并发请求合并为一次计算
+ */
+public class MD5Service {
+	/** 请求状态:等待 */
+	private static final int STATE_PENDING = 0;
+	/** 请求状态:成功 */
+	private static final int STATE_SUCCESS = 1;
+	/** 请求状态:失败 */
+	private static final int STATE_FAILURE = 2;
+	/** 请求状态:取消 */
+	private static final int STATE_CANCELLED = 3;
+	
+	/** 计算线程池 */
+	private final ThreadPoolExecutor mExecutor;
+	/** 回调执行器, 为null时在计算线程回调 */
+	private final Executor mCallbackExecutor;
+	/** 正在计算或等待计算的文件任务 */
+	private final Map<String, HashTask> mFileTasks = new HashMap<>();
+	/** 任务序号生成器(相同优先级先提交先计算) */
+	private final AtomicLong mTaskSequence = new AtomicLong();
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param threadCount 最大计算线程数
+	 */
+	public MD5Service(int threadCount) {
+		this(threadCount, null);
+	}
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param threadCount      最大计算线程数
+	 * @param callbackExecutor 回调执行器, 为null时在计算线程回调
+	 */
+	public MD5Service(int threadCount, Executor callbackExecutor) {
+		mCallbackExecutor = callbackExecutor;
+		mExecutor = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+				new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+			private final AtomicInteger mCount = new AtomicInteger();
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "MD5Service-" + mCount.incrementAndGet());
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+		mExecutor.allowCoreThreadTimeOut(true);
+	}
+	
+	/**
+	 * 计算文件摘要
+	 * 同一文件已在计算或等待计算时复用该任务, 更高优先级的请求会提升等待中任务的优先级;
+	 * 服务已关闭时回调计算失败
+	 *
+	 * @param file     文件
+	 * @param priority 优先级(数值越大越先计算)
+	 * @param listener 计算监听器, 可为null
+	 * @return 计算请求
+	 */
+	public Request submit(File file, int priority, OnHashListener listener) {
+		Request request = new Request(listener);
+		String key = file.getAbsolutePath();
+		HashTask task;
+		RejectedExecutionException rejection = null;
+		synchronized (mFileTasks) {
+			task = mFileTasks.get(key);
+			if (task == null) {
+				task = new HashTask(key, file, null, priority);
+				task.mRequests.add(request);
+				request.mTask = task;
+				mFileTasks.put(key, task);
+				rejection = execute(task);
+			} else {
+				task.mRequests.add(request);
+				request.mTask = task;
+				if (priority > task.mPriority && mExecutor.remove(task)) {
+					task.mPriority = priority;
+					rejection = execute(task);
+				}
+			}
+		}
+		if (rejection != null) {
+			reject(task, rejection);
+		}
+		return request;
+	}
+	
+	/**
+	 * 计算输入流摘要(读取至结束后关闭), 服务已关闭时回调计算失败
+	 *
+	 * @param inputStream 输入流
+	 * @param priority    优先级(数值越大越先计算)
+	 * @param listener    计算监听器, 可为null
+	 * @return 计算请求
+	 */
+	public Request submit(InputStream inputStream, int priority, OnHashListener listener) {
+		Request request = new Request(listener);
+		HashTask task = new HashTask(null, null, inputStream, priority);
+		RejectedExecutionException rejection;
+		synchronized (mFileTasks) {
+			task.mRequests.add(request);
+			request.mTask = task;
+			rejection = execute(task);
+		}
+		if (rejection != null) {
+			reject(task, rejection);
+		}
+		return request;
+	}
+	
+	/**
+	 * 校验文件摘要
+	 *
+	 * @param file        文件
+	 * @param expectedMD5 预期的十六进制摘要(不区分大小写)
+	 * @param priority    优先级(数值越大越先计算)
+	 * @param listener    校验监听器
+	 * @return 计算请求
+	 */
+	public Request verify(File file, final String expectedMD5, int priority, final OnVerifyListener listener) {
+		return submit(file, priority, new OnHashListener() {
+			@Override
+			public void onSuccess(String md5) {
+				listener.onVerified(md5.equalsIgnoreCase(expectedMD5));
+			}
+			
+			@Override
+			public void onFailure(Exception ex) {
+				listener.onFailure(ex);
+			}
+			
+			@Override
+			public void onCancelled() {
+				listener.onCancelled();
+			}
+		});
+	}
+	
+	/**
+	 * 等待计算的任务数量
+	 *
+	 * @return 等待计算的任务数量(合并后)
+	 */
+	public int getQueuedCount() {
+		return mExecutor.getQueue().size();
+	}
+	
+	/**
+	 * 关闭服务, 取消所有请求
+	 */
+	public void shutdown() {
+		mExecutor.shutdownNow();
+		List<HashTask> tasks;
+		synchronized (mFileTasks) {
+			tasks = new ArrayList<>(mFileTasks.values());
+			mFileTasks.clear();
+		}
+		for (HashTask task : tasks) {
+			for (Request request : task.snapshotRequests()) {
+				request.cancel(true);
+			}
+		}
+	}
+	
+	/**
+	 * 提交任务(由mFileTasks同步), 服务已关闭时移除任务
+	 *
+	 * @param task 计算任务
+	 * @return 提交失败的异常, 提交成功返回null
+	 */
+	private RejectedExecutionException execute(HashTask task) {
+		try {
+			mExecutor.execute(task);
+			return null;
+		} catch (RejectedExecutionException ex) {
+			task.mCancelled = true;
+			if (task.mKey != null && mFileTasks.get(task.mKey) == task) {
+				mFileTasks.remove(task.mKey);
+			}
+			return ex;
+		}
+	}
+	
+	/**
+	 * 提交失败的任务回调计算失败
+	 *
+	 * @param task 计算任务
+	 * @param ex   提交失败的异常
+	 */
+	private void reject(HashTask task, RejectedExecutionException ex) {
+		MD5Utils.closeQuietly(task.mInputStream);
+		List<Request> requests;
+		synchronized (mFileTasks) {
+			requests = task.snapshotRequests();
+			task.mRequests.clear();
+		}
+		for (Request request : requests) {
+			request.complete(STATE_FAILURE, null, ex);
+		}
+	}
+	
+	/**
+	 * 移除请求, 任务没有请求时取消任务
+	 *
+	 * @param request 计算请求
+	 */
+	private void detach(Request request) {
+		HashTask task = request.mTask;
+		synchronized (mFileTasks) {
+			task.mRequests.remove(request);
+			if (!task.mRequests.isEmpty()) {
+				return;
+			}
+			task.mCancelled = true;
+			if (task.mKey != null) {
+				mFileTasks.remove(task.mKey);
+			}
+			if (!mExecutor.remove(task) && task.mThread != null) {
+				task.mThread.interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * 计算任务
+	 */
+	private class HashTask implements Runnable, Comparable<HashTask> {
+		/** 文件任务键值, 输入流任务为null */
+		final String mKey;
+		final File mFile;
+		final InputStream mInputStream;
+		final long mSequence = mTaskSequence.getAndIncrement();
+		/** 等待结果的请求(由mFileTasks同步) */
+		final List<Request> mRequests = new ArrayList<>(1);
+		/** 优先级(由mFileTasks同步) */
+		int mPriority;
+		/** 计算线程(由mFileTasks同步) */
+		Thread mThread;
+		/** 是否已取消(由mFileTasks同步) */
+		boolean mCancelled;
+		
+		HashTask(String key, File file, InputStream inputStream, int priority) {
+			mKey = key;
+			mFile = file;
+			mInputStream = inputStream;
+			mPriority = priority;
+		}
+		
+		@Override
+		public void run() {
+			synchronized (mFileTasks) {
+				if (mCancelled) {
+					MD5Utils.closeQuietly(mInputStream);
+					return;
+				}
+				mThread = Thread.currentThread();
+			}
+			
+			String md5 = null;
+			Exception exception = null;
+			InputStream inputStream = mInputStream;
+			try {
+				MessageDigest digest = MD5Utils.obtainDigest();
+				if (mFile != null) {
+					FileInputStream fileInputStream = new FileInputStream(mFile);
+					inputStream = fileInputStream;
+					MD5Utils.update(digest, fileInputStream.getChannel());
+				} else {
+					MD5Utils.update(digest, inputStream);
+				}
+				md5 = Digest128.fromBytes(digest.digest(), 0).toHex();
+			} catch (Exception ex) {
+				exception = ex;
+			} finally {
+				MD5Utils.closeQuietly(inputStream);
+			}
+			
+			List<Request> requests;
+			synchronized (mFileTasks) {
+				if (mKey != null && mFileTasks.get(mKey) == this) {
+					mFileTasks.remove(mKey);
+				}
+				mThread = null;
+				requests = snapshotRequests();
+				mRequests.clear();
+			}
+			// 清除取消时可能残留的中断状态, 避免影响线程池的后续任务
+			Thread.interrupted();
+			for (Request request : requests) {
+				if (exception == null) {
+					request.complete(STATE_SUCCESS, md5, null);
+				} else {
+					request.complete(STATE_FAILURE, null, exception);
+				}
+			}
+		}
+		
+		List<Request> snapshotRequests() {
+			synchronized (mFileTasks) {
+				return new ArrayList<>(mRequests);
+			}
+		}
+		
+		@Override
+		public int compareTo(HashTask task) {
+			if (mPriority != task.mPriority) {
+				return mPriority > task.mPriority ? -1 : 1;
+			}
+			return mSequence < task.mSequence ? -1 : (mSequence == task.mSequence ? 0 : 1);
+		}
+	}
+	
+	/**
+	 * 计算请求
+	 */
+	public class Request implements Future<String> {
+		private final OnHashListener mListener;
+		private final CountDownLatch mLatch = new CountDownLatch(1);
+		/** 所属任务 */
+		HashTask mTask;
+		private int mState = STATE_PENDING;
+		private String mResult;
+		private Exception mException;
+		
+		Request(OnHashListener listener) {
+			mListener = listener;
+		}
+		
+		/**
+		 * 设置结果并回调监听器
+		 *
+		 * @return true设置成功 false请求已结束
+		 */
+		boolean complete(final int state, final String result, final Exception exception) {
+			synchronized (this) {
+				if (mState != STATE_PENDING) {
+					return false;
+				}
+				mState = state;
+				mResult = result;
+				mException = exception;
+			}
+			mLatch.countDown();
+			
+			if (mListener == null) {
+				return true;
+			}
+			Runnable callback = new Runnable() {
+				@Override
+				public void run() {
+					if (state == STATE_SUCCESS) {
+						mListener.onSuccess(result);
+					} else if (state == STATE_FAILURE) {
+						mListener.onFailure(exception);
+					} else {
+						mListener.onCancelled();
+					}
+				}
+			};
+			if (mCallbackExecutor == null) {
+				callback.run();
+			} else {
+				mCallbackExecutor.execute(callback);
+			}
+			return true;
+		}
+		
+		/**
+		 * 取消请求, 同一文件的其他请求不受影响, 所有请求取消后停止计算
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (!complete(STATE_CANCELLED, null, null)) {
+				return false;
+			}
+			detach(this);
+			return true;
+		}
+		
+		@Override
+		public synchronized boolean isCancelled() {
+			return mState == STATE_CANCELLED;
+		}
+		
+		@Override
+		public synchronized boolean isDone() {
+			return mState != STATE_PENDING;
+		}
+		
+		@Override
+		public String get() throws InterruptedException, ExecutionException {
+			mLatch.await();
+			return report();
+		}
+		
+		@Override
+		public String get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			if (!mLatch.await(timeout, unit)) {
+				throw new TimeoutException();
+			}
+			return report();
+		}
+		
+		private synchronized String report() throws ExecutionException {
+			if (mState == STATE_CANCELLED) {
+				throw new CancellationException();
+			}
+			if (mState == STATE_FAILURE) {
+				throw new ExecutionException(mException);
+			}
+			return mResult;
+		}
+	}
+	
+	/**
+	 * 摘要计算监听器
+	 */
+	public static abstract class OnHashListener {
+		
+		/**
+		 * 计算成功
+		 *
+		 * @param md5 32位十六进制摘要
+		 */
+		public abstract void onSuccess(String md5);
+		
+		/**
+		 * 计算失败
+		 *
+		 * @param ex 异常
+		 */
+		public abstract void onFailure(Exception ex);
+		
+		/**
+		 * 请求取消
+		 */
+		public void onCancelled() {
+		}
+	}
+	
+	/**
+	 * 摘要校验监听器
+	 */
+	public static abstract class OnVerifyListener {
+		
+		/**
+		 * 校验完成
+		 *
+		 * @param matched true摘要一致 false摘要不一致
+		 */
+		public abstract void onVerified(boolean matched);
+		
+		/**
+		 * 计算失败
+		 *
+		 * @param ex 异常
+		 */
+		public abstract void onFailure(Exception ex);
+		
+		/**
+		 * 请求取消
+		 */
+		public void onCancelled() {
+		}
+	}
+}
@@ -1,34 +1,717 @@
 package com.kycq.library.support;
 
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MD5Utils {
-	private static final char[] DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	
+	/** 读取缓冲区大小 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** 内存映射阈值(超过该大小的文件按窗口映射读取) */
+	private static final long MAP_THRESHOLD = 4 * 1024 * 1024;
+	/** 内存映射窗口大小 */
+	private static final long MAP_WINDOW_SIZE = 32 * 1024 * 1024;
+	/** 字符编码缓冲区大小 */
+	private static final int ENCODE_BUFFER_SIZE = 1024;
+	/** 默认分块大小 */
+	public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+	
+	/** 线程摘要缓存 */
+	private static final ThreadLocal<DigestHolder> mDigestPool = new ThreadLocal<>();
+	/** 分块线程池 */
+	private static ExecutorService mChunkExecutor;
+	/** 是否使用安全提供者的MD5实现 */
+	private static volatile boolean mUseProvider;
 	
 	private MD5Utils() {
 	}
 	
+	/**
+	 * 设置是否使用安全提供者的MD5实现
+	 * 默认使用内置的{@link MD5Digest}, 避免提供者查找与分派开销
+	 *
+	 * @param useProvider true使用{@link MessageDigest#getInstance(String)} false使用{@link MD5Digest}
+	 */
+	public static void setUseProvider(boolean useProvider) {
+		mUseProvider = useProvider;
+	}
+	
+	/**
+	 * 创建MD5加密结果缓存
+	 *
+	 * @param maxEntries 最大缓存数量
+	 * @return 线程安全的有界LRU缓存
+	 */
+	public static MD5Cache cached(int maxEntries) {
+		return new MD5Cache(maxEntries);
+	}
+	
+	/**
+	 * 创建HMAC-MD5签名器
+	 *
+	 * @param key 密钥
+	 * @return 签名器(预先计算密钥填充状态, 可重复使用)
+	 */
+	public static HmacMD5 hmac(byte[] key) {
+		return new HmacMD5(key);
+	}
+	
+	/**
+	 * 创建HMAC-MD5签名器
+	 *
+	 * @param key 密钥(UTF-8编码)
+	 * @return 签名器(预先计算密钥填充状态, 可重复使用)
+	 */
+	public static HmacMD5 hmac(String key) {
+		return new HmacMD5(key.getBytes(UTF_8));
+	}
+	
 	/**
 	 * MD5加密
 	 *
 	 * @param str 加密字符串
 	 * @return 加密结果
+	 * @see #encode(CharSequence)
 	 */
 	public static String encode(String str) {
+		return encode((CharSequence) str);
+	}
+	
+	/**
+	 * MD5加密(UTF-8编码)
+	 * 字符分段编码后直接更新摘要, 不生成完整的字节数组副本, 结果与平台默认字符集无关
+	 *
+	 * @param str 加密字符序列
+	 * @return 加密结果
+	 */
+	public static String encode(CharSequence str) {
+		try {
+			DigestHolder holder = obtainHolder();
+			update(holder, str);
+			return DigestEncoder.toHex(holder.digest.digest());
+		} catch (Exception ignored) {
+			return null;
+		}
+	}
+	
+	/**
+	 * MD5加密(UTF-8编码, 32位十六进制结果写入指定数组, 不分配内存)
+	 *
+	 * @param str       加密字符序列
+	 * @param out       32字符结果数组
+	 * @param outOffset 结果数组偏移
+	 * @return true加密成功 false加密失败
+	 */
+	public static boolean encode(CharSequence str, char[] out, int outOffset) {
+		try {
+			DigestHolder holder = obtainHolder();
+			update(holder, str);
+			holder.digest.digest(holder.md, 0, MD5Digest.DIGEST_LENGTH);
+			DigestEncoder.toHex(holder.md, 0, MD5Digest.DIGEST_LENGTH, out, outOffset, false);
+			return true;
+		} catch (Exception ignored) {
+			return false;
+		}
+	}
+	
+	/**
+	 * MD5加密
+	 *
+	 * @param input 加密数据
+	 * @return 加密结果
+	 */
+	public static String encode(byte[] input) {
+		try {
+			MessageDigest digest = obtainDigest();
+			digest.update(input);
+			return DigestEncoder.toHex(digest.digest());
+		} catch (Exception ignored) {
+			return null;
+		}
+	}
+	
+	/**
+	 * MD5加密(结果写入指定数组, 不分配内存)
+	 *
+	 * @param input     加密数据
+	 * @param offset    加密数据偏移
+	 * @param length    加密数据长度
+	 * @param out       16字节结果数组
+	 * @param outOffset 结果数组偏移
+	 * @return true加密成功 false加密失败
+	 */
+	public static boolean encode(byte[] input, int offset, int length, byte[] out, int outOffset) {
+		try {
+			MessageDigest digest = obtainDigest();
+			digest.update(input, offset, length);
+			digest.digest(out, outOffset, MD5Digest.DIGEST_LENGTH);
+			return true;
+		} catch (Exception ignored) {
+			return false;
+		}
+	}
+	
+	/**
+	 * MD5加密(32位十六进制结果写入指定数组, 不分配内存)
+	 *
+	 * @param input     加密数据
+	 * @param offset    加密数据偏移
+	 * @param length    加密数据长度
+	 * @param out       32字符结果数组
+	 * @param outOffset 结果数组偏移
+	 * @return true加密成功 false加密失败
+	 */
+	public static boolean encode(byte[] input, int offset, int length, char[] out, int outOffset) {
+		try {
+			DigestHolder holder = obtainHolder();
+			holder.digest.update(input, offset, length);
+			holder.digest.digest(holder.md, 0, MD5Digest.DIGEST_LENGTH);
+			DigestEncoder.toHex(holder.md, 0, MD5Digest.DIGEST_LENGTH, out, outOffset, false);
+			return true;
+		} catch (Exception ignored) {
+			return false;
+		}
+	}
+	
+	/**
+	 * MD5摘要(UTF-8编码)
+	 *
+	 * @param str 加密字符序列
+	 * @return 摘要值
+	 */
+	public static Digest128 digest(CharSequence str) {
+		try {
+			DigestHolder holder = obtainHolder();
+			update(holder, str);
+			holder.digest.digest(holder.md, 0, MD5Digest.DIGEST_LENGTH);
+			return Digest128.fromBytes(holder.md, 0);
+		} catch (Exception ignored) {
+			return null;
+		}
+	}
+	
+	/**
+	 * MD5摘要
+	 *
+	 * @param input  加密数据
+	 * @param offset 加密数据偏移
+	 * @param length 加密数据长度
+	 * @return 摘要值
+	 */
+	public static Digest128 digest(byte[] input, int offset, int length) {
+		try {
+			DigestHolder holder = obtainHolder();
+			holder.digest.update(input, offset, length);
+			holder.digest.digest(holder.md, 0, MD5Digest.DIGEST_LENGTH);
+			return Digest128.fromBytes(holder.md, 0);
+		} catch (Exception ignored) {
+			return null;
+		}
+	}
+	
+	/**
+	 * 批量MD5加密
+	 *
+	 * @param strs 加密字符串列表(UTF-8编码)
+	 * @return 加密结果列表
+	 * @see #encodeAll(byte[][], byte[][])
+	 */
+	public static String[] encodeAll(String[] strs) {
+		int count = strs.length;
+		byte[][] inputs = new byte[count][];
+		byte[][] mds = new byte[count][MD5Digest.DIGEST_LENGTH];
+		for (int index = 0; index < count; index++) {
+			inputs[index] = strs[index].getBytes(UTF_8);
+		}
+		if (!encodeAll(inputs, mds)) {
+			return null;
+		}
+		return DigestEncoder.toHex(mds, false);
+	}
+	
+	/**
+	 * 批量MD5加密
+	 * 多路交错计算互相独立的消息, 批量处理大量短消息时吞吐量高于逐个加密
+	 *
+	 * @param inputs 加密数据列表
+	 * @param out    结果数组列表(每项至少16字节)
+	 * @return true加密成功 false加密失败
+	 */
+	public static boolean encodeAll(byte[][] inputs, byte[][] out) {
 		try {
-			MessageDigest digest = MessageDigest.getInstance("MD5");
-			digest.update(str.getBytes());
-			byte[] md = digest.digest();
-			int length = md.length;
-			char set[] = new char[length * 2];
-			int index = 0;
-			for (byte byteCode : md) {
-				set[index++] = DIGITS[byteCode >>> 4 & 0xf];
-				set[index++] = DIGITS[byteCode & 0xf];
+			new MD5MultiBuffer().digest(inputs, out);
+			return true;
+		} catch (Exception ignored) {
+			return false;
+		}
+	}
+	
+	/**
+	 * MD5加密
+	 *
+	 * @param inputStream 输入流(读取至结束, 不会关闭)
+	 * @return 加密结果
+	 */
+	public static String encode(InputStream inputStream) {
+		try {
+			MessageDigest digest = obtainDigest();
+			update(digest, inputStream);
+			return DigestEncoder.toHex(digest.digest());
+		} catch (Exception ignored) {
+			return null;
+		}
+	}
+	
+	/**
+	 * MD5加密
+	 *
+	 * @param file 文件
+	 * @return 加密结果
+	 */
+	public static String encode(File file) {
+		FileInputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+			return encode(inputStream.getChannel());
+		} catch (Exception ignored) {
+			return null;
+		} finally {
+			closeQuietly(inputStream);
+		}
+	}
+	
+	/**
+	 * MD5加密(读取整个文件, 不改变通道位置, 不会关闭)
+	 *
+	 * @param channel 文件通道
+	 * @return 加密结果
+	 */
+	public static String encode(FileChannel channel) {
+		try {
+			MessageDigest digest = obtainDigest();
+			update(digest, channel);
+			return DigestEncoder.toHex(digest.digest());
+		} catch (Exception ignored) {
+			return null;
+		}
+	}
+	
+	/**
+	 * 从状态快照继续计算文件摘要
+	 * 只读取快照之后新增的部分, 用于断点续传等场景, 耗时与新增数据量成正比
+	 *
+	 * @param snapshot 状态快照(对文件开头部分计算得到)
+	 * @param file     文件
+	 * @return 已更新至文件末尾的摘要, 可继续更新或保存快照, 失败返回null
+	 * @see MD5Digest#snapshot()
+	 */
+	public static MD5Digest resume(byte[] snapshot, File file) {
+		FileInputStream inputStream = null;
+		try {
+			MD5Digest digest = MD5Digest.fromSnapshot(snapshot);
+			inputStream = new FileInputStream(file);
+			FileChannel channel = inputStream.getChannel();
+			long position = digest.getByteCount();
+			long size = channel.size();
+			if (position > size) {
+				return null;
 			}
-			return new String(set);
+			update(digest, channel, position, size - position);
+			return digest;
 		} catch (Exception ignored) {
 			return null;
+		} finally {
+			closeQuietly(inputStream);
+		}
+	}
+	
+	/**
+	 * 分块树形MD5加密(默认分块大小)
+	 *
+	 * @param file 文件
+	 * @return 加密结果
+	 * @see #encodeTree(File, int)
+	 */
+	public static String encodeTree(File file) {
+		return encodeTree(file, DEFAULT_CHUNK_SIZE);
+	}
+	
+	/**
+	 * 分块树形MD5加密
+	 * 按固定大小分块并行计算各块摘要, 再对所有块摘要依次拼接的结果计算摘要
+	 *
+	 * @param file      文件
+	 * @param chunkSize 分块大小
+	 * @return 加密结果
+	 */
+	public static String encodeTree(File file, int chunkSize) {
+		byte[][] chunkDigests = encodeChunks(file, chunkSize);
+		return chunkDigests == null ? null : encodeTree(chunkDigests);
+	}
+	
+	/**
+	 * 分块树形MD5加密
+	 *
+	 * @param chunkDigests 分块摘要列表
+	 * @return 加密结果
+	 * @see #encodeChunks(File, int)
+	 */
+	public static String encodeTree(byte[][] chunkDigests) {
+		try {
+			MessageDigest digest = obtainDigest();
+			for (byte[] chunkDigest : chunkDigests) {
+				digest.update(chunkDigest);
+			}
+			return DigestEncoder.toHex(digest.digest());
+		} catch (Exception ignored) {
+			return null;
+		}
+	}
+	
+	/**
+	 * 并行计算文件各分块的摘要
+	 *
+	 * @param file      文件
+	 * @param chunkSize 分块大小
+	 * @return 分块摘要列表(每项16字节), 失败或调用线程被中断返回null(保留中断状态)
+	 */
+	public static byte[][] encodeChunks(File file, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		FileInputStream inputStream = null;
+		try {
+			inputStream = new FileInputStream(file);
+			return encodeChunks(inputStream.getChannel(), chunkSize);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (Exception ignored) {
+			return null;
+		} finally {
+			closeQuietly(inputStream);
+		}
+	}
+	
+	/**
+	 * 校验文件各分块的摘要
+	 *
+	 * @param file         文件
+	 * @param chunkSize    分块大小
+	 * @param chunkDigests 预期的分块摘要列表
+	 * @return 摘要不一致的分块序号(包括缺少或多出的分块), 全部一致时为空数组, 失败返回null
+	 */
+	public static int[] verifyChunks(File file, int chunkSize, byte[][] chunkDigests) {
+		byte[][] actualDigests = encodeChunks(file, chunkSize);
+		if (actualDigests == null) {
+			return null;
+		}
+		int count = Math.max(actualDigests.length, chunkDigests.length);
+		int[] mismatches = new int[count];
+		int mismatchCount = 0;
+		for (int index = 0; index < count; index++) {
+			if (index >= actualDigests.length || index >= chunkDigests.length
+					|| !MessageDigest.isEqual(actualDigests[index], chunkDigests[index])) {
+				mismatches[mismatchCount++] = index;
+			}
+		}
+		return Arrays.copyOf(mismatches, mismatchCount);
+	}
+	
+	/**
+	 * 并行计算文件通道各分块的摘要
+	 * 调用线程与分块线程池共同领取分块, 线程池繁忙时调用线程仍可独立完成;
+	 * 调用线程被中断或任一分块失败时停止领取分块并取消其他分块任务
+	 *
+	 * @param channel   文件通道
+	 * @param chunkSize 分块大小
+	 * @return 分块摘要列表
+	 * @throws Exception 读取异常或等待中断
+	 */
+	static byte[][] encodeChunks(final FileChannel channel, final int chunkSize) throws Exception {
+		final long size = channel.size();
+		final int chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+		final byte[][] chunkDigests = new byte[chunkCount][];
+		final AtomicInteger nextChunk = new AtomicInteger();
+		Callable<Void> task = new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				int index;
+				while ((index = nextChunk.getAndIncrement()) < chunkCount) {
+					if (Thread.interrupted()) {
+						throw new InterruptedException();
+					}
+					long position = (long) index * chunkSize;
+					long length = Math.min(chunkSize, size - position);
+					MessageDigest digest = obtainDigest();
+					update(digest, channel, position, length);
+					chunkDigests[index] = digest.digest();
+				}
+				return null;
+			}
+		};
+		
+		int workerCount = Math.min(chunkCount, Runtime.getRuntime().availableProcessors()) - 1;
+		List<Future<Void>> futures = new ArrayList<>(Math.max(workerCount, 0));
+		try {
+			if (workerCount > 0) {
+				ExecutorService executor = obtainChunkExecutor();
+				for (int index = 0; index < workerCount; index++) {
+					futures.add(executor.submit(task));
+				}
+			}
+			task.call();
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+			return chunkDigests;
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			throw cause instanceof Exception ? (Exception) cause : ex;
+		} finally {
+			// 失败或中断时停止领取剩余分块
+			nextChunk.set(chunkCount);
+			for (Future<Void> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+	
+	/**
+	 * 获取分块线程池
+	 *
+	 * @return 分块线程池
+	 */
+	private static synchronized ExecutorService obtainChunkExecutor() {
+		if (mChunkExecutor == null) {
+			mChunkExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+				private final AtomicInteger mCount = new AtomicInteger();
+				
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "MD5Utils-chunk-" + mCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return mChunkExecutor;
+	}
+	
+	/**
+	 * 获取当前线程的摘要缓存
+	 *
+	 * @return 已重置的摘要缓存
+	 * @throws NoSuchAlgorithmException 不支持MD5算法
+	 */
+	private static DigestHolder obtainHolder() throws NoSuchAlgorithmException {
+		boolean useProvider = mUseProvider;
+		DigestHolder holder = mDigestPool.get();
+		if (holder == null || holder.useProvider != useProvider) {
+			DigestHolder oldHolder = holder;
+			holder = new DigestHolder(useProvider ? MessageDigest.getInstance("MD5") : new MD5Digest(), useProvider);
+			if (oldHolder != null) {
+				// 切换实现时保留读取缓冲区
+				holder.readBuffer = oldHolder.readBuffer;
+				holder.directBuffer = oldHolder.directBuffer;
+			}
+			mDigestPool.set(holder);
+		} else {
+			holder.digest.reset();
+		}
+		return holder;
+	}
+	
+	/**
+	 * 获取当前线程的摘要缓存(不重置摘要), 不存在时创建
+	 *
+	 * @return 摘要缓存
+	 */
+	private static DigestHolder currentHolder() {
+		DigestHolder holder = mDigestPool.get();
+		if (holder == null) {
+			holder = new DigestHolder(new MD5Digest(), false);
+			mDigestPool.set(holder);
+		}
+		return holder;
+	}
+	
+	/**
+	 * 获取当前线程复用的摘要
+	 *
+	 * @return 已重置的摘要
+	 * @throws NoSuchAlgorithmException 不支持MD5算法
+	 */
+	static MessageDigest obtainDigest() throws NoSuchAlgorithmException {
+		return obtainHolder().digest;
+	}
+	
+	/**
+	 * 以UTF-8编码更新摘要
+	 * 内置实现直接编码写入分组缓冲区, 安全提供者的实现通过固定大小的缓冲区分段编码
+	 *
+	 * @param holder 摘要缓存
+	 * @param str    字符序列
+	 */
+	private static void update(DigestHolder holder, CharSequence str) {
+		if (holder.digest instanceof MD5Digest) {
+			((MD5Digest) holder.digest).update(str, 0, str.length());
+			return;
+		}
+		
+		if (holder.encoder == null) {
+			holder.encoder = UTF_8.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			holder.encodeBuffer = ByteBuffer.allocate(ENCODE_BUFFER_SIZE);
+		}
+		CharsetEncoder encoder = holder.encoder;
+		ByteBuffer buffer = holder.encodeBuffer;
+		CharBuffer input = CharBuffer.wrap(str);
+		encoder.reset();
+		boolean flushed = false;
+		while (true) {
+			CoderResult result = flushed ? encoder.flush(buffer) : encoder.encode(input, buffer, true);
+			buffer.flip();
+			holder.digest.update(buffer);
+			buffer.clear();
+			if (result.isUnderflow()) {
+				if (flushed) {
+					return;
+				}
+				flushed = true;
+			}
+		}
+	}
+	
+	/**
+	 * 读取输入流至结束并更新摘要
+	 *
+	 * @param digest      摘要
+	 * @param inputStream 输入流
+	 * @throws IOException 读取异常
+	 */
+	static void update(MessageDigest digest, InputStream inputStream) throws IOException {
+		DigestHolder holder = currentHolder();
+		if (holder.readBuffer == null) {
+			holder.readBuffer = new byte[BUFFER_SIZE];
+		}
+		byte[] buffer = holder.readBuffer;
+		int length;
+		while ((length = inputStream.read(buffer)) != -1) {
+			digest.update(buffer, 0, length);
+		}
+	}
+	
+	/**
+	 * 读取整个文件通道并更新摘要
+	 *
+	 * @param digest  摘要
+	 * @param channel 文件通道
+	 * @throws IOException 读取异常
+	 */
+	static void update(MessageDigest digest, FileChannel channel) throws IOException {
+		update(digest, channel, 0, channel.size());
+	}
+	
+	/**
+	 * 读取文件通道的指定区间并更新摘要
+	 * 小区间通过线程复用的直接缓冲区读取, 大区间按窗口内存映射读取, 堆内存占用与文件大小无关
+	 *
+	 * @param digest   摘要
+	 * @param channel  文件通道
+	 * @param position 区间起始位置
+	 * @param length   区间长度
+	 * @throws IOException 读取异常
+	 */
+	private static void update(MessageDigest digest, FileChannel channel, long position, long length) throws IOException {
+		long end = position + length;
+		if (length > MAP_THRESHOLD) {
+			for (; position < end; position += MAP_WINDOW_SIZE) {
+				long windowSize = Math.min(MAP_WINDOW_SIZE, end - position);
+				digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize));
+			}
+			return;
+		}
+		
+		DigestHolder holder = currentHolder();
+		if (holder.directBuffer == null) {
+			holder.directBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+		ByteBuffer buffer = holder.directBuffer;
+		while (position < end) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), end - position));
+			int readLength = channel.read(buffer, position);
+			if (readLength == -1) {
+				throw new EOFException();
+			}
+			position += readLength;
+			buffer.flip();
+			digest.update(buffer);
+		}
+	}
+	
+	/**
+	 * 关闭资源
+	 *
+	 * @param closeable 资源
+	 */
+	static void closeQuietly(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+	
+	/**
+	 * 线程摘要缓存
+	 */
+	private static class DigestHolder {
+		/** 摘要 */
+		final MessageDigest digest;
+		/** 是否为安全提供者的实现 */
+		final boolean useProvider;
+		/** 摘要结果缓存 */
+		final byte[] md = new byte[MD5Digest.DIGEST_LENGTH];
+		/** UTF-8编码器(仅安全提供者的实现使用) */
+		CharsetEncoder encoder;
+		/** 编码缓冲区(仅安全提供者的实现使用) */
+		ByteBuffer encodeBuffer;
+		/** 输入流读取缓冲区(按需创建) */
+		byte[] readBuffer;
+		/** 文件通道读取的直接缓冲区(按需创建) */
+		ByteBuffer directBuffer;
+		
+		DigestHolder(MessageDigest digest, boolean useProvider) {
+			this.digest = digest;
+			this.useProvider = useProvider;
 		}
 	}
 }
@@ -0,0 +1,183 @@
+package com.kycq.library.support;
+
+/**
+ * 进程内的权限状态缓存
+ * 读取不加锁(不可变快照), 写入时复制; 运行时权限被撤销时进程会被系统结束,
+ * 因此已授予状态在进程内一直有效, 只有拒绝状态需要在返回界面时失效.
+ * 状态以位图保存, 序号由{@link PermissionTable}分配
+ */
+final class PermissionCache {
+	/** 权限名称表 */
+	private final PermissionTable mTable;
+	/** 权限状态快照 */
+	private volatile State mState = new State(null, null);
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param table 权限名称表
+	 */
+	PermissionCache(PermissionTable table) {
+		mTable = table;
+	}
+	
+	/**
+	 * 获取缓存的权限状态
+	 *
+	 * @param permission 权限
+	 * @return true已授予 false已拒绝 null未缓存
+	 */
+	Boolean get(String permission) {
+		int index = mTable.indexOf(permission);
+		return index == -1 ? null : get(index);
+	}
+	
+	/**
+	 * 获取缓存的权限状态
+	 *
+	 * @param index 权限序号
+	 * @return true已授予 false已拒绝 null未缓存
+	 */
+	Boolean get(int index) {
+		State state = mState;
+		if (!PermissionTable.get(state.mKnown, index)) {
+			return null;
+		}
+		return PermissionTable.get(state.mGranted, index) ? Boolean.TRUE : Boolean.FALSE;
+	}
+	
+	/**
+	 * 缓存权限状态
+	 *
+	 * @param permission 权限
+	 * @param granted    是否授予
+	 */
+	void put(String permission, boolean granted) {
+		put(mTable.intern(permission), granted);
+	}
+	
+	/**
+	 * 缓存权限状态
+	 *
+	 * @param index   权限序号
+	 * @param granted 是否授予
+	 */
+	synchronized void put(int index, boolean granted) {
+		State state = mState;
+		if (PermissionTable.get(state.mKnown, index)
+				&& PermissionTable.get(state.mGranted, index) == granted) {
+			return;
+		}
+		long[] known = PermissionTable.set(copy(state.mKnown), index);
+		long[] grantedBits = granted
+				? PermissionTable.set(copy(state.mGranted), index)
+				: PermissionTable.clear(copy(state.mGranted), index);
+		mState = new State(known, grantedBits);
+	}
+	
+	/**
+	 * 批量缓存权限状态(一次发布)
+	 *
+	 * @param permissions 权限列表
+	 * @param granted     是否授予列表
+	 * @param count       数量
+	 */
+	void putAll(String[] permissions, boolean[] granted, int count) {
+		putAll(permissions, granted, count, false);
+	}
+	
+	/**
+	 * 批量缓存权限状态(一次发布), 不覆盖已缓存的状态
+	 *
+	 * @param permissions 权限列表
+	 * @param granted     是否授予列表
+	 * @param count       数量
+	 */
+	void putAllIfAbsent(String[] permissions, boolean[] granted, int count) {
+		putAll(permissions, granted, count, true);
+	}
+	
+	private void putAll(String[] permissions, boolean[] granted, int count, boolean ifAbsent) {
+		long[] known = null;
+		long[] grantedBits = null;
+		for (int index = 0; index < count; index++) {
+			int permission = mTable.intern(permissions[index]);
+			known = PermissionTable.set(known, permission);
+			if (granted[index]) {
+				grantedBits = PermissionTable.set(grantedBits, permission);
+			}
+		}
+		putAll(known, grantedBits, ifAbsent);
+	}
+	
+	/**
+	 * 批量缓存权限状态(一次发布)
+	 *
+	 * @param known    更新的权限位图
+	 * @param granted  已授予的权限位图
+	 * @param ifAbsent true不覆盖已缓存的状态 false覆盖
+	 */
+	synchronized void putAll(long[] known, long[] granted, boolean ifAbsent) {
+		if (known == null) {
+			return;
+		}
+		State state = mState;
+		long[] knownBits = PermissionTable.or(copy(state.mKnown), known);
+		long[] grantedBits = PermissionTable.ensureCapacity(copy(state.mGranted), known.length);
+		for (int word = 0; word < known.length; word++) {
+			long update = known[word];
+			if (ifAbsent) {
+				update &= state.mKnown == null || word >= state.mKnown.length ? -1L : ~state.mKnown[word];
+			}
+			long value = granted == null || word >= granted.length ? 0 : granted[word];
+			grantedBits[word] = (grantedBits[word] & ~update) | (value & update);
+		}
+		mState = new State(knownBits, grantedBits);
+	}
+	
+	/**
+	 * 清除拒绝状态(用户可能已在设置中授予), 保留已授予状态
+	 */
+	synchronized void invalidate() {
+		State state = mState;
+		if (PermissionTable.containsAll(state.mGranted, state.mKnown)) {
+			return;
+		}
+		mState = new State(copy(state.mGranted), state.mGranted);
+	}
+	
+	/**
+	 * 清除所有状态
+	 */
+	synchronized void clear() {
+		mState = new State(null, null);
+	}
+	
+	/**
+	 * 缓存的权限数量
+	 *
+	 * @return 权限数量
+	 */
+	int size() {
+		return PermissionTable.cardinality(mState.mKnown);
+	}
+	
+	private static long[] copy(long[] bits) {
+		return bits == null ? null : bits.clone();
+	}
+	
+	/**
+	 * 权限状态快照(不可修改)
+	 */
+	private static final class State {
+		/** 已缓存的权限 */
+		final long[] mKnown;
+		/** 已授予的权限 */
+		final long[] mGranted;
+		
+		State(long[] known, long[] granted) {
+			mKnown = known;
+			mGranted = granted;
+		}
+	}
+}
@@ -0,0 +1,256 @@
+package com.kycq.library.support;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 权限请求合并
+ * 同一界面在同一帧内发起的权限请求合并为一次系统请求(权限去重), 结果按权限分发给每个等待的请求;
+ * 权限集合以{@link PermissionTable}位图表示, 只在发起系统请求时转换为权限列表
+ */
+final class PermissionCoalescer {
+	/** 权限名称表 */
+	private final PermissionTable mTable;
+	/** 等待结果的合并请求 */
+	private final PermissionRegistry<Batch> mRegistry;
+	/** 等待发起的合并请求(界面 -> 合并请求) */
+	private final Map<Object, Batch> mPendingBatches = new HashMap<>();
+	/** 发起请求的执行器, 为null时使用主线程Handler(下一帧发起) */
+	private Executor mExecutor;
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param table    权限名称表
+	 * @param registry 等待结果的合并请求
+	 */
+	PermissionCoalescer(PermissionTable table, PermissionRegistry<Batch> registry) {
+		mTable = table;
+		mRegistry = registry;
+	}
+	
+	/**
+	 * 设置发起请求的执行器
+	 *
+	 * @param executor 执行器, 为null时使用主线程Handler
+	 */
+	synchronized void setExecutor(Executor executor) {
+		mExecutor = executor;
+	}
+	
+	/**
+	 * 加入合并请求, 同一界面的第一个请求安排在下一帧发起
+	 *
+	 * @param request     权限请求
+	 * @param listener    权限请求监听器
+	 * @param host        请求所在界面
+	 * @param requested   请求的全部权限位图(包括已授予的权限)
+	 * @param permissions 需要请求的权限位图
+	 */
+	void enqueue(PermissionUtils request, PermissionUtils.OnPermissionListener listener, Object host, long[] requested, long[] permissions) {
+		final Batch batch;
+		Executor executor;
+		synchronized (this) {
+			Batch pendingBatch = mPendingBatches.get(host);
+			if (pendingBatch != null) {
+				pendingBatch.add(request, listener, requested, permissions);
+				return;
+			}
+			batch = new Batch();
+			if (PermissionUtils.getTracer() != null) {
+				batch.mEnqueueTime = System.nanoTime();
+			}
+			batch.add(request, listener, requested, permissions);
+			mPendingBatches.put(host, batch);
+			if (mExecutor == null) {
+				mExecutor = new MainThreadExecutor();
+			}
+			executor = mExecutor;
+		}
+		final Object key = host;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (PermissionCoalescer.this) {
+					mPendingBatches.remove(key);
+				}
+				flush(batch);
+			}
+		});
+	}
+	
+	/**
+	 * 发起合并请求, 由第一个仍有效的请求对象发起, 没有有效的请求对象时放弃请求
+	 *
+	 * @param batch 合并请求
+	 */
+	private void flush(Batch batch) {
+		for (PermissionUtils request : batch.mRequests) {
+			Object component = request.mRequestReference.get();
+			if (component == null || request.isStale()) {
+				continue;
+			}
+			batch.mIssuer = request;
+			String[] permissions = mTable.toArray(batch.mPermissions);
+			int requestCode = request.mRequestCode;
+			if (requestCode == PermissionUtils.AUTO_REQUEST_CODE) {
+				requestCode = mRegistry.putAuto(component, batch);
+				if (requestCode == -1) {
+					// 等待结果的请求过多(未在onDestroy中释放), 在主线程抛出异常会导致崩溃, 放弃请求
+					batch.cancel();
+					return;
+				}
+			} else {
+				// 同一请求代码只能等待一个结果, 之前的请求不会再收到结果
+				Batch displacedBatch = mRegistry.put(component, requestCode, batch);
+				if (displacedBatch != null) {
+					displacedBatch.cancel();
+				}
+			}
+			PermissionTracer tracer = PermissionUtils.getTracer();
+			if (tracer != null) {
+				batch.mIssueTime = System.nanoTime();
+				tracer.onSystemRequest(permissions, Batch.elapsed(batch.mEnqueueTime, batch.mIssueTime));
+				tracer.onRegistrySize(mRegistry.approximateSize());
+			}
+			request.requestPermissions(permissions, requestCode);
+			return;
+		}
+		batch.cancel();
+	}
+	
+	/**
+	 * 等待发起的合并请求数量
+	 *
+	 * @return 合并请求数量
+	 */
+	synchronized int getPendingCount() {
+		return mPendingBatches.size();
+	}
+	
+	/**
+	 * 合并请求
+	 */
+	static final class Batch implements PermissionRegistry.Entry {
+		/** 合并的请求 */
+		final List<PermissionUtils> mRequests = new ArrayList<>(1);
+		/** 每个请求的监听器 */
+		final List<PermissionUtils.OnPermissionListener> mListeners = new ArrayList<>(1);
+		/** 每个请求的全部权限位图(包括已授予的权限) */
+		final List<long[]> mRequestPermissions = new ArrayList<>(1);
+		/** 去重后的权限位图 */
+		long[] mPermissions;
+		/** 发起系统请求的请求 */
+		PermissionUtils mIssuer;
+		/** 第一个请求的时间(纳秒, 只在设置跟踪时记录, 未记录为0) */
+		long mEnqueueTime;
+		/** 发起系统请求的时间(纳秒, 只在设置跟踪时记录, 未记录为0) */
+		long mIssueTime;
+		
+		void add(PermissionUtils request, PermissionUtils.OnPermissionListener listener, long[] requested, long[] permissions) {
+			int index = mListeners.indexOf(listener);
+			if (index == -1) {
+				mRequests.add(request);
+				mListeners.add(listener);
+				mRequestPermissions.add(requested);
+			} else {
+				// 同一监听器重复请求时合并权限, 只回调一次
+				mRequestPermissions.set(index, PermissionTable.or(mRequestPermissions.get(index), requested));
+			}
+			mPermissions = PermissionTable.or(mPermissions, permissions);
+		}
+		
+		@Override
+		public boolean isStale() {
+			return mIssuer == null || mIssuer.isStale();
+		}
+		
+		/**
+		 * 耗时(纳秒)
+		 *
+		 * @param start 开始时间, 设置跟踪前开始的请求为0
+		 * @param now   当前时间
+		 * @return 耗时, 开始时间未记录时为0
+		 */
+		static long elapsed(long start, long now) {
+			return start == 0 ? 0 : now - start;
+		}
+		
+		@Override
+		public void onReleased() {
+			cancel();
+		}
+		
+		/**
+		 * 放弃请求, 通知所有监听器
+		 */
+		void cancel() {
+			for (PermissionUtils.OnPermissionListener listener : mListeners) {
+				listener.onCancelled();
+			}
+		}
+		
+		/**
+		 * 按权限分发请求结果
+		 *
+		 * @param table    权限名称表
+		 * @param answered 系统返回结果的权限位图(请求被中断时为空)
+		 * @param granted  已授予的权限位图(不包含的权限视为拒绝)
+		 * @param tracer   权限请求跟踪, 可为null
+		 */
+		void dispatch(PermissionTable table, long[] answered, long[] granted, PermissionTracer tracer) {
+			// 系统返回拒绝且不再显示请求理由的权限视为永久拒绝(用户勾选了不再询问或被策略禁止);
+			// 没有返回结果的权限(请求被中断)从未询问过, 同样不显示请求理由, 但可以重新请求
+			long[] denied = PermissionTable.andNot(PermissionTable.and(mPermissions, answered), granted);
+			long[] permanentlyDenied = null;
+			for (int index = PermissionTable.nextSetBit(denied, 0); index >= 0; index = PermissionTable.nextSetBit(denied, index + 1)) {
+				if (!mIssuer.shouldShowRequestPermissionRationale(table.name(index))) {
+					permanentlyDenied = PermissionTable.set(permanentlyDenied, index);
+				}
+			}
+			if (tracer != null) {
+				for (int index = PermissionTable.nextSetBit(mPermissions, 0); index >= 0; index = PermissionTable.nextSetBit(mPermissions, index + 1)) {
+					if (PermissionTable.get(granted, index)) {
+						tracer.onGranted(table.name(index));
+					} else {
+						tracer.onDenied(table.name(index), PermissionTable.get(permanentlyDenied, index));
+					}
+				}
+			}
+			
+			for (int index = 0; index < mRequests.size(); index++) {
+				PermissionUtils request = mRequests.get(index);
+				if (request != mIssuer && request.isStale()) {
+					continue;
+				}
+				long[] permissions = mRequestPermissions.get(index);
+				// 不在系统请求中的权限在发起请求时已授予
+				long[] requestGranted = PermissionTable.and(permissions,
+						PermissionTable.or(PermissionTable.andNot(permissions, mPermissions), granted));
+				PermissionResult result = new PermissionResult(
+						table.toArray(requestGranted),
+						table.toArray(PermissionTable.andNot(permissions, requestGranted)),
+						table.toArray(PermissionTable.and(permissions, permanentlyDenied)));
+				mListeners.get(index).onResult(result);
+			}
+		}
+	}
+	
+	/**
+	 * 主线程执行器(延迟创建, 在主线程下一次消息循环时执行)
+	 */
+	private static final class MainThreadExecutor implements Executor {
+		private final Handler mHandler = new Handler(Looper.getMainLooper());
+		
+		@Override
+		public void execute(Runnable command) {
+			mHandler.post(command);
+		}
+	}
+}
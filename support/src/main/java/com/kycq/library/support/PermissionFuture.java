@@ -0,0 +1,209 @@
+package com.kycq.library.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 权限请求结果
+ * 结果为true表示所有权限已授予; 回调在指定的执行器执行, 可在授予后直接在工作线程继续初始化.
+ * 结果在主线程返回, 不要在主线程调用{@link #get()}等待
+ */
+public class PermissionFuture implements Future<Boolean> {
+	/** 请求状态:等待 */
+	private static final int STATE_PENDING = 0;
+	/** 请求状态:授予 */
+	private static final int STATE_GRANTED = 1;
+	/** 请求状态:拒绝 */
+	private static final int STATE_DENIED = 2;
+	/** 请求状态:取消 */
+	private static final int STATE_CANCELLED = 3;
+	
+	/** 回调执行器, 为null时在收到结果的线程回调 */
+	private final Executor mCallbackExecutor;
+	private final CountDownLatch mLatch = new CountDownLatch(1);
+	/** 等待结果的回调(由this同步) */
+	private final List<Callback> mCallbacks = new ArrayList<>(1);
+	private int mState = STATE_PENDING;
+	/** 按权限的请求结果(由this同步) */
+	private PermissionResult mResult;
+	
+	/** 接收请求结果的监听器 */
+	final PermissionUtils.OnPermissionListener mListener = new PermissionUtils.OnPermissionListener() {
+		@Override
+		public void onResult(PermissionResult result) {
+			synchronized (PermissionFuture.this) {
+				if (mState == STATE_PENDING) {
+					mResult = result;
+				}
+			}
+			super.onResult(result);
+		}
+		
+		@Override
+		public void onGranted() {
+			complete(STATE_GRANTED);
+		}
+		
+		@Override
+		public void onDenied() {
+			complete(STATE_DENIED);
+		}
+		
+		@Override
+		public void onRationale(String... permissions) {
+			// 不显示请求理由
+		}
+		
+		@Override
+		public void onCancelled() {
+			complete(STATE_CANCELLED);
+		}
+	};
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param callbackExecutor 回调执行器, 为null时在收到结果的线程回调
+	 */
+	PermissionFuture(Executor callbackExecutor) {
+		mCallbackExecutor = callbackExecutor;
+	}
+	
+	/**
+	 * 添加回调, 请求已结束时立即回调
+	 *
+	 * @param callback 回调
+	 * @return 请求结果
+	 */
+	public PermissionFuture addCallback(Callback callback) {
+		int state;
+		synchronized (this) {
+			state = mState;
+			if (state == STATE_PENDING) {
+				mCallbacks.add(callback);
+				return this;
+			}
+		}
+		dispatch(callback, state);
+		return this;
+	}
+	
+	/**
+	 * 按权限的请求结果
+	 *
+	 * @return 请求结果, 未结束或已取消返回null
+	 */
+	public synchronized PermissionResult getResult() {
+		return mState == STATE_GRANTED || mState == STATE_DENIED ? mResult : null;
+	}
+	
+	/**
+	 * 设置结果并回调
+	 *
+	 * @return true设置成功 false请求已结束
+	 */
+	private boolean complete(int state) {
+		List<Callback> callbacks;
+		synchronized (this) {
+			if (mState != STATE_PENDING) {
+				return false;
+			}
+			mState = state;
+			callbacks = new ArrayList<>(mCallbacks);
+			mCallbacks.clear();
+		}
+		mLatch.countDown();
+		for (Callback callback : callbacks) {
+			dispatch(callback, state);
+		}
+		return true;
+	}
+	
+	private void dispatch(final Callback callback, final int state) {
+		Runnable runnable = new Runnable() {
+			@Override
+			public void run() {
+				if (state == STATE_GRANTED) {
+					callback.onGranted();
+				} else if (state == STATE_DENIED) {
+					callback.onDenied();
+				} else {
+					callback.onCancelled();
+				}
+			}
+		};
+		if (mCallbackExecutor == null) {
+			runnable.run();
+		} else {
+			mCallbackExecutor.execute(runnable);
+		}
+	}
+	
+	/**
+	 * 取消请求, 之后收到的结果不再回调
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return complete(STATE_CANCELLED);
+	}
+	
+	@Override
+	public synchronized boolean isCancelled() {
+		return mState == STATE_CANCELLED;
+	}
+	
+	@Override
+	public synchronized boolean isDone() {
+		return mState != STATE_PENDING;
+	}
+	
+	@Override
+	public Boolean get() throws InterruptedException {
+		mLatch.await();
+		return report();
+	}
+	
+	@Override
+	public Boolean get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+		if (!mLatch.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+		return report();
+	}
+	
+	private synchronized Boolean report() {
+		if (mState == STATE_CANCELLED) {
+			throw new CancellationException();
+		}
+		return mState == STATE_GRANTED;
+	}
+	
+	/**
+	 * 请求结果回调
+	 */
+	public static abstract class Callback {
+		
+		/**
+		 * 权限授予
+		 */
+		public abstract void onGranted();
+		
+		/**
+		 * 权限拒绝
+		 */
+		public void onDenied() {
+		}
+		
+		/**
+		 * 请求取消
+		 */
+		public void onCancelled() {
+		}
+	}
+}
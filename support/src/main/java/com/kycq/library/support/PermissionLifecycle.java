@@ -0,0 +1,74 @@
+package com.kycq.library.support;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentActivity;
+import android.support.v4.app.FragmentManager;
+
+/**
+ * 权限请求的生命周期回调
+ * Activity和v4 Fragment销毁时释放等待结果的请求; 框架Fragment在所在Activity销毁时已分离, 随之清除
+ */
+final class PermissionLifecycle extends FragmentManager.FragmentLifecycleCallbacks
+		implements Application.ActivityLifecycleCallbacks {
+	/** 已注册的应用 */
+	private static Application mApplication;
+	
+	/**
+	 * 注册生命周期回调, 重复注册时忽略
+	 *
+	 * @param application 应用
+	 */
+	static synchronized void install(Application application) {
+		if (mApplication == application) {
+			return;
+		}
+		mApplication = application;
+		application.registerActivityLifecycleCallbacks(new PermissionLifecycle());
+	}
+	
+	private PermissionLifecycle() {
+	}
+	
+	@Override
+	public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+		if (activity instanceof FragmentActivity) {
+			((FragmentActivity) activity).getSupportFragmentManager().registerFragmentLifecycleCallbacks(this, true);
+		}
+	}
+	
+	@Override
+	public void onActivityStarted(Activity activity) {
+	}
+	
+	@Override
+	public void onActivityResumed(Activity activity) {
+		// 用户可能已在设置中授予权限
+		PermissionUtils.invalidatePermissions();
+	}
+	
+	@Override
+	public void onActivityPaused(Activity activity) {
+	}
+	
+	@Override
+	public void onActivityStopped(Activity activity) {
+	}
+	
+	@Override
+	public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+	}
+	
+	@Override
+	public void onActivityDestroyed(Activity activity) {
+		PermissionUtils.release(activity);
+		PermissionUtils.purge();
+	}
+	
+	@Override
+	public void onFragmentDestroyed(FragmentManager fragmentManager, Fragment fragment) {
+		PermissionUtils.release(fragment);
+	}
+}
@@ -0,0 +1,230 @@
+package com.kycq.library.support;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 等待结果的权限请求注册表
+ * 以(请求对象, 请求代码)为键, 请求对象按身份比较并以弱引用持有, 读取无需加锁;
+ * 请求对象被回收或已销毁时自动清除对应的请求并通知请求已放弃; 注册时只处理引用队列,
+ * 检查已销毁请求对象的遍历在请求数量翻倍时才进行, 注册的均摊开销为常数
+ *
+ * @param <V> 请求类型
+ */
+final class PermissionRegistry<V extends PermissionRegistry.Entry> {
+	/** 自动分配的最小请求代码 */
+	static final int MIN_AUTO_REQUEST_CODE = 1;
+	/** 自动分配的最大请求代码(Fragment的请求代码只能使用低8位) */
+	static final int MAX_AUTO_REQUEST_CODE = 0xff;
+	/** 注册时检查已销毁请求对象的最小请求数量 */
+	private static final int MIN_SWEEP_SIZE = 16;
+	
+	/** 等待结果的请求 */
+	private final ConcurrentMap<Key, V> mEntries = new ConcurrentHashMap<>();
+	/** 已回收的请求对象 */
+	private final ReferenceQueue<Object> mQueue = new ReferenceQueue<>();
+	/** 下一个自动分配的请求代码(循环使用, 避免刚结束的请求代码立即被复用) */
+	private final AtomicInteger mNextRequestCode = new AtomicInteger();
+	/** 下一次检查已销毁请求对象的请求数量 */
+	private volatile int mSweepSize = MIN_SWEEP_SIZE;
+	
+	/**
+	 * 注册请求, 同时清除已回收的请求
+	 *
+	 * @param component   请求对象
+	 * @param requestCode 请求代码
+	 * @param value       请求
+	 * @return 被替换的请求, 不存在返回null
+	 */
+	V put(Object component, int requestCode, V value) {
+		expunge();
+		return mEntries.put(new Key(component, requestCode, mQueue), value);
+	}
+	
+	/**
+	 * 注册请求并自动分配请求代码, 同一请求对象等待结果的请求代码不重复
+	 *
+	 * @param component 请求对象
+	 * @param value     请求
+	 * @return 请求代码, 没有可用的请求代码返回-1
+	 */
+	int putAuto(Object component, V value) {
+		expunge();
+		int requestCode = allocate(component, value);
+		if (requestCode == -1) {
+			// 可能被已销毁但尚未清除的请求占用
+			purge();
+			requestCode = allocate(component, value);
+		}
+		return requestCode;
+	}
+	
+	private int allocate(Object component, V value) {
+		int count = MAX_AUTO_REQUEST_CODE - MIN_AUTO_REQUEST_CODE + 1;
+		for (int attempt = 0; attempt < count; attempt++) {
+			int requestCode = MIN_AUTO_REQUEST_CODE + (mNextRequestCode.getAndIncrement() & Integer.MAX_VALUE) % count;
+			if (mEntries.putIfAbsent(new Key(component, requestCode, mQueue), value) == null) {
+				return requestCode;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * 获取请求
+	 *
+	 * @param component   请求对象
+	 * @param requestCode 请求代码
+	 * @return 请求, 不存在返回null
+	 */
+	V get(Object component, int requestCode) {
+		return mEntries.get(new Key(component, requestCode, null));
+	}
+	
+	/**
+	 * 移除请求
+	 *
+	 * @param component   请求对象
+	 * @param requestCode 请求代码
+	 * @return 请求, 不存在返回null
+	 */
+	V remove(Object component, int requestCode) {
+		return mEntries.remove(new Key(component, requestCode, null));
+	}
+	
+	/**
+	 * 移除请求对象的所有请求并通知请求已放弃
+	 *
+	 * @param component 请求对象
+	 * @return 移除的请求数量
+	 */
+	int release(Object component) {
+		int count = 0;
+		for (Map.Entry<Key, V> entry : mEntries.entrySet()) {
+			if (entry.getKey().get() == component && release(entry.getKey(), entry.getValue())) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * 等待结果的请求数量(清除已失效的请求后)
+	 *
+	 * @return 请求数量
+	 */
+	int size() {
+		purge();
+		return mEntries.size();
+	}
+	
+	/**
+	 * 等待结果的请求数量(只清除已回收的请求对象, 不遍历)
+	 *
+	 * @return 请求数量
+	 */
+	int approximateSize() {
+		drainQueue();
+		return mEntries.size();
+	}
+	
+	/**
+	 * 清除已回收或已销毁的请求对象的请求并通知请求已放弃
+	 */
+	void purge() {
+		drainQueue();
+		// 请求通常持有监听器, 监听器又持有请求对象, 只依赖弱引用无法回收, 需要检查请求对象是否已销毁
+		for (Map.Entry<Key, V> entry : mEntries.entrySet()) {
+			if (entry.getKey().get() == null || entry.getValue().isStale()) {
+				release(entry.getKey(), entry.getValue());
+			}
+		}
+		mSweepSize = Math.max(MIN_SWEEP_SIZE, mEntries.size() * 2);
+	}
+	
+	/**
+	 * 清除已回收的请求对象的请求, 请求数量翻倍时再清除已销毁的请求对象的请求
+	 */
+	private void expunge() {
+		drainQueue();
+		if (mEntries.size() >= mSweepSize) {
+			purge();
+		}
+	}
+	
+	private void drainQueue() {
+		Reference<?> reference;
+		while ((reference = mQueue.poll()) != null) {
+			V value = mEntries.remove(reference);
+			if (value != null) {
+				value.onReleased();
+			}
+		}
+	}
+	
+	/**
+	 * 移除请求并通知请求已放弃(并发移除时只通知一次)
+	 */
+	private boolean release(Key key, V value) {
+		if (!mEntries.remove(key, value)) {
+			return false;
+		}
+		value.onReleased();
+		return true;
+	}
+	
+	/**
+	 * 注册的请求
+	 */
+	interface Entry {
+		
+		/**
+		 * 请求对象是否已回收或已销毁
+		 *
+		 * @return true已失效 false仍有效
+		 */
+		boolean isStale();
+		
+		/**
+		 * 请求未收到结果即被移除(请求对象已回收、已销毁或已释放)
+		 */
+		void onReleased();
+	}
+	
+	/**
+	 * 请求键值(请求对象按身份比较)
+	 */
+	private static final class Key extends WeakReference<Object> {
+		private final int mRequestCode;
+		private final int mHash;
+		
+		Key(Object component, int requestCode, ReferenceQueue<Object> queue) {
+			super(component, queue);
+			mRequestCode = requestCode;
+			mHash = System.identityHashCode(component) * 31 + requestCode;
+		}
+		
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) object;
+			Object component = get();
+			return component != null && mRequestCode == key.mRequestCode && component == key.get();
+		}
+		
+		@Override
+		public int hashCode() {
+			return mHash;
+		}
+	}
+}
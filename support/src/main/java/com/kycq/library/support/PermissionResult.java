@@ -0,0 +1,121 @@
+package com.kycq.library.support;
+
+/**
+ * 权限请求结果(按权限)
+ * 部分权限被拒绝时已授予的功能可以直接使用, 只需重新请求被拒绝的权限;
+ * 永久拒绝的权限(用户勾选了不再询问或被策略禁止)重新请求时系统不再显示对话框, 需要引导用户到设置中授予
+ */
+public final class PermissionResult {
+	private static final String[] EMPTY = new String[0];
+	
+	/** 已授予的权限 */
+	private final String[] mGranted;
+	/** 被拒绝的权限(包括永久拒绝的权限) */
+	private final String[] mDenied;
+	/** 永久拒绝的权限 */
+	private final String[] mPermanentlyDenied;
+	
+	/**
+	 * 构造方法
+	 *
+	 * @param granted           已授予的权限
+	 * @param denied            被拒绝的权限(包括永久拒绝的权限)
+	 * @param permanentlyDenied 永久拒绝的权限
+	 */
+	PermissionResult(String[] granted, String[] denied, String[] permanentlyDenied) {
+		mGranted = granted;
+		mDenied = denied;
+		mPermanentlyDenied = permanentlyDenied;
+	}
+	
+	/**
+	 * 所有权限已授予的结果
+	 *
+	 * @param permissions 权限列表
+	 * @return 请求结果
+	 */
+	static PermissionResult granted(String[] permissions) {
+		return new PermissionResult(permissions, EMPTY, EMPTY);
+	}
+	
+	/**
+	 * 所有权限是否已授予
+	 *
+	 * @return true全部授予 false部分或全部拒绝
+	 */
+	public boolean isAllGranted() {
+		return mDenied.length == 0;
+	}
+	
+	/**
+	 * 权限是否已授予
+	 *
+	 * @param permission 权限
+	 * @return true已授予 false被拒绝或未请求
+	 */
+	public boolean isGranted(String permission) {
+		return contains(mGranted, permission);
+	}
+	
+	/**
+	 * 权限是否被永久拒绝
+	 *
+	 * @param permission 权限
+	 * @return true永久拒绝 false已授予、可重新请求或未请求
+	 */
+	public boolean isPermanentlyDenied(String permission) {
+		return contains(mPermanentlyDenied, permission);
+	}
+	
+	/**
+	 * 已授予的权限
+	 *
+	 * @return 权限列表
+	 */
+	public String[] getGranted() {
+		return mGranted.clone();
+	}
+	
+	/**
+	 * 被拒绝的权限(包括永久拒绝的权限)
+	 *
+	 * @return 权限列表
+	 */
+	public String[] getDenied() {
+		return mDenied.clone();
+	}
+	
+	/**
+	 * 永久拒绝的权限
+	 *
+	 * @return 权限列表
+	 */
+	public String[] getPermanentlyDenied() {
+		return mPermanentlyDenied.clone();
+	}
+	
+	/**
+	 * 可以重新请求的权限(被拒绝但未被永久拒绝)
+	 *
+	 * @return 权限列表
+	 */
+	public String[] getRetryable() {
+		String[] retryable = new String[mDenied.length - mPermanentlyDenied.length];
+		int count = 0;
+		for (String permission : mDenied) {
+			if (!contains(mPermanentlyDenied, permission)) {
+				retryable[count++] = permission;
+			}
+		}
+		return retryable;
+	}
+	
+	private static boolean contains(String[] permissions, String permission) {
+		for (String item : permissions) {
+			if (item.equals(permission)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,277 @@
+package com.kycq.library.support;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 权限名称表
+ * 每个权限名称映射为一个固定的小整数序号, 权限集合以long[]位图表示(第index位对应序号为index的权限),
+ * 检查请求时只做位运算, 不创建集合; 权限名称数量有限(系统权限及应用自定义权限), 序号在进程内不回收
+ */
+final class PermissionTable {
+	/** 每个位图元素的位数 */
+	private static final int WORD_BITS = 64;
+	
+	/** 权限名称 -> 序号 */
+	private final ConcurrentHashMap<String, Integer> mIndices = new ConcurrentHashMap<>();
+	/** 序号 -> 权限名称(写入时复制) */
+	private volatile String[] mNames = new String[WORD_BITS];
+	/** 权限数量(由this同步) */
+	private int mSize;
+	
+	/**
+	 * 获取权限序号, 不存在时分配新序号
+	 *
+	 * @param permission 权限
+	 * @return 序号
+	 */
+	int intern(String permission) {
+		Integer index = mIndices.get(permission);
+		if (index != null) {
+			return index;
+		}
+		synchronized (this) {
+			index = mIndices.get(permission);
+			if (index != null) {
+				return index;
+			}
+			String[] names = mNames;
+			if (mSize == names.length) {
+				names = Arrays.copyOf(names, names.length * 2);
+			}
+			names[mSize] = permission;
+			// 先发布名称再发布序号, 获得序号的线程一定能取得名称
+			mNames = names;
+			mIndices.put(permission, mSize);
+			return mSize++;
+		}
+	}
+	
+	/**
+	 * 获取权限序号
+	 *
+	 * @param permission 权限
+	 * @return 序号, 不存在返回-1
+	 */
+	int indexOf(String permission) {
+		Integer index = mIndices.get(permission);
+		return index == null ? -1 : index;
+	}
+	
+	/**
+	 * 获取权限名称
+	 *
+	 * @param index 序号
+	 * @return 权限
+	 */
+	String name(int index) {
+		return mNames[index];
+	}
+	
+	/**
+	 * 权限数量
+	 *
+	 * @return 权限数量
+	 */
+	synchronized int size() {
+		return mSize;
+	}
+	
+	/**
+	 * 位图转换为权限列表(按序号顺序)
+	 *
+	 * @param bits 位图, 可为null
+	 * @return 权限列表
+	 */
+	String[] toArray(long[] bits) {
+		String[] permissions = new String[cardinality(bits)];
+		if (permissions.length == 0) {
+			return permissions;
+		}
+		String[] names = mNames;
+		int count = 0;
+		for (int word = 0; word < bits.length; word++) {
+			long value = bits[word];
+			while (value != 0) {
+				permissions[count++] = names[word * WORD_BITS + Long.numberOfTrailingZeros(value)];
+				value &= value - 1;
+			}
+		}
+		return permissions;
+	}
+	
+	/**
+	 * 位图是否包含指定序号
+	 *
+	 * @param bits  位图, 可为null
+	 * @param index 序号
+	 * @return true包含 false不包含
+	 */
+	static boolean get(long[] bits, int index) {
+		int word = index / WORD_BITS;
+		return bits != null && word < bits.length && (bits[word] & (1L << index)) != 0;
+	}
+	
+	/**
+	 * 设置位图中的序号, 位图长度不足时返回扩展后的新位图
+	 *
+	 * @param bits  位图, 可为null
+	 * @param index 序号
+	 * @return 位图
+	 */
+	static long[] set(long[] bits, int index) {
+		bits = ensureCapacity(bits, index / WORD_BITS + 1);
+		bits[index / WORD_BITS] |= 1L << index;
+		return bits;
+	}
+	
+	/**
+	 * 清除位图中的序号
+	 *
+	 * @param bits  位图, 可为null
+	 * @param index 序号
+	 * @return 位图
+	 */
+	static long[] clear(long[] bits, int index) {
+		int word = index / WORD_BITS;
+		if (bits != null && word < bits.length) {
+			bits[word] &= ~(1L << index);
+		}
+		return bits;
+	}
+	
+	/**
+	 * 合并位图(结果写入第一个位图), 位图长度不足时返回扩展后的新位图
+	 *
+	 * @param bits  位图, 可为null
+	 * @param other 合并的位图, 可为null
+	 * @return 位图
+	 */
+	static long[] or(long[] bits, long[] other) {
+		if (other == null) {
+			return bits;
+		}
+		bits = ensureCapacity(bits, other.length);
+		for (int word = 0; word < other.length; word++) {
+			bits[word] |= other[word];
+		}
+		return bits;
+	}
+	
+	/**
+	 * 位图交集
+	 *
+	 * @param bits  位图, 可为null
+	 * @param other 位图, 可为null
+	 * @return 新位图, 交集为空返回null
+	 */
+	static long[] and(long[] bits, long[] other) {
+		if (bits == null || other == null) {
+			return null;
+		}
+		long[] result = new long[Math.min(bits.length, other.length)];
+		for (int word = 0; word < result.length; word++) {
+			result[word] = bits[word] & other[word];
+		}
+		return cardinality(result) == 0 ? null : result;
+	}
+	
+	/**
+	 * 位图差集
+	 *
+	 * @param bits  位图, 可为null
+	 * @param other 需要去除的位图, 可为null
+	 * @return 新位图, 差集为空返回null
+	 */
+	static long[] andNot(long[] bits, long[] other) {
+		if (bits == null) {
+			return null;
+		}
+		long[] result = bits.clone();
+		if (other != null) {
+			for (int word = 0; word < Math.min(result.length, other.length); word++) {
+				result[word] &= ~other[word];
+			}
+		}
+		return cardinality(result) == 0 ? null : result;
+	}
+	
+	/**
+	 * 从指定序号开始查找位图中的下一个序号
+	 *
+	 * @param bits  位图, 可为null
+	 * @param index 开始序号
+	 * @return 序号, 不存在返回-1
+	 */
+	static int nextSetBit(long[] bits, int index) {
+		if (bits == null) {
+			return -1;
+		}
+		int word = index / WORD_BITS;
+		if (word >= bits.length) {
+			return -1;
+		}
+		long value = bits[word] & (-1L << index);
+		while (value == 0) {
+			if (++word == bits.length) {
+				return -1;
+			}
+			value = bits[word];
+		}
+		return word * WORD_BITS + Long.numberOfTrailingZeros(value);
+	}
+	
+	/**
+	 * 位图是否包含另一个位图的所有序号
+	 *
+	 * @param bits  位图, 可为null
+	 * @param other 需要包含的位图, 可为null
+	 * @return true全部包含 false不全包含
+	 */
+	static boolean containsAll(long[] bits, long[] other) {
+		if (other == null) {
+			return true;
+		}
+		for (int word = 0; word < other.length; word++) {
+			long value = bits != null && word < bits.length ? bits[word] : 0;
+			if ((other[word] & ~value) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * 位图包含的序号数量
+	 *
+	 * @param bits 位图, 可为null
+	 * @return 序号数量
+	 */
+	static int cardinality(long[] bits) {
+		if (bits == null) {
+			return 0;
+		}
+		int count = 0;
+		for (long value : bits) {
+			count += Long.bitCount(value);
+		}
+		return count;
+	}
+	
+	/**
+	 * 确保位图长度, 长度不足时返回扩展后的新位图
+	 *
+	 * @param bits  位图, 可为null
+	 * @param words 位图长度
+	 * @return 位图
+	 */
+	static long[] ensureCapacity(long[] bits, int words) {
+		if (bits == null) {
+			return new long[words];
+		}
+		if (bits.length < words) {
+			return Arrays.copyOf(bits, words);
+		}
+		return bits;
+	}
+}
@@ -0,0 +1,70 @@
+package com.kycq.library.support;
+
+/**
+ * 权限请求跟踪
+ * 通过{@link PermissionUtils#setTracer(PermissionTracer)}设置, 未设置时每个阶段只有一次volatile读取的开销(不记录时间);
+ * 回调在主线程执行, 不要执行耗时操作. 时间单位为纳秒
+ */
+public abstract class PermissionTracer {
+	
+	/**
+	 * 请求检查完成
+	 *
+	 * @param permissions 请求的权限
+	 * @param checkCount  查询系统的次数(未命中缓存的权限数量)
+	 */
+	public void onChecked(String[] permissions, int checkCount) {
+	}
+	
+	/**
+	 * 显示权限请求理由
+	 *
+	 * @param permissions 需要显示请求理由的权限
+	 */
+	public void onRationale(String[] permissions) {
+	}
+	
+	/**
+	 * 发起系统请求(显示系统对话框)
+	 *
+	 * @param permissions 请求的权限(合并后)
+	 * @param requestTime 从第一个请求到发起系统请求的时间
+	 */
+	public void onSystemRequest(String[] permissions, long requestTime) {
+	}
+	
+	/**
+	 * 收到系统请求结果
+	 *
+	 * @param permissions 请求的权限
+	 * @param dialogTime  从发起系统请求到收到结果的时间
+	 * @param totalTime   从第一个请求到收到结果的时间
+	 */
+	public void onSystemResult(String[] permissions, long dialogTime, long totalTime) {
+	}
+	
+	/**
+	 * 权限授予(系统请求结果)
+	 *
+	 * @param permission 权限
+	 */
+	public void onGranted(String permission) {
+	}
+	
+	/**
+	 * 权限拒绝(系统请求结果)
+	 *
+	 * @param permission  权限
+	 * @param permanently 是否永久拒绝
+	 */
+	public void onDenied(String permission, boolean permanently) {
+	}
+	
+	/**
+	 * 等待结果的请求数量变化
+	 *
+	 * @param size 请求数量
+	 */
+	public void onRegistrySize(int size) {
+	}
+}
@@ -2,25 +2,35 @@ package com.kycq.library.support;
 
 import android.annotation.TargetApi;
 import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.support.annotation.RequiresApi;
 import android.support.v4.app.ActivityCompat;
 import android.support.v4.app.Fragment;
 import android.support.v4.content.ContextCompat;
-import android.support.v4.util.ArrayMap;
 
-import java.lang.ref.SoftReference;
-import java.util.ArrayList;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executor;
 
 public abstract class PermissionUtils {
-	/** 权限请求映射 */
-	private static final Map<Object, Map<Integer, PermissionUtils>> mPermissionsMap = new WeakHashMap<>();
+	/** 自动分配请求代码 */
+	static final int AUTO_REQUEST_CODE = -1;
+	
+	/** 权限名称表 */
+	private static final PermissionTable mPermissionTable = new PermissionTable();
+	/** 等待结果的权限请求 */
+	private static final PermissionRegistry<PermissionCoalescer.Batch> mRegistry = new PermissionRegistry<>();
+	/** 权限请求合并 */
+	private static final PermissionCoalescer mCoalescer = new PermissionCoalescer(mPermissionTable, mRegistry);
+	/** 权限状态缓存 */
+	private static final PermissionCache mPermissionCache = new PermissionCache(mPermissionTable);
+	/** 权限请求跟踪 */
+	private static volatile PermissionTracer mTracer;
 	
 	/** 权限请求对象 */
-	protected SoftReference<Object> mRequestReference;
+	protected WeakReference<Object> mRequestReference;
 	/** 权限请求代码 */
 	protected int mRequestCode;
 	/** 权限请求监听器 */
@@ -29,18 +39,18 @@ public abstract class PermissionUtils {
 	/**
 	 * 构造方法
 	 */
-	private PermissionUtils() {
+	PermissionUtils() {
 	}
 	
 	
 	/**
-	 * 构建权限请求工具
+	 * 构建权限请求工具(每次系统请求自动分配不重复的请求代码)
 	 *
 	 * @param activity 权限请求对象
 	 * @return 权限请求工具
 	 */
 	public static PermissionUtils build(Activity activity) {
-		return build(activity, 0);
+		return build(activity, AUTO_REQUEST_CODE);
 	}
 	
 	/**
@@ -55,13 +65,13 @@ public abstract class PermissionUtils {
 	}
 	
 	/**
-	 * 构建权限请求工具
+	 * 构建权限请求工具(每次系统请求自动分配不重复的请求代码)
 	 *
 	 * @param fragment 权限请求对象
 	 * @return 权限请求工具
 	 */
 	public static PermissionUtils build(Fragment fragment) {
-		return new FragmentV4PermissionUtils(fragment, 0);
+		return new FragmentV4PermissionUtils(fragment, AUTO_REQUEST_CODE);
 	}
 	
 	/**
@@ -76,14 +86,14 @@ public abstract class PermissionUtils {
 	}
 	
 	/**
-	 * 构建权限请求工具
+	 * 构建权限请求工具(每次系统请求自动分配不重复的请求代码)
 	 *
 	 * @param fragment 权限请求对象
 	 * @return 权限请求工具
 	 */
 	@TargetApi(Build.VERSION_CODES.M)
 	public static PermissionUtils build(android.app.Fragment fragment) {
-		return new FragmentPermissionUtils(fragment, 0);
+		return new FragmentPermissionUtils(fragment, AUTO_REQUEST_CODE);
 	}
 	
 	/**
@@ -133,6 +143,32 @@ public abstract class PermissionUtils {
 		requestPermissions(false, permissions);
 	}
 	
+	/**
+	 * 请求权限(不显示请求理由, 不需要设置监听器)
+	 *
+	 * @param permissions 权限列表
+	 * @return 请求结果, 回调在收到结果的线程(主线程)执行
+	 * @see #request(Executor, String...)
+	 */
+	public PermissionFuture request(String... permissions) {
+		return request(null, permissions);
+	}
+	
+	/**
+	 * 请求权限(不显示请求理由, 不需要设置监听器)
+	 *
+	 * @param callbackExecutor 回调执行器, 为null时在收到结果的线程(主线程)回调
+	 * @param permissions      权限列表
+	 * @return 请求结果
+	 */
+	public PermissionFuture request(Executor callbackExecutor, String... permissions) {
+		PermissionFuture future = new PermissionFuture(callbackExecutor);
+		if (!requestPermissions(false, future.mListener, permissions)) {
+			future.cancel(false);
+		}
+		return future;
+	}
+	
 	/**
 	 * 请求权限
 	 *
@@ -143,40 +179,100 @@ public abstract class PermissionUtils {
 		if (mOnPermissionListener == null) {
 			throw new NullPointerException("you must set OnPermissionListener before requestPermissions");
 		}
-		
-		ArrayList<String> deniedPermissions = new ArrayList<>();
-		ArrayList<String> rationalePermissions = new ArrayList<>();
+		requestPermissions(isRationale, mOnPermissionListener, permissions);
+	}
+	
+	/**
+	 * 请求权限
+	 * 权限以序号位图检查, 全部已授予时不创建任何对象, 只在发起系统请求或显示请求理由时转换为权限列表
+	 *
+	 * @param isRationale 是否显示请求理由 true显示 false不显示
+	 * @param listener    权限请求监听器
+	 * @param permissions 权限列表
+	 * @return true已请求 false请求对象已回收
+	 */
+	private boolean requestPermissions(boolean isRationale, OnPermissionListener listener, String... permissions) {
+		long[] deniedPermissions = null;
+		long[] rationalePermissions = null;
+		int checkCount = 0;
 		for (String permission : permissions) {
-			if (checkSelfPermission(permission)) {
-				deniedPermissions.add(permission);
-				if (isRationale && shouldShowRequestPermissionRationale(permission)) {
-					rationalePermissions.add(permission);
+			int index = mPermissionTable.intern(permission);
+			Boolean granted = mPermissionCache.get(index);
+			if (granted == null) {
+				checkCount++;
+				granted = checkPermission(index, permission);
+			}
+			if (!granted) {
+				deniedPermissions = PermissionTable.set(deniedPermissions, index);
+				if (isRationale) {
+					checkCount++;
+					if (shouldShowRequestPermissionRationale(permission)) {
+						rationalePermissions = PermissionTable.set(rationalePermissions, index);
+					}
 				}
 			}
 		}
 		
-		if (deniedPermissions.isEmpty()) {
-			mOnPermissionListener.onGranted();
+		PermissionTracer tracer = mTracer;
+		if (tracer != null) {
+			tracer.onChecked(permissions, checkCount);
+			if (rationalePermissions != null) {
+				tracer.onRationale(mPermissionTable.toArray(rationalePermissions));
+			}
+		}
+		
+		if (deniedPermissions == null) {
+			listener.onResult(PermissionResult.granted(permissions));
 		} else {
-			if (rationalePermissions.isEmpty()) {
-				Object key = mRequestReference.get();
-				if (key == null) {
-					return;
+			if (rationalePermissions == null) {
+				Object host = getHost();
+				if (host == null) {
+					return false;
 				}
 				
-				Map<Integer, PermissionUtils> map = mPermissionsMap.get(key);
-				if (map == null) {
-					map = new ArrayMap<>();
-					mPermissionsMap.put(key, map);
+				// 同一界面同一帧内的请求合并为一次系统请求, 结果中需要包含已授予的权限
+				long[] requestedPermissions = null;
+				for (String permission : permissions) {
+					requestedPermissions = PermissionTable.set(requestedPermissions, mPermissionTable.intern(permission));
 				}
-				map.put(mRequestCode, this);
-				requestPermissions(deniedPermissions.toArray(new String[deniedPermissions.size()]), mRequestCode);
+				mCoalescer.enqueue(this, listener, host, requestedPermissions, deniedPermissions);
 			} else {
-				mOnPermissionListener.onRationale(rationalePermissions.toArray(new String[rationalePermissions.size()]));
+				listener.onRationale(mPermissionTable.toArray(rationalePermissions));
 			}
 		}
+		return true;
 	}
 	
+	/**
+	 * 查询系统检查权限并缓存结果
+	 *
+	 * @param index      权限序号
+	 * @param permission 权限
+	 * @return true权限授予 false权限拒绝
+	 */
+	private boolean checkPermission(int index, String permission) {
+		boolean denied = checkSelfPermission(permission);
+		// 请求对象已回收时检查结果无效, 不缓存
+		if (mRequestReference.get() != null) {
+			mPermissionCache.put(index, !denied);
+		}
+		return !denied;
+	}
+	
+	/**
+	 * 权限请求所在界面(用于合并同一界面的请求)
+	 *
+	 * @return 界面, 已回收返回null
+	 */
+	abstract Object getHost();
+	
+	/**
+	 * 权限请求对象是否已回收或已销毁
+	 *
+	 * @return true已失效 false仍有效
+	 */
+	abstract boolean isStale();
+	
 	/**
 	 * 检查权限是否已授予
 	 *
@@ -240,6 +336,158 @@ public abstract class PermissionUtils {
 		return onPermissionsResult(fragment, requestCode, permissions, grantResults);
 	}
 	
+	/**
+	 * 检查权限是否已授予(优先使用缓存的权限状态)
+	 *
+	 * @param context    上下文
+	 * @param permission 权限
+	 * @return true权限授予 false权限拒绝
+	 */
+	public static boolean isPermissionGranted(Context context, String permission) {
+		Boolean granted = mPermissionCache.get(permission);
+		if (granted == null) {
+			granted = ContextCompat.checkSelfPermission(context, permission) == PackageManager.PERMISSION_GRANTED;
+			mPermissionCache.put(permission, granted);
+		}
+		return granted;
+	}
+	
+	/**
+	 * 重新检查权限并一次性更新缓存
+	 *
+	 * @param context     上下文
+	 * @param permissions 权限列表
+	 */
+	public static void refreshPermissions(Context context, String... permissions) {
+		mPermissionCache.putAll(permissions, checkPermissions(context, permissions), permissions.length);
+	}
+	
+	/**
+	 * 在后台线程预先检查权限并发布到缓存(在Application.onCreate中调用)
+	 * 之后主线程的权限检查直接使用缓存结果, 预检查完成前的检查仍会直接查询
+	 *
+	 * @param context     上下文
+	 * @param permissions 权限列表
+	 */
+	public static void prewarm(Context context, final String... permissions) {
+		final Context applicationContext = context.getApplicationContext();
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				boolean[] granted = checkPermissions(applicationContext, permissions);
+				// 预检查期间可能已收到请求结果, 不覆盖已缓存的状态
+				mPermissionCache.putAllIfAbsent(permissions, granted, permissions.length);
+			}
+		}, "PermissionUtils-prewarm");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+	
+	/**
+	 * 检查权限列表
+	 *
+	 * @param context     上下文
+	 * @param permissions 权限列表
+	 * @return 是否授予列表
+	 */
+	private static boolean[] checkPermissions(Context context, String[] permissions) {
+		boolean[] granted = new boolean[permissions.length];
+		for (int index = 0; index < permissions.length; index++) {
+			granted[index] = ContextCompat.checkSelfPermission(context, permissions[index]) == PackageManager.PERMISSION_GRANTED;
+		}
+		return granted;
+	}
+	
+	/**
+	 * 使缓存的拒绝状态失效(在onResume中调用, 用户可能已在设置中授予权限)
+	 * 已授予状态保持有效, 权限被撤销时系统会结束进程
+	 */
+	public static void invalidatePermissions() {
+		mPermissionCache.invalidate();
+	}
+	
+	/**
+	 * 设置权限请求跟踪(用于统计请求耗时和授予率)
+	 *
+	 * @param tracer 权限请求跟踪, 为null时取消跟踪
+	 */
+	public static void setTracer(PermissionTracer tracer) {
+		mTracer = tracer;
+	}
+	
+	/**
+	 * 获取权限请求跟踪
+	 *
+	 * @return 权限请求跟踪, 未设置返回null
+	 */
+	static PermissionTracer getTracer() {
+		return mTracer;
+	}
+	
+	/**
+	 * 设置合并请求的执行器
+	 *
+	 * @param executor 执行器, 为null时使用主线程Handler
+	 */
+	static void setCoalesceExecutor(Executor executor) {
+		mCoalescer.setExecutor(executor);
+	}
+	
+	/**
+	 * 注册生命周期回调(在Application.onCreate中调用)
+	 * 界面销毁时自动释放等待结果的请求, 返回界面时使缓存的拒绝状态失效,
+	 * 之后不需要再手动调用{@link #release(Activity)}和{@link #invalidatePermissions()}
+	 *
+	 * @param application 应用
+	 */
+	public static void install(Application application) {
+		PermissionLifecycle.install(application);
+	}
+	
+	/**
+	 * 等待发起和等待结果的请求数量(用于检查未释放的请求)
+	 *
+	 * @return 请求数量
+	 */
+	public static int getPendingCount() {
+		return mRegistry.size() + mCoalescer.getPendingCount();
+	}
+	
+	/**
+	 * 清除已回收或已销毁的请求对象的请求
+	 */
+	static void purge() {
+		mRegistry.purge();
+	}
+	
+	/**
+	 * 释放权限请求对象的所有等待结果的请求(在onDestroy中调用)
+	 *
+	 * @param activity 权限请求对象
+	 */
+	public static void release(Activity activity) {
+		mRegistry.release(activity);
+	}
+	
+	/**
+	 * 释放权限请求对象的所有等待结果的请求(在onDestroy中调用)
+	 *
+	 * @param fragment 权限请求对象
+	 */
+	public static void release(Fragment fragment) {
+		mRegistry.release(fragment);
+	}
+	
+	/**
+	 * 释放权限请求对象的所有等待结果的请求(在onDestroy中调用)
+	 *
+	 * @param fragment 权限请求对象
+	 */
+	public static void release(android.app.Fragment fragment) {
+		mRegistry.release(fragment);
+	}
+	
 	/**
 	 * 权限请求结果
 	 *
@@ -249,42 +497,55 @@ public abstract class PermissionUtils {
 	 * @param grantResults 请求结果列表
 	 * @return true已处理 false未处理
 	 */
-	private static boolean onPermissionsResult(Object object, int requestCode, final String[] permissions, int[] grantResults) {
-		Map<Integer, PermissionUtils> map = mPermissionsMap.get(object);
-		if (map == null) {
-			return false;
-		}
-		PermissionUtils permissionUtils = map.remove(requestCode);
-		if (map.isEmpty()) {
-			mPermissionsMap.remove(object);
-		}
-		if (permissionUtils == null) {
+	static boolean onPermissionsResult(Object object, int requestCode, final String[] permissions, int[] grantResults) {
+		PermissionCoalescer.Batch batch = mRegistry.remove(object, requestCode);
+		if (batch == null) {
 			return false;
 		}
 		
-		int index = 0;
-		for (; index < grantResults.length; index++) {
-			if (grantResults[index] != PackageManager.PERMISSION_GRANTED) {
-				break;
+		// 请求被中断时结果为空, 视为拒绝(可重新请求)
+		int count = Math.min(permissions.length, grantResults.length);
+		long[] resultPermissions = null;
+		long[] grantedPermissions = null;
+		for (int index = 0; index < count; index++) {
+			int permission = mPermissionTable.intern(permissions[index]);
+			resultPermissions = PermissionTable.set(resultPermissions, permission);
+			if (grantResults[index] == PackageManager.PERMISSION_GRANTED) {
+				grantedPermissions = PermissionTable.set(grantedPermissions, permission);
 			}
 		}
+		mPermissionCache.putAll(resultPermissions, grantedPermissions, false);
 		
-		if (index == grantResults.length) {
-			permissionUtils.mOnPermissionListener.onGranted();
-		} else {
-			permissionUtils.mOnPermissionListener.onDenied();
+		PermissionTracer tracer = mTracer;
+		if (tracer != null) {
+			long now = System.nanoTime();
+			tracer.onSystemResult(permissions, PermissionCoalescer.Batch.elapsed(batch.mIssueTime, now),
+					PermissionCoalescer.Batch.elapsed(batch.mEnqueueTime, now));
+			tracer.onRegistrySize(mRegistry.approximateSize());
 		}
-		
+		batch.dispatch(mPermissionTable, resultPermissions, grantedPermissions, tracer);
 		return true;
 	}
 	
 	private static class ActivityPermissionUtils extends PermissionUtils {
 		
 		ActivityPermissionUtils(Activity activity, int requestCode) {
-			mRequestReference = new SoftReference<Object>(activity);
+			mRequestReference = new WeakReference<Object>(activity);
 			mRequestCode = requestCode;
 		}
 		
+		@Override
+		Object getHost() {
+			return mRequestReference.get();
+		}
+		
+		@Override
+		boolean isStale() {
+			Activity activity = (Activity) mRequestReference.get();
+			return activity == null || activity.isFinishing()
+					|| (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && activity.isDestroyed());
+		}
+		
 		@Override
 		public boolean checkSelfPermission(String permission) {
 			Activity activity = (Activity) mRequestReference.get();
@@ -310,10 +571,22 @@ public abstract class PermissionUtils {
 	private static class FragmentV4PermissionUtils extends PermissionUtils {
 		
 		FragmentV4PermissionUtils(Fragment fragment, int requestCode) {
-			mRequestReference = new SoftReference<Object>(fragment);
+			mRequestReference = new WeakReference<Object>(fragment);
 			mRequestCode = requestCode;
 		}
 		
+		@Override
+		Object getHost() {
+			Fragment fragment = (Fragment) mRequestReference.get();
+			return fragment == null ? null : fragment.getActivity();
+		}
+		
+		@Override
+		boolean isStale() {
+			Fragment fragment = (Fragment) mRequestReference.get();
+			return fragment == null || fragment.getActivity() == null;
+		}
+		
 		@Override
 		public boolean checkSelfPermission(String permission) {
 			Fragment fragment = (Fragment) mRequestReference.get();
@@ -338,10 +611,22 @@ public abstract class PermissionUtils {
 	private static class FragmentPermissionUtils extends PermissionUtils {
 		
 		FragmentPermissionUtils(android.app.Fragment fragment, int requestCode) {
-			mRequestReference = new SoftReference<Object>(fragment);
+			mRequestReference = new WeakReference<Object>(fragment);
 			mRequestCode = requestCode;
 		}
 		
+		@Override
+		Object getHost() {
+			android.app.Fragment fragment = (android.app.Fragment) mRequestReference.get();
+			return fragment == null ? null : fragment.getActivity();
+		}
+		
+		@Override
+		boolean isStale() {
+			android.app.Fragment fragment = (android.app.Fragment) mRequestReference.get();
+			return fragment == null || fragment.getActivity() == null;
+		}
+		
 		@RequiresApi(Build.VERSION_CODES.M)
 		@Override
 		public boolean checkSelfPermission(String permission) {
@@ -390,6 +675,37 @@ public abstract class PermissionUtils {
 			mPermissionUtils.requestRationale(permissions);
 		}
 		
+		/**
+		 * 重新请求被拒绝的权限(不包括永久拒绝的权限, 不显示请求理由)
+		 *
+		 * @param result 请求结果
+		 * @return true已重新请求 false没有可以重新请求的权限
+		 */
+		public boolean retry(PermissionResult result) {
+			String[] permissions = result.getRetryable();
+			if (permissions.length == 0) {
+				return false;
+			}
+			mPermissionUtils.requestRationale(permissions);
+			return true;
+		}
+		
+		/**
+		 * 权限请求结果(按权限)
+		 * 默认所有权限授予时回调{@link #onGranted()}, 否则回调{@link #onDenied()};
+		 * 重写后可以在部分权限被拒绝时直接使用已授予的权限, 并只重新请求被拒绝的权限
+		 *
+		 * @param result 请求结果
+		 * @see #retry(PermissionResult)
+		 */
+		public void onResult(PermissionResult result) {
+			if (result.isAllGranted()) {
+				onGranted();
+			} else {
+				onDenied();
+			}
+		}
+		
 		/**
 		 * 权限授予
 		 */
@@ -406,6 +722,12 @@ public abstract class PermissionUtils {
 		 * @param permissions 权限列表
 		 */
 		public abstract void onRationale(String... permissions);
+		
+		/**
+		 * 请求已放弃(请求对象在收到结果前被销毁或释放), 不会再回调结果
+		 */
+		public void onCancelled() {
+		}
 	}
 	
 }
@@ -0,0 +1,54 @@
+package com.kycq.library.support;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class Digest128Test {
+	
+	@Test
+	public void md5Digest() throws Exception {
+		Digest128 digest = MD5Utils.digest("abc");
+		assertEquals("900150983cd24fb0d6963f7d28e17f72", digest.toHex());
+		assertEquals(0x900150983cd24fb0L, digest.getHigh());
+		assertEquals(0xd6963f7d28e17f72L, digest.getLow());
+		assertEquals(digest, MD5Utils.digest("xabcx".getBytes("US-ASCII"), 1, 3));
+		assertEquals(MD5Utils.encode("abc"), digest.toString());
+	}
+	
+	@Test
+	public void bytesAndHex() throws Exception {
+		byte[] md = new byte[18];
+		assertTrue(MD5Utils.encode("abc".getBytes("US-ASCII"), 0, 3, md, 2));
+		Digest128 digest = Digest128.fromBytes(md, 2);
+		assertArrayEquals(Arrays.copyOfRange(md, 2, 18), digest.toBytes());
+		assertEquals(digest, Digest128.parseHex("900150983CD24FB0D6963F7D28E17F72"));
+		assertEquals(digest.hashCode(), Digest128.parseHex(digest.toHex()).hashCode());
+	}
+	
+	@Test
+	public void base64() throws Exception {
+		assertEquals("AAAAAAAAAAAAAAAAAAAAAA", new Digest128(0, 0).toBase64());
+		// 900150983cd24fb0d6963f7d28e17f72
+		assertEquals("kAFQmDzST7DWlj99KOF_cg", MD5Utils.digest("abc").toBase64());
+	}
+	
+	@Test
+	public void compareUnsigned() throws Exception {
+		Digest128 small = Digest128.parseHex("7fffffffffffffffffffffffffffffff");
+		Digest128 large = Digest128.parseHex("80000000000000000000000000000000");
+		Digest128 largest = Digest128.parseHex("80000000000000000000000000000001");
+		assertTrue(small.compareTo(large) < 0);
+		assertTrue(large.compareTo(largest) < 0);
+		assertTrue(largest.compareTo(small) > 0);
+		assertEquals(0, large.compareTo(new Digest128(Long.MIN_VALUE, 0)));
+		assertEquals(small.toHex().compareTo(large.toHex()) < 0, small.compareTo(large) < 0);
+	}
+	
+	@Test(expected = NumberFormatException.class)
+	public void parseHex_invalid() throws Exception {
+		Digest128.parseHex("900150983cd24fb0d6963f7d28e17f7g");
+	}
+}
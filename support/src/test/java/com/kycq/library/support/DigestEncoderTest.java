@@ -0,0 +1,124 @@
+package com.kycq.library.support;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class DigestEncoderTest {
+	
+	@Test
+	public void toHex_allByteValues() throws Exception {
+		byte[] data = new byte[256];
+		StringBuilder expected = new StringBuilder();
+		for (int index = 0; index < data.length; index++) {
+			data[index] = (byte) index;
+			expected.append(String.format("%02x", index));
+		}
+		assertEquals(expected.toString(), DigestEncoder.toHex(data));
+		assertEquals(expected.toString().toUpperCase(), DigestEncoder.toHex(data, true));
+		
+		byte[] bytes = new byte[514];
+		DigestEncoder.toHex(data, 0, data.length, bytes, 2, false);
+		assertEquals(expected.toString(), new String(bytes, 2, 512, "US-ASCII"));
+		
+		StringBuilder builder = new StringBuilder("md5=");
+		DigestEncoder.appendHex(builder, data, 250, 6, true);
+		assertEquals("md5=FAFBFCFDFEFF", builder.toString());
+	}
+	
+	@Test
+	public void toHex_long() throws Exception {
+		char[] out = new char[18];
+		DigestEncoder.toHex(0x0123456789abcdefL, out, 1, false);
+		assertEquals("0123456789abcdef", new String(out, 1, 16));
+		DigestEncoder.toHex(-1L, out, 2, true);
+		assertEquals("FFFFFFFFFFFFFFFF", new String(out, 2, 16));
+	}
+	
+	@Test
+	public void toHex_bulk() throws Exception {
+		byte[][] mds = new byte[100][];
+		for (int index = 0; index < mds.length; index++) {
+			mds[index] = MD5UtilsTest.randomBytes(index % 3 == 0 ? 16 : 20);
+		}
+		String[] results = DigestEncoder.toHex(mds, false);
+		StringBuilder expected = new StringBuilder();
+		for (int index = 0; index < mds.length; index++) {
+			assertEquals(DigestEncoder.toHex(mds[index]), results[index]);
+			expected.append(results[index].toUpperCase()).append('\n');
+		}
+		assertEquals(expected.toString(), DigestEncoder.appendHex(new StringBuilder(), mds, '\n', true).toString());
+	}
+	
+	@Test
+	public void toBase64_urlSafeWithoutPadding() throws Exception {
+		for (int length = 0; length < 40; length++) {
+			byte[] data = MD5UtilsTest.randomBytes(length);
+			String expected = base64(data);
+			assertEquals(expected.length(), DigestEncoder.base64Length(length));
+			assertEquals(expected, DigestEncoder.toBase64(data));
+			
+			byte[] bytes = new byte[expected.length() + 1];
+			assertEquals(expected.length(), DigestEncoder.toBase64(data, 0, length, bytes, 1));
+			assertEquals(expected, new String(bytes, 1, expected.length(), "US-ASCII"));
+			assertEquals("x" + expected, DigestEncoder.appendBase64(new StringBuilder("x"), data, 0, length).toString());
+		}
+		byte[] md = MD5UtilsTest.randomBytes(16);
+		assertEquals(22, DigestEncoder.toBase64(md).length());
+		assertEquals(base64(Arrays.copyOfRange(md, 3, 9)), DigestEncoder.toBase64(Arrays.copyOfRange(md, 3, 9)));
+	}
+	
+	@Test
+	public void toBase64_buffersAllocationFree() throws Exception {
+		java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+		long threadId = Thread.currentThread().getId();
+		
+		byte[] md = MD5UtilsTest.randomBytes(16);
+		byte[] bytes = new byte[22];
+		StringBuilder builder = new StringBuilder(64);
+		int count = 100000;
+		for (int index = 0; index < count; index++) {
+			DigestEncoder.toBase64(md, 0, md.length, bytes, 0);
+			builder.setLength(0);
+			DigestEncoder.appendBase64(builder, md, 0, md.length);
+		}
+		
+		long before = allocationBean.getThreadAllocatedBytes(threadId);
+		for (int index = 0; index < count; index++) {
+			md[index & 15]++;
+			assertEquals(22, DigestEncoder.toBase64(md, 0, md.length, bytes, 0));
+			builder.setLength(0);
+			DigestEncoder.appendBase64(builder, md, 0, md.length);
+		}
+		long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+		// 允许测量本身的少量分配, 但不能与调用次数成比例
+		assertTrue("allocated " + allocated + " bytes for " + count + " calls", allocated < count);
+		assertEquals(new String(bytes, "US-ASCII"), builder.toString());
+	}
+	
+	/**
+	 * 逐位编码的URL安全Base64(无填充)
+	 */
+	private static String base64(byte[] data) {
+		String digits = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+		StringBuilder builder = new StringBuilder();
+		int bitCount = data.length * 8;
+		for (int bit = 0; bit < bitCount; bit += 6) {
+			int value = 0;
+			for (int index = bit; index < bit + 6; index++) {
+				int set = index < bitCount ? data[index >> 3] >> (7 - (index & 7)) & 1 : 0;
+				value = value << 1 | set;
+			}
+			builder.append(digits.charAt(value));
+		}
+		return builder.toString();
+	}
+}
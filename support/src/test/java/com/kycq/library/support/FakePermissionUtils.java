@@ -0,0 +1,258 @@
+package com.kycq.library.support;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * 不依赖Android的权限请求工具, 用于在JVM上模拟请求流程
+ */
+class FakePermissionUtils extends PermissionUtils {
+	private final FakeSystem mSystem;
+	
+	FakePermissionUtils(FakeSystem system, FakeComponent component, int requestCode) {
+		mSystem = system;
+		mRequestReference = new WeakReference<Object>(component);
+		mRequestCode = requestCode;
+	}
+	
+	@Override
+	Object getHost() {
+		FakeComponent component = (FakeComponent) mRequestReference.get();
+		return component == null ? null : component.mHost;
+	}
+	
+	@Override
+	boolean isStale() {
+		FakeComponent component = (FakeComponent) mRequestReference.get();
+		return component == null || component.mDestroyed;
+	}
+	
+	@Override
+	boolean checkSelfPermission(String permission) {
+		mSystem.mCheckCount++;
+		return !mSystem.mGranted.contains(permission);
+	}
+	
+	@Override
+	boolean shouldShowRequestPermissionRationale(String permission) {
+		return mSystem.mRationale.contains(permission);
+	}
+	
+	@Override
+	void requestPermissions(String[] permissions, int requestCode) {
+		mSystem.mRequests.add(new SystemRequest(mRequestReference.get(), permissions, requestCode));
+	}
+	
+	/**
+	 * 模拟的系统权限状态
+	 */
+	static class FakeSystem {
+		final Set<String> mGranted = Collections.synchronizedSet(new HashSet<String>());
+		final Set<String> mRationale = Collections.synchronizedSet(new HashSet<String>());
+		final List<SystemRequest> mRequests = Collections.synchronizedList(new ArrayList<SystemRequest>());
+		volatile int mCheckCount;
+		
+		/**
+		 * 用户处理系统请求, 授予指定权限
+		 *
+		 * @param request 系统请求
+		 * @param granted 授予的权限
+		 * @return true已处理 false未处理
+		 */
+		boolean answer(SystemRequest request, String... granted) {
+			Set<String> grantedSet = new HashSet<>();
+			Collections.addAll(grantedSet, granted);
+			int[] grantResults = new int[request.mPermissions.length];
+			for (int index = 0; index < grantResults.length; index++) {
+				boolean isGranted = grantedSet.contains(request.mPermissions[index]);
+				grantResults[index] = isGranted ? 0 : -1;
+				if (isGranted) {
+					mGranted.add(request.mPermissions[index]);
+				}
+			}
+			return PermissionUtils.onPermissionsResult(request.mComponent, request.mRequestCode, request.mPermissions, grantResults);
+		}
+		
+		/**
+		 * 用户处理前系统请求被中断(返回空结果)
+		 *
+		 * @param request 系统请求
+		 * @return true已处理 false未处理
+		 */
+		boolean interrupt(SystemRequest request) {
+			return PermissionUtils.onPermissionsResult(request.mComponent, request.mRequestCode, new String[0], new int[0]);
+		}
+		
+		/**
+		 * 销毁发起过系统请求的请求对象并清除未处理的请求, 避免影响其他测试
+		 */
+		void release() {
+			for (SystemRequest request : mRequests) {
+				((FakeComponent) request.mComponent).mDestroyed = true;
+			}
+			PermissionUtils.purge();
+		}
+	}
+	
+	/**
+	 * 模拟的下一帧, 收集同一帧内提交的合并请求, 由测试控制何时执行
+	 */
+	static class FakeFrame implements Executor {
+		private final FakeSystem mSystem;
+		private final List<Runnable> mTasks = new ArrayList<>();
+		
+		/**
+		 * 构造方法, 替换合并请求的执行器
+		 *
+		 * @param system 模拟的系统权限状态
+		 */
+		FakeFrame(FakeSystem system) {
+			mSystem = system;
+			PermissionUtils.setCoalesceExecutor(this);
+		}
+		
+		@Override
+		public void execute(Runnable command) {
+			mTasks.add(command);
+		}
+		
+		/**
+		 * 执行本帧提交的任务
+		 */
+		void run() {
+			List<Runnable> tasks = new ArrayList<>(mTasks);
+			mTasks.clear();
+			for (Runnable task : tasks) {
+				task.run();
+			}
+		}
+		
+		/**
+		 * 执行剩余任务, 清除未处理的请求并恢复默认执行器, 避免影响其他测试
+		 */
+		void release() {
+			run();
+			mSystem.release();
+			PermissionUtils.setCoalesceExecutor(null);
+		}
+	}
+	
+	/**
+	 * 系统请求
+	 */
+	static class SystemRequest {
+		final Object mComponent;
+		final String[] mPermissions;
+		final int mRequestCode;
+		
+		SystemRequest(Object component, String[] permissions, int requestCode) {
+			mComponent = component;
+			mPermissions = permissions;
+			mRequestCode = requestCode;
+		}
+	}
+	
+	/**
+	 * 模拟的Activity或Fragment
+	 */
+	static class FakeComponent {
+		final Object mHost;
+		volatile boolean mDestroyed;
+		
+		FakeComponent() {
+			mHost = this;
+		}
+		
+		FakeComponent(Object host) {
+			mHost = host;
+		}
+	}
+	
+	/**
+	 * 模拟持有请求对象的注册请求(监听器通常是请求对象的内部类)
+	 */
+	static class FakeEntry implements PermissionRegistry.Entry {
+		final FakeComponent mComponent;
+		int mReleasedCount;
+		
+		FakeEntry(FakeComponent component) {
+			mComponent = component;
+		}
+		
+		@Override
+		public boolean isStale() {
+			return mComponent != null && mComponent.mDestroyed;
+		}
+		
+		@Override
+		public void onReleased() {
+			mReleasedCount++;
+		}
+	}
+	
+	/**
+	 * 触发垃圾回收后仍未回收的对象数量
+	 *
+	 * @param references 弱引用列表
+	 * @return 未回收的数量(最多等待到只剩一个)
+	 */
+	static int countRetained(List<? extends WeakReference<?>> references) throws InterruptedException {
+		int retained = references.size();
+		for (int round = 0; round < 10; round++) {
+			System.gc();
+			Thread.sleep(20);
+			retained = 0;
+			for (WeakReference<?> reference : references) {
+				if (reference.get() != null) {
+					retained++;
+				}
+			}
+			if (retained <= 1) {
+				break;
+			}
+		}
+		return retained;
+	}
+	
+	/**
+	 * 记录回调结果的监听器
+	 */
+	static class RecordingListener extends OnPermissionListener {
+		int mGrantedCount;
+		int mDeniedCount;
+		int mCancelledCount;
+		String[] mRationale;
+		PermissionResult mResult;
+		
+		@Override
+		public void onResult(PermissionResult result) {
+			mResult = result;
+			super.onResult(result);
+		}
+		
+		@Override
+		public void onGranted() {
+			mGrantedCount++;
+		}
+		
+		@Override
+		public void onDenied() {
+			mDeniedCount++;
+		}
+		
+		@Override
+		public void onRationale(String... permissions) {
+			mRationale = permissions;
+		}
+		
+		@Override
+		public void onCancelled() {
+			mCancelledCount++;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.kycq.library.support;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HashUtilsTest {
+	
+	@Test
+	public void xxHash64_referenceValues() throws Exception {
+		assertEquals("ef46db3751d8e999", HashUtils.encode64(new byte[0], 0, 0));
+		assertEquals("44bc2cf5ad770999", HashUtils.encode64("abc".getBytes("US-ASCII"), 0, 3));
+		assertEquals(0xef46db3751d8e999L, HashUtils.xxHash64("", 0, 0, 0));
+	}
+	
+	@Test
+	public void murmur3_128_referenceValues() throws Exception {
+		assertEquals("00000000000000000000000000000000", HashUtils.encode128(new byte[0], 0, 0));
+		assertEquals("cbd8a7b341bd9b025b1e906a48ae1d19", HashUtils.encode128("hello".getBytes("US-ASCII"), 0, 5));
+	}
+	
+	@Test
+	public void charSequence_matchesUtf16le() throws Exception {
+		long[] charHash = new long[2];
+		long[] byteHash = new long[2];
+		for (int length = 0; length < 80; length++) {
+			StringBuilder builder = new StringBuilder("--");
+			for (int index = 0; index < length; index++) {
+				builder.append((char) ('a' + index % 26 + (index % 7 == 0 ? 0x4e00 : 0)));
+			}
+			builder.append("--");
+			byte[] bytes = builder.substring(2, 2 + length).getBytes("UTF-16LE");
+			
+			assertEquals(HashUtils.xxHash64(bytes, 0, bytes.length, 17), HashUtils.xxHash64(builder, 2, 2 + length, 17));
+			HashUtils.murmur3_128(builder, 2, 2 + length, 17, charHash);
+			HashUtils.murmur3_128(bytes, 0, bytes.length, 17, byteHash);
+			assertArrayEquals(byteHash, charHash);
+		}
+	}
+	
+	@Test
+	public void byteRange() throws Exception {
+		byte[] bytes = "--abc--".getBytes("US-ASCII");
+		assertEquals("44bc2cf5ad770999", HashUtils.encode64(bytes, 2, 3));
+		assertEquals(HashUtils.encode128("abc".getBytes("US-ASCII"), 0, 3), HashUtils.encode128(bytes, 2, 3));
+		assertEquals(32, HashUtils.encode128("https://example.com/a.jpg").length());
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void byteRange_outOfBounds() throws Exception {
+		HashUtils.xxHash64(new byte[4], 2, 3, 0);
+	}
+}
@@ -0,0 +1,81 @@
+package com.kycq.library.support;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.*;
+
+public class HmacMD5Test {
+	
+	@Test
+	public void sign_rfc2202() throws Exception {
+		assertEquals("9294727a3638bb1c13f48ef8158bfc9d", new HmacMD5(fill(0x0b, 16)).signHex("Hi There"));
+		assertEquals("750c783e6ab0b503eaa86e310a5db738", MD5Utils.hmac("Jefe").signHex("what do ya want for nothing?"));
+		assertEquals("56be34521d144c88dbb8c733f0e8b3f6", new HmacMD5(fill(0xaa, 16)).signHex(fill(0xdd, 50)));
+		byte[] key = new byte[25];
+		for (int index = 0; index < key.length; index++) {
+			key[index] = (byte) (index + 1);
+		}
+		assertEquals("697eaf0aca3a3aea3a75164746ffaa79", new HmacMD5(key).signHex(fill(0xcd, 50)));
+		assertEquals("56461ef2342edc00f9bab995690efd4c", new HmacMD5(fill(0x0c, 16)).signHex("Test With Truncation"));
+		HmacMD5 hmac = new HmacMD5(fill(0xaa, 80));
+		assertEquals("6b1ab7fe4bd7bf8f0b62e6ce61b9d0cd",
+				hmac.signHex("Test Using Larger Than Block-Size Key - Hash Key First"));
+		assertEquals("6f630fad67cda0ee1fb1f562db3aa53e",
+				hmac.signHex("Test Using Larger Than Block-Size Key and Larger Than One Block-Size Data"));
+	}
+	
+	@Test
+	public void sign_matchesProvider() throws Exception {
+		Random random = new Random(2202);
+		for (int keyLength : new int[]{0, 1, 63, 64, 65, 200}) {
+			byte[] key = new byte[keyLength];
+			random.nextBytes(key);
+			HmacMD5 hmac = new HmacMD5(key);
+			Mac mac = Mac.getInstance("HmacMD5");
+			mac.init(new SecretKeySpec(key.length == 0 ? new byte[1] : key, "HmacMD5"));
+			for (int length : new int[]{0, 1, 55, 56, 64, 65, 1000}) {
+				byte[] message = new byte[length];
+				random.nextBytes(message);
+				if (key.length == 0) {
+					// SecretKeySpec不接受空密钥, 空密钥与单个零字节填充结果相同
+					assertArrayEquals(new HmacMD5(new byte[1]).sign(message), hmac.sign(message));
+					continue;
+				}
+				assertArrayEquals(mac.doFinal(message), hmac.sign(message));
+			}
+		}
+	}
+	
+	@Test
+	public void sign_writesIntoBuffer() throws Exception {
+		HmacMD5 hmac = MD5Utils.hmac("secret");
+		byte[] message = "0123456789payload0123456789".getBytes("UTF-8");
+		byte[] out = new byte[20];
+		hmac.sign(message, 10, 7, out, 4);
+		assertArrayEquals(hmac.sign("payload".getBytes("UTF-8")), Arrays.copyOfRange(out, 4, 20));
+		assertArrayEquals(hmac.sign("payload"), hmac.sign("payload".getBytes("UTF-8")));
+	}
+	
+	@Test
+	public void verify() throws Exception {
+		HmacMD5 hmac = MD5Utils.hmac("secret");
+		byte[] message = "payload".getBytes("UTF-8");
+		byte[] mac = hmac.sign(message);
+		assertTrue(hmac.verify(message, mac));
+		mac[15] ^= 1;
+		assertFalse(hmac.verify(message, mac));
+		assertFalse(hmac.verify(message, new byte[15]));
+	}
+	
+	private static byte[] fill(int value, int length) {
+		byte[] data = new byte[length];
+		Arrays.fill(data, (byte) value);
+		return data;
+	}
+}
@@ -0,0 +1,211 @@
+package com.kycq.library.support;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 吞吐量测试, 结果输出至标准输出
+ * 默认跳过, 通过./gradlew test -Dbenchmark=true运行
+ */
+public class MD5BenchmarkTest {
+	/** 运行基准测试的系统属性 */
+	static final String BENCHMARK_PROPERTY = "benchmark";
+	
+	@BeforeClass
+	public static void checkEnabled() throws Exception {
+		assumeBenchmark();
+	}
+	
+	/**
+	 * 未开启基准测试时跳过
+	 */
+	static void assumeBenchmark() {
+		assumeTrue(Boolean.getBoolean(BENCHMARK_PROPERTY));
+	}
+	
+	@Test
+	public void throughput_largeFile() throws Exception {
+		long size = 2L * 1024 * 1024 * 1024 + 12345;
+		File file = File.createTempFile("md5", ".bin");
+		try {
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+			try {
+				// 稀疏文件, 每隔1MB写入一段数据避免全零内容
+				randomAccessFile.setLength(size);
+				byte[] data = MD5UtilsTest.randomBytes(4096);
+				for (long position = 0; position + data.length <= size; position += 1024 * 1024) {
+					randomAccessFile.seek(position);
+					randomAccessFile.write(data);
+				}
+			} finally {
+				randomAccessFile.close();
+			}
+			
+			long start = System.nanoTime();
+			String fileResult = MD5Utils.encode(file);
+			report("file", size, System.nanoTime() - start);
+			
+			FileInputStream inputStream = new FileInputStream(file);
+			try {
+				start = System.nanoTime();
+				String streamResult = MD5Utils.encode(inputStream);
+				report("stream", size, System.nanoTime() - start);
+				assertNotNull(fileResult);
+				assertEquals(fileResult, streamResult);
+			} finally {
+				inputStream.close();
+			}
+			
+			start = System.nanoTime();
+			assertNotNull(MD5Utils.encodeTree(file));
+			report("tree", size, System.nanoTime() - start);
+		} finally {
+			assertTrue(file.delete());
+		}
+	}
+	
+	@Test
+	public void throughput_engineVersusProvider() throws Exception {
+		MessageDigest provider = MessageDigest.getInstance("MD5");
+		MD5Digest engine = new MD5Digest();
+		byte[] md = new byte[MD5Digest.DIGEST_LENGTH];
+		for (int size = 16; size <= 4096; size *= 4) {
+			byte[] data = MD5UtilsTest.randomBytes(size);
+			int count = 32 * 1024 * 1024 / size;
+			for (int round = 0; round < 3; round++) {
+				long providerNanos = hash(provider, data, md, count);
+				long engineNanos = hash(engine, data, md, count);
+				if (round == 2) {
+					report("provider " + size + "B", (long) size * count, providerNanos);
+					report("MD5Digest " + size + "B", (long) size * count, engineNanos);
+				}
+			}
+			assertArrayEquals(provider.digest(data), engine.digest(data));
+		}
+	}
+	
+	@Test
+	public void throughput_batchVersusLoop() throws Exception {
+		int count = 200000;
+		byte[][] inputs = new byte[count][];
+		byte[][] mds = new byte[count][MD5Digest.DIGEST_LENGTH];
+		for (int index = 0; index < count; index++) {
+			inputs[index] = ("https://example.com/images/" + index + ".jpg").getBytes("UTF-8");
+		}
+		byte[] md = new byte[MD5Digest.DIGEST_LENGTH];
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			for (byte[] input : inputs) {
+				MD5Utils.encode(input, 0, input.length, md, 0);
+			}
+			long loopNanos = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			assertTrue(MD5Utils.encodeAll(inputs, mds));
+			long batchNanos = System.nanoTime() - start;
+			if (round == 4) {
+				System.out.println(String.format("%-24s %10.1f M/s", "encode loop", count / (loopNanos / 1e3)));
+				System.out.println(String.format("%-24s %10.1f M/s", "encodeAll", count / (batchNanos / 1e3)));
+			}
+		}
+		assertArrayEquals(md, mds[count - 1]);
+	}
+	
+	@Test
+	public void throughput_fastHashVersusMD5() throws Exception {
+		int count = 200000;
+		String[] urls = new String[count];
+		for (int index = 0; index < count; index++) {
+			urls[index] = "https://cdn.example.com/images/feed/" + index + "/thumbnail_640x480.jpg?v=" + (index * 31);
+		}
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			for (String url : urls) {
+				MD5Utils.encode(url);
+			}
+			long md5Nanos = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			for (String url : urls) {
+				HashUtils.encode64(url);
+			}
+			long xxNanos = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			for (String url : urls) {
+				HashUtils.encode128(url);
+			}
+			long murmurNanos = System.nanoTime() - start;
+			if (round == 4) {
+				System.out.println(String.format("%-24s %10.1f M/s", "MD5Utils.encode", count / (md5Nanos / 1e3)));
+				System.out.println(String.format("%-24s %10.1f M/s", "HashUtils.encode64", count / (xxNanos / 1e3)));
+				System.out.println(String.format("%-24s %10.1f M/s", "HashUtils.encode128", count / (murmurNanos / 1e3)));
+			}
+		}
+	}
+	
+	@Test
+	public void manifest_rescanUnchangedTree() throws Exception {
+		File root = File.createTempFile("manifest", "");
+		assertTrue(root.delete());
+		byte[] data = MD5UtilsTest.randomBytes(4096);
+		long lastModified = System.currentTimeMillis() - 60000;
+		for (int index = 0; index < 10000; index++) {
+			File file = new File(root, "dir" + index / 100 + "/file" + index);
+			file.getParentFile().mkdirs();
+			FileOutputStream outputStream = new FileOutputStream(file);
+			outputStream.write(data);
+			outputStream.close();
+			file.setLastModified(lastModified);
+		}
+		File indexFile = new File(root.getPath() + ".index");
+		try {
+			MD5Manifest manifest = new MD5Manifest(root);
+			long start = System.nanoTime();
+			manifest.scan();
+			long fullNanos = System.nanoTime() - start;
+			manifest.save(indexFile);
+			
+			long rescanNanos = 0;
+			for (int round = 0; round < 5; round++) {
+				start = System.nanoTime();
+				manifest = MD5Manifest.load(root, indexFile);
+				assertTrue(manifest.scan().isEmpty());
+				rescanNanos = System.nanoTime() - start;
+			}
+			System.out.println(String.format("%-24s %10.1f ms", "manifest full scan", fullNanos / 1e6));
+			System.out.println(String.format("%-24s %10.1f ms", "manifest rescan", rescanNanos / 1e6));
+		} finally {
+			indexFile.delete();
+			for (File directory : root.listFiles()) {
+				for (File file : directory.listFiles()) {
+					file.delete();
+				}
+				directory.delete();
+			}
+			root.delete();
+		}
+	}
+	
+	private static long hash(MessageDigest digest, byte[] data, byte[] md, int count) throws Exception {
+		long start = System.nanoTime();
+		for (int index = 0; index < count; index++) {
+			digest.update(data, 0, data.length);
+			digest.digest(md, 0, md.length);
+		}
+		return System.nanoTime() - start;
+	}
+	
+	static void report(String name, long bytes, long nanos) {
+		System.out.println(String.format("%-24s %10.1f MB/s", name, bytes / 1048576.0 / (nanos / 1e9)));
+	}
+}
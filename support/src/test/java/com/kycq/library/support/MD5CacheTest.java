@@ -0,0 +1,62 @@
+package com.kycq.library.support;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MD5CacheTest {
+	
+	@Test
+	public void encode_countsHitsAndMisses() throws Exception {
+		MD5Cache cache = MD5Utils.cached(4);
+		assertEquals("900150983cd24fb0d6963f7d28e17f72", cache.encode("abc"));
+		assertEquals("900150983cd24fb0d6963f7d28e17f72", cache.encode("abc"));
+		assertEquals(MD5Utils.encode("def"), cache.encode("def"));
+		assertNull(cache.encode(null));
+		
+		assertEquals(1, cache.hitCount());
+		assertEquals(2, cache.missCount());
+		assertEquals(0, cache.evictionCount());
+		assertEquals(2, cache.size());
+		assertEquals(4, cache.maxSize());
+	}
+	
+	@Test
+	public void encode_evictsLeastRecentlyUsed() throws Exception {
+		MD5Cache cache = MD5Utils.cached(3);
+		cache.encode("a");
+		cache.encode("b");
+		cache.encode("c");
+		// 访问a后b成为最久未使用
+		cache.encode("a");
+		cache.encode("d");
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.evictionCount());
+		
+		int misses = cache.missCount();
+		cache.encode("a");
+		cache.encode("c");
+		cache.encode("d");
+		assertEquals(misses, cache.missCount());
+		cache.encode("b");
+		assertEquals(misses + 1, cache.missCount());
+		assertEquals(2, cache.evictionCount());
+	}
+	
+	@Test
+	public void encode_failureIsNotCached() throws Exception {
+		final int[] calls = new int[1];
+		MD5Cache cache = new MD5Cache(4) {
+			@Override
+			String encodeUncached(String str) {
+				calls[0]++;
+				return null;
+			}
+		};
+		assertNull(cache.encode("abc"));
+		assertNull(cache.encode("abc"));
+		assertEquals(2, calls[0]);
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.hitCount());
+	}
+}
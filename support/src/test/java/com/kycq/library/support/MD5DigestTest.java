@@ -0,0 +1,129 @@
+package com.kycq.library.support;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MD5DigestTest {
+	
+	@Test
+	public void rfc1321_testSuite() throws Exception {
+		String[][] vectors = {
+				{"", "d41d8cd98f00b204e9800998ecf8427e"},
+				{"a", "0cc175b9c0f1b6a831c399e269772661"},
+				{"abc", "900150983cd24fb0d6963f7d28e17f72"},
+				{"message digest", "f96b697d7cb7938d525a2f31aaf161d0"},
+				{"abcdefghijklmnopqrstuvwxyz", "c3fcd3d76192e4007dfb496cca67e13b"},
+				{"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789", "d174ab98d277d9f5a5611c2c9f419d9f"},
+				{"12345678901234567890123456789012345678901234567890123456789012345678901234567890", "57edf4a22be3c955ac49da2e2107b67a"}
+		};
+		MD5Digest digest = new MD5Digest();
+		for (String[] vector : vectors) {
+			assertEquals(vector[1], toHex(digest.digest(vector[0].getBytes("US-ASCII"))));
+		}
+	}
+	
+	@Test
+	public void matchesProvider() throws Exception {
+		MessageDigest expected = MessageDigest.getInstance("MD5");
+		MD5Digest digest = new MD5Digest();
+		for (int length = 0; length <= 300; length++) {
+			byte[] data = MD5UtilsTest.randomBytes(length);
+			byte[] md = expected.digest(data);
+			
+			// 不同的分段方式
+			assertArrayEquals(md, digest.digest(data));
+			int split = length / 3;
+			digest.update(data, 0, split);
+			digest.update(data, split, length - split);
+			assertArrayEquals(md, digest.digest());
+			for (byte value : data) {
+				digest.update(value);
+			}
+			assertArrayEquals(md, digest.digest());
+			ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+			buffer.put(data).flip();
+			digest.update(buffer);
+			assertFalse(buffer.hasRemaining());
+			assertArrayEquals(md, digest.digest());
+		}
+	}
+	
+	@Test
+	public void cloneKeepsState() throws Exception {
+		MD5Digest digest = new MD5Digest();
+		digest.update("message ".getBytes("US-ASCII"));
+		MD5Digest copy = (MD5Digest) digest.clone();
+		digest.update("digest".getBytes("US-ASCII"));
+		copy.update("digest".getBytes("US-ASCII"));
+		assertEquals("f96b697d7cb7938d525a2f31aaf161d0", toHex(copy.digest()));
+		assertEquals("f96b697d7cb7938d525a2f31aaf161d0", toHex(digest.digest()));
+	}
+	
+	@Test
+	public void snapshotAndRestore() throws Exception {
+		byte[] data = MD5UtilsTest.randomBytes(1000);
+		byte[] expected = new MD5Digest().digest(data);
+		for (int split = 0; split <= data.length; split += 37) {
+			MD5Digest digest = new MD5Digest();
+			digest.update(data, 0, split);
+			byte[] snapshot = digest.snapshot();
+			assertTrue(snapshot.length <= 88);
+			
+			MD5Digest restored = MD5Digest.fromSnapshot(snapshot);
+			assertEquals(split, restored.getByteCount());
+			restored.update(data, split, data.length - split);
+			assertArrayEquals(expected, restored.digest());
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void restore_invalidSnapshot() throws Exception {
+		MD5Digest digest = new MD5Digest();
+		digest.update(new byte[10]);
+		byte[] snapshot = digest.snapshot();
+		new MD5Digest().restore(Arrays.copyOf(snapshot, snapshot.length - 1));
+	}
+	
+	@Test
+	public void resumeFile() throws Exception {
+		byte[] data = MD5UtilsTest.randomBytes(200000);
+		MD5Digest digest = new MD5Digest();
+		digest.update(data, 0, 123457);
+		byte[] snapshot = digest.snapshot();
+		
+		File file = MD5UtilsTest.createFile(data);
+		try {
+			MD5Digest resumed = MD5Utils.resume(snapshot, file);
+			assertNotNull(resumed);
+			assertEquals(data.length, resumed.getByteCount());
+			assertEquals(MD5Utils.encode(file), toHex(resumed.digest()));
+		} finally {
+			assertTrue(file.delete());
+		}
+	}
+	
+	@Test
+	public void providerFallback() throws Exception {
+		MD5Utils.setUseProvider(true);
+		try {
+			assertEquals("900150983cd24fb0d6963f7d28e17f72", MD5Utils.encode("abc"));
+		} finally {
+			MD5Utils.setUseProvider(false);
+		}
+		assertEquals("900150983cd24fb0d6963f7d28e17f72", MD5Utils.encode("abc"));
+	}
+	
+	static String toHex(byte[] md) {
+		StringBuilder builder = new StringBuilder();
+		for (byte value : md) {
+			builder.append(String.format("%02x", value & 0xff));
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,300 @@
+package com.kycq.library.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class MD5DiskCacheTest {
+	private File mDirectory;
+	
+	@Before
+	public void setUp() throws Exception {
+		mDirectory = File.createTempFile("md5cache", "");
+		assertTrue(mDirectory.delete());
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		MD5DiskCache.open(mDirectory, 1).delete();
+		assertFalse(mDirectory.exists());
+	}
+	
+	@Test
+	public void put_storesFileInShardDirectory() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 1024);
+		byte[] data = MD5UtilsTest.randomBytes(100);
+		File file = cache.put("key", new ByteArrayInputStream(data));
+		
+		String md5 = MD5Utils.encode("key");
+		assertEquals(md5, file.getName());
+		assertEquals(new File(new File(mDirectory, md5.substring(0, 2)), md5), file);
+		assertEquals(file, cache.get("key"));
+		assertEquals(MD5Utils.encode(data), MD5Utils.encode(file));
+		assertEquals(100, cache.size());
+		assertNull(cache.get("missing"));
+		cache.close();
+	}
+	
+	@Test
+	public void putContent_deduplicatesSameContent() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 1024);
+		byte[] data = MD5UtilsTest.randomBytes(100);
+		Digest128 first = cache.putContent(new ByteArrayInputStream(data));
+		Digest128 second = cache.putContent(new ByteArrayInputStream(data));
+		
+		assertEquals(MD5Utils.encode(data), first.toHex());
+		assertEquals(first, second);
+		assertEquals(1, cache.getEntryCount());
+		assertEquals(100, cache.size());
+		assertEquals(first.toHex(), cache.getContent(first).getName());
+		cache.close();
+	}
+	
+	@Test
+	public void put_evictsLeastRecentlyUsed() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 300);
+		cache.put("a", new ByteArrayInputStream(new byte[100]));
+		cache.put("b", new ByteArrayInputStream(new byte[100]));
+		cache.put("c", new ByteArrayInputStream(new byte[100]));
+		File fileA = cache.get("a");
+		File fileB = cache.get("b");
+		cache.get("a");
+		cache.put("d", new ByteArrayInputStream(new byte[100]));
+		cache.put("e", new ByteArrayInputStream(new byte[100]));
+		
+		assertNull(cache.get("b"));
+		assertNull(cache.get("c"));
+		assertNotNull(cache.get("a"));
+		assertTrue(fileA.exists());
+		assertFalse(fileB.exists());
+		assertEquals(300, cache.size());
+		cache.close();
+	}
+	
+	@Test
+	public void open_restoresIndexFromJournal() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 300);
+		cache.put("a", new ByteArrayInputStream(new byte[100]));
+		cache.put("b", new ByteArrayInputStream(new byte[100]));
+		cache.put("c", new ByteArrayInputStream(new byte[100]));
+		cache.put("b", new ByteArrayInputStream(new byte[50]));
+		cache.remove("c");
+		cache.get("a");
+		cache.close();
+		
+		cache = MD5DiskCache.open(mDirectory, 300);
+		assertEquals(2, cache.getEntryCount());
+		assertEquals(150, cache.size());
+		assertNull(cache.get("c"));
+		// a最近访问, 应先淘汰b
+		cache.put("d", new ByteArrayInputStream(new byte[200]));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		cache.close();
+	}
+	
+	@Test
+	public void open_ignoresTruncatedLastLine() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 1024);
+		cache.put("a", new ByteArrayInputStream(new byte[100]));
+		cache.close();
+		
+		OutputStream outputStream = new FileOutputStream(new File(mDirectory, "journal"), true);
+		outputStream.write("P 0123".getBytes("UTF-8"));
+		outputStream.close();
+		
+		cache = MD5DiskCache.open(mDirectory, 1024);
+		assertEquals(1, cache.getEntryCount());
+		assertNotNull(cache.get("a"));
+		cache.close();
+	}
+	
+	@Test
+	public void open_appendsAfterTruncatedLastLine() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 1024);
+		cache.put("a", new ByteArrayInputStream(new byte[100]));
+		cache.close();
+		
+		OutputStream outputStream = new FileOutputStream(new File(mDirectory, "journal"), true);
+		outputStream.write("P 0123".getBytes("UTF-8"));
+		outputStream.close();
+		
+		cache = MD5DiskCache.open(mDirectory, 1024);
+		cache.put("b", new ByteArrayInputStream(new byte[100]));
+		cache.put("c", new ByteArrayInputStream(new byte[100]));
+		cache.close();
+		
+		cache = MD5DiskCache.open(mDirectory, 1024);
+		assertEquals(3, cache.getEntryCount());
+		assertEquals(300, cache.size());
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("b"));
+		assertNotNull(cache.get("c"));
+		cache.close();
+	}
+	
+	@Test
+	public void open_dropsUnterminatedLastLine() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 1024);
+		cache.put("a", new ByteArrayInputStream(new byte[100]));
+		File file = cache.put("b", new ByteArrayInputStream(new byte[200]));
+		cache.close();
+		
+		// 模拟写入长度时中断: 格式正确但长度被截断, 缓存文件已存在
+		File journalFile = new File(mDirectory, "journal");
+		RandomAccessFile randomAccessFile = new RandomAccessFile(journalFile, "rw");
+		randomAccessFile.setLength(randomAccessFile.length() - 3);
+		randomAccessFile.close();
+		
+		cache = MD5DiskCache.open(mDirectory, 1024);
+		assertEquals(1, cache.getEntryCount());
+		assertEquals(100, cache.size());
+		assertNull(cache.get("b"));
+		assertFalse(file.exists());
+		cache.put("c", new ByteArrayInputStream(new byte[100]));
+		cache.close();
+		
+		cache = MD5DiskCache.open(mDirectory, 1024);
+		assertEquals(2, cache.getEntryCount());
+		cache.close();
+	}
+	
+	@Test
+	public void open_rebuildsCorruptJournal() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 1024);
+		cache.put("a", new ByteArrayInputStream(new byte[100]));
+		cache.close();
+		
+		OutputStream outputStream = new FileOutputStream(new File(mDirectory, "journal"));
+		outputStream.write("corrupt\n".getBytes("UTF-8"));
+		outputStream.close();
+		
+		cache = MD5DiskCache.open(mDirectory, 1024);
+		assertEquals(0, cache.getEntryCount());
+		assertEquals(0, cache.size());
+		cache.close();
+	}
+	
+	@Test
+	public void journal_compactsRedundantOperations() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 1024);
+		cache.put("a", new ByteArrayInputStream(new byte[100]));
+		for (int index = 0; index < 5000; index++) {
+			cache.get("a");
+		}
+		cache.close();
+		assertTrue(new File(mDirectory, "journal").length() < 2000 * 35);
+		
+		cache = MD5DiskCache.open(mDirectory, 1024);
+		assertEquals(100, cache.size());
+		cache.close();
+	}
+	
+	@Test
+	public void open_deletesUncommittedWrites() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 1024);
+		File fileA = cache.put("a", new ByteArrayInputStream(new byte[100]));
+		File fileB = cache.put("b", new ByteArrayInputStream(new byte[100]));
+		cache.close();
+		
+		// 模拟重命名后记录写入前中断: 新文件c和覆盖的文件b都没有写入记录
+		String md5C = MD5Utils.encode("c");
+		File fileC = new File(new File(mDirectory, md5C.substring(0, 2)), md5C);
+		assertTrue(fileC.getParentFile().mkdirs() || fileC.getParentFile().isDirectory());
+		OutputStream outputStream = new FileOutputStream(fileC);
+		outputStream.write(new byte[500]);
+		outputStream.close();
+		outputStream = new FileOutputStream(new File(mDirectory, "journal"), true);
+		outputStream.write(("W " + md5C + "\nW " + MD5Utils.encode("b") + "\n").getBytes("UTF-8"));
+		outputStream.close();
+		
+		cache = MD5DiskCache.open(mDirectory, 1024);
+		assertEquals(1, cache.getEntryCount());
+		assertEquals(100, cache.size());
+		assertFalse(fileB.exists());
+		assertFalse(fileC.exists());
+		assertEquals(fileA, cache.get("a"));
+		cache.close();
+		
+		cache = MD5DiskCache.open(mDirectory, 1024);
+		assertEquals(1, cache.getEntryCount());
+		cache.close();
+	}
+	
+	@Test
+	public void put_largerThanMaxSizeReturnsNull() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 100);
+		File fileA = cache.put("a", new ByteArrayInputStream(new byte[50]));
+		assertNull(cache.put("b", new ByteArrayInputStream(new byte[200])));
+		assertNull(cache.get("b"));
+		assertEquals(fileA, cache.get("a"));
+		assertEquals(50, cache.size());
+		
+		Digest128 md5 = cache.putContent(new ByteArrayInputStream(new byte[300]));
+		assertNull(cache.getContent(md5));
+		assertEquals(50, cache.size());
+		cache.close();
+	}
+	
+	@Test
+	public void journal_recoversFromFailedRebuild() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 1024);
+		cache.put("a", new ByteArrayInputStream(new byte[100]));
+		// 临时日志路径被目录占用时重建失败
+		File tempJournal = new File(mDirectory, "journal.tmp");
+		assertTrue(tempJournal.mkdir());
+		try {
+			for (int index = 0; index < 5000; index++) {
+				cache.get("a");
+			}
+			fail();
+		} catch (IOException ignored) {
+		}
+		assertTrue(tempJournal.delete());
+		
+		File fileB = cache.put("b", new ByteArrayInputStream(new byte[100]));
+		assertNotNull(fileB);
+		assertEquals(fileB, cache.get("b"));
+		cache.close();
+		
+		cache = MD5DiskCache.open(mDirectory, 1024);
+		assertEquals(2, cache.getEntryCount());
+		assertEquals(200, cache.size());
+		cache.close();
+	}
+	
+	@Test
+	public void put_failedWriteLeavesNoEntry() throws Exception {
+		MD5DiskCache cache = MD5DiskCache.open(mDirectory, 1024);
+		try {
+			cache.put("a", new InputStream() {
+				private int mCount;
+				
+				@Override
+				public int read() throws IOException {
+					if (mCount++ < 10) {
+						return 1;
+					}
+					throw new IOException("broken");
+				}
+			});
+			fail();
+		} catch (IOException ignored) {
+		}
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+		String[] tempFiles = new File(mDirectory, "tmp").list();
+		assertEquals(0, tempFiles == null ? 0 : tempFiles.length);
+		cache.close();
+	}
+}
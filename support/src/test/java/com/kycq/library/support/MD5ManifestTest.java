@@ -0,0 +1,137 @@
+package com.kycq.library.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class MD5ManifestTest {
+	private File mRoot;
+	private File mIndexFile;
+	
+	@Before
+	public void setUp() throws Exception {
+		mRoot = File.createTempFile("manifest", "");
+		assertTrue(mRoot.delete());
+		assertTrue(mRoot.mkdirs());
+		mIndexFile = File.createTempFile("manifest", ".index");
+		assertTrue(mIndexFile.delete());
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		deleteRecursively(mRoot);
+		mIndexFile.delete();
+	}
+	
+	@Test
+	public void scan_reportsAddedModifiedRemoved() throws Exception {
+		writeFile("a.txt", "a");
+		writeFile("dir/b.txt", "b");
+		writeFile("dir/sub/c.txt", "c");
+		
+		MD5Manifest manifest = new MD5Manifest(mRoot);
+		MD5Manifest.Changes changes = manifest.scan();
+		assertEquals(Arrays.asList("a.txt", "dir/b.txt", "dir/sub/c.txt"), changes.getAdded());
+		assertEquals(MD5Utils.encode("b"), manifest.getMD5("dir/b.txt"));
+		
+		writeFile("dir/b.txt", "bb");
+		writeFile("d.txt", "d");
+		assertTrue(new File(mRoot, "a.txt").delete());
+		changes = manifest.scan();
+		assertEquals(Collections.singletonList("d.txt"), changes.getAdded());
+		assertEquals(Collections.singletonList("dir/b.txt"), changes.getModified());
+		assertEquals(Collections.singletonList("a.txt"), changes.getRemoved());
+		assertEquals(MD5Utils.encode("bb"), manifest.getMD5("dir/b.txt"));
+		assertNull(manifest.getMD5("a.txt"));
+	}
+	
+	@Test
+	public void scan_skipsUnchangedFiles() throws Exception {
+		File file = writeFile("a.txt", "aaaa");
+		long lastModified = System.currentTimeMillis() - 60000;
+		assertTrue(file.setLastModified(lastModified));
+		
+		MD5Manifest manifest = new MD5Manifest(mRoot);
+		manifest.scan();
+		manifest.save(mIndexFile);
+		
+		// 内容改变但大小和修改时间不变, 不会重新计算
+		writeFile("a.txt", "bbbb");
+		assertTrue(file.setLastModified(lastModified));
+		manifest = MD5Manifest.load(mRoot, mIndexFile);
+		assertTrue(manifest.scan().isEmpty());
+		assertEquals(MD5Utils.encode("aaaa"), manifest.getMD5("a.txt"));
+		
+		// 修改时间变化时重新计算
+		assertTrue(file.setLastModified(lastModified + 1000));
+		MD5Manifest.Changes changes = manifest.scan();
+		assertEquals(Collections.singletonList("a.txt"), changes.getModified());
+		assertEquals(MD5Utils.encode("bbbb"), manifest.getMD5("a.txt"));
+	}
+	
+	@Test
+	public void scan_rehashesRecentlyModifiedFiles() throws Exception {
+		writeFile("a.txt", "aaaa");
+		MD5Manifest manifest = new MD5Manifest(mRoot);
+		manifest.scan();
+		
+		// 修改时间与扫描时间过于接近, 同一时间精度内的修改不能仅凭修改时间判断
+		File file = writeFile("a.txt", "bbbb");
+		assertTrue(file.setLastModified(manifest.get("a.txt").getLastModified()));
+		assertEquals(Collections.singletonList("a.txt"), manifest.scan().getModified());
+	}
+	
+	@Test
+	public void load_restoresSavedManifest() throws Exception {
+		writeFile("a.txt", "a");
+		writeFile("abc/b.txt", "b");
+		writeFile("abd/c.txt", "c");
+		MD5Manifest manifest = new MD5Manifest(mRoot);
+		manifest.scan();
+		manifest.save(mIndexFile);
+		
+		MD5Manifest loaded = MD5Manifest.load(mRoot, mIndexFile);
+		assertEquals(3, loaded.size());
+		assertEquals(manifest.getPaths(), loaded.getPaths());
+		for (String path : manifest.getPaths()) {
+			assertEquals(manifest.get(path).toString(), loaded.get(path).toString());
+		}
+	}
+	
+	@Test
+	public void load_returnsEmptyManifestForCorruptIndex() throws Exception {
+		FileOutputStream outputStream = new FileOutputStream(mIndexFile);
+		outputStream.write(new byte[]{0x4d, 0x44, 0x35, 0x4d, 0, 0, 0, 1, 0});
+		outputStream.close();
+		
+		assertEquals(0, MD5Manifest.load(mRoot, mIndexFile).size());
+		assertEquals(0, MD5Manifest.load(mRoot, new File(mRoot, "missing")).size());
+	}
+	
+	private File writeFile(String path, String content) throws IOException {
+		File file = new File(mRoot, path);
+		file.getParentFile().mkdirs();
+		FileOutputStream outputStream = new FileOutputStream(file);
+		outputStream.write(content.getBytes("UTF-8"));
+		outputStream.close();
+		return file;
+	}
+	
+	private static void deleteRecursively(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+}
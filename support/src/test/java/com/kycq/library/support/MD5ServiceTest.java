@@ -0,0 +1,224 @@
+package com.kycq.library.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MD5ServiceTest {
+	private MD5Service mService;
+	private CountDownLatch mBlockLatch;
+	private File mFileA;
+	private File mFileB;
+	
+	@Before
+	public void setUp() throws Exception {
+		mService = new MD5Service(1);
+		mBlockLatch = new CountDownLatch(1);
+		mFileA = MD5UtilsTest.createFile(MD5UtilsTest.randomBytes(100000));
+		mFileB = MD5UtilsTest.createFile(MD5UtilsTest.randomBytes(200000));
+		// 阻塞唯一的计算线程, 使后续任务进入等待队列
+		mService.submit(new InputStream() {
+			@Override
+			public int read() throws IOException {
+				try {
+					mBlockLatch.await();
+				} catch (InterruptedException ex) {
+					throw new IOException(ex);
+				}
+				return -1;
+			}
+		}, Integer.MAX_VALUE, null);
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		mBlockLatch.countDown();
+		mService.shutdown();
+		assertTrue(mFileA.delete());
+		assertTrue(mFileB.delete());
+	}
+	
+	@Test
+	public void submit_deduplicatesSameFile() throws Exception {
+		MD5Service.Request first = mService.submit(mFileA, 0, null);
+		MD5Service.Request second = mService.submit(mFileA, 0, null);
+		MD5Service.Request other = mService.submit(mFileB, 0, null);
+		assertTrue(waitQueued(2));
+		
+		mBlockLatch.countDown();
+		assertEquals(MD5Utils.encode(mFileA), first.get(5, TimeUnit.SECONDS));
+		assertEquals(MD5Utils.encode(mFileA), second.get(5, TimeUnit.SECONDS));
+		assertEquals(MD5Utils.encode(mFileB), other.get(5, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void submit_priorityOrder() throws Exception {
+		final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+		final CountDownLatch doneLatch = new CountDownLatch(3);
+		mService.submit(mFileA, 1, new RecordListener("A", order, doneLatch));
+		mService.submit(mFileB, 5, new RecordListener("B", order, doneLatch));
+		mService.submit(new ByteArrayInputStream(new byte[10]), 3, new RecordListener("stream", order, doneLatch));
+		// 同一文件的高优先级请求提升等待中的任务
+		mService.submit(mFileA, 10, null);
+		
+		mBlockLatch.countDown();
+		assertTrue(doneLatch.await(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("A", "B", "stream"), order);
+	}
+	
+	@Test
+	public void cancel_queuedRequest() throws Exception {
+		final CountDownLatch cancelLatch = new CountDownLatch(1);
+		MD5Service.Request cancelled = mService.submit(mFileA, 0, new MD5Service.OnHashListener() {
+			@Override
+			public void onSuccess(String md5) {
+				fail();
+			}
+			
+			@Override
+			public void onFailure(Exception ex) {
+				fail();
+			}
+			
+			@Override
+			public void onCancelled() {
+				cancelLatch.countDown();
+			}
+		});
+		MD5Service.Request kept = mService.submit(mFileB, 0, null);
+		assertTrue(waitQueued(2));
+		
+		assertTrue(cancelled.cancel(true));
+		assertTrue(cancelLatch.await(5, TimeUnit.SECONDS));
+		assertEquals(1, mService.getQueuedCount());
+		assertTrue(cancelled.isCancelled());
+		try {
+			cancelled.get();
+			fail();
+		} catch (CancellationException ignored) {
+		}
+		
+		mBlockLatch.countDown();
+		assertEquals(MD5Utils.encode(mFileB), kept.get(5, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void verify_matchesExpected() throws Exception {
+		final boolean[] results = new boolean[2];
+		final CountDownLatch doneLatch = new CountDownLatch(2);
+		mService.verify(mFileA, MD5Utils.encode(mFileA).toUpperCase(), 0, new VerifyListener(results, 0, doneLatch));
+		mService.verify(mFileB, MD5Utils.encode(mFileA), 0, new VerifyListener(results, 1, doneLatch));
+		
+		mBlockLatch.countDown();
+		assertTrue(doneLatch.await(5, TimeUnit.SECONDS));
+		assertTrue(results[0]);
+		assertFalse(results[1]);
+	}
+	
+	@Test
+	public void submit_afterShutdownFails() throws Exception {
+		mService.shutdown();
+		final Exception[] failures = new Exception[2];
+		for (int index = 0; index < 2; index++) {
+			// 同一文件再次提交时不会合并到未执行的任务
+			final int position = index;
+			MD5Service.Request request = mService.submit(mFileA, 0, new MD5Service.OnHashListener() {
+				@Override
+				public void onSuccess(String md5) {
+				}
+				
+				@Override
+				public void onFailure(Exception ex) {
+					failures[position] = ex;
+				}
+			});
+			assertTrue(request.isDone());
+			assertTrue(failures[index] instanceof RejectedExecutionException);
+			try {
+				request.get();
+				fail();
+			} catch (ExecutionException ex) {
+				assertTrue(ex.getCause() instanceof RejectedExecutionException);
+			}
+		}
+		
+		final boolean[] closed = new boolean[1];
+		MD5Service.Request request = mService.submit(new ByteArrayInputStream(new byte[10]) {
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+			}
+		}, 0, null);
+		assertTrue(request.isDone());
+		assertTrue(closed[0]);
+	}
+	
+	private boolean waitQueued(int count) throws InterruptedException {
+		for (int index = 0; index < 100 && mService.getQueuedCount() != count; index++) {
+			Thread.sleep(10);
+		}
+		return mService.getQueuedCount() == count;
+	}
+	
+	private static class RecordListener extends MD5Service.OnHashListener {
+		private final String mName;
+		private final List<String> mOrder;
+		private final CountDownLatch mLatch;
+		
+		RecordListener(String name, List<String> order, CountDownLatch latch) {
+			mName = name;
+			mOrder = order;
+			mLatch = latch;
+		}
+		
+		@Override
+		public void onSuccess(String md5) {
+			mOrder.add(mName);
+			mLatch.countDown();
+		}
+		
+		@Override
+		public void onFailure(Exception ex) {
+			mLatch.countDown();
+		}
+	}
+	
+	private static class VerifyListener extends MD5Service.OnVerifyListener {
+		private final boolean[] mResults;
+		private final int mIndex;
+		private final CountDownLatch mLatch;
+		
+		VerifyListener(boolean[] results, int index, CountDownLatch latch) {
+			mResults = results;
+			mIndex = index;
+			mLatch = latch;
+		}
+		
+		@Override
+		public void onVerified(boolean matched) {
+			mResults[mIndex] = matched;
+			mLatch.countDown();
+		}
+		
+		@Override
+		public void onFailure(Exception ex) {
+			mLatch.countDown();
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package com.kycq.library.support;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class MD5UtilsTest {
+	
+	@Test
+	public void encode_string() throws Exception {
+		assertEquals("d41d8cd98f00b204e9800998ecf8427e", MD5Utils.encode(""));
+		assertEquals("900150983cd24fb0d6963f7d28e17f72", MD5Utils.encode("abc"));
+		assertEquals("9e107d9d372bb6826bd81d3542a419d6", MD5Utils.encode("The quick brown fox jumps over the lazy dog"));
+	}
+	
+	@Test
+	public void encode_charSequenceUtf8() throws Exception {
+		MessageDigest expected = MessageDigest.getInstance("MD5");
+		String[] pieces = {"a", "\u00e9", "\u4e2d", "\ud83d\ude00", "\ud800", "\udc00x", "json{\"k\":1}"};
+		Random random = new Random(7);
+		for (int length = 0; length < 400; length++) {
+			StringBuilder builder = new StringBuilder();
+			while (builder.length() < length) {
+				builder.append(pieces[random.nextInt(pieces.length)]);
+			}
+			String md5 = MD5DigestTest.toHex(expected.digest(builder.toString().getBytes("UTF-8")));
+			assertEquals(md5, MD5Utils.encode(builder));
+			assertEquals(md5, MD5Utils.digest(builder).toHex());
+			
+			MD5Utils.setUseProvider(true);
+			try {
+				assertEquals(md5, MD5Utils.encode(builder));
+			} finally {
+				MD5Utils.setUseProvider(false);
+			}
+		}
+		
+		// 超过编码缓冲区的长字符串
+		StringBuilder builder = new StringBuilder();
+		for (int index = 0; index < 100000; index++) {
+			builder.append(pieces[index % pieces.length]);
+		}
+		String md5 = MD5DigestTest.toHex(expected.digest(builder.toString().getBytes("UTF-8")));
+		assertEquals(md5, MD5Utils.encode(builder.toString()));
+		MD5Utils.setUseProvider(true);
+		try {
+			assertEquals(md5, MD5Utils.encode(builder));
+		} finally {
+			MD5Utils.setUseProvider(false);
+		}
+	}
+	
+	@Test
+	public void encode_streamAndFile() throws Exception {
+		// 覆盖直接缓冲区读取与窗口映射读取两种路径
+		int[] sizes = {0, 1, 64 * 1024 - 1, 64 * 1024 + 1, 5 * 1024 * 1024 + 7};
+		for (int size : sizes) {
+			byte[] data = randomBytes(size);
+			File file = createFile(data);
+			try {
+				String expected = MD5Utils.encode(new ByteArrayInputStream(data));
+				assertNotNull(expected);
+				assertEquals(expected, MD5Utils.encode(file));
+				
+				FileInputStream inputStream = new FileInputStream(file);
+				try {
+					inputStream.getChannel().position(size / 2);
+					assertEquals(expected, MD5Utils.encode(inputStream.getChannel()));
+					assertEquals(size / 2, inputStream.getChannel().position());
+				} finally {
+					inputStream.close();
+				}
+			} finally {
+				assertTrue(file.delete());
+			}
+		}
+	}
+	
+	@Test
+	public void encode_buffers() throws Exception {
+		byte[] input = "xxabcxx".getBytes("UTF-8");
+		char[] hex = new char[34];
+		assertTrue(MD5Utils.encode(input, 2, 3, hex, 1));
+		assertEquals("900150983cd24fb0d6963f7d28e17f72", new String(hex, 1, 32));
+		
+		byte[] md = new byte[17];
+		assertTrue(MD5Utils.encode(input, 2, 3, md, 1));
+		assertEquals((byte) 0x90, md[1]);
+		assertEquals((byte) 0x72, md[16]);
+		assertFalse(MD5Utils.encode(input, 2, 3, new byte[8], 0));
+	}
+	
+	@Test
+	public void encode_buffersAllocationFree() throws Exception {
+		java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+		long threadId = Thread.currentThread().getId();
+		
+		byte[] input = "https://example.com/images/avatar/0123456789.jpg".getBytes("UTF-8");
+		StringBuilder url = new StringBuilder("https://example.com/images/\u5934\u50cf/0123456789.jpg");
+		byte[] md = new byte[16];
+		char[] hex = new char[32];
+		int count = 100000;
+		for (int index = 0; index < count; index++) {
+			MD5Utils.encode(input, 0, input.length, md, 0);
+			MD5Utils.encode(input, 0, input.length, hex, 0);
+			MD5Utils.encode(url, hex, 0);
+		}
+		
+		long before = allocationBean.getThreadAllocatedBytes(threadId);
+		for (int index = 0; index < count; index++) {
+			input[index & 31]++;
+			url.setCharAt(20, (char) ('a' + (index & 15)));
+			assertTrue(MD5Utils.encode(input, 0, input.length, md, 0));
+			assertTrue(MD5Utils.encode(input, 0, input.length, hex, 0));
+			assertTrue(MD5Utils.encode(url, hex, 0));
+		}
+		long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+		// 允许测量本身的少量分配, 但不能与调用次数成比例
+		assertTrue("allocated " + allocated + " bytes for " + count + " calls", allocated < count);
+	}
+	
+	@Test
+	public void encode_streamReusesReadBuffer() throws Exception {
+		java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+		long threadId = Thread.currentThread().getId();
+		
+		byte[] data = randomBytes(100);
+		String expected = MD5Utils.encode(data);
+		assertEquals(expected, MD5Utils.encode(new ByteArrayInputStream(data)));
+		
+		int count = 1000;
+		long before = allocationBean.getThreadAllocatedBytes(threadId);
+		for (int index = 0; index < count; index++) {
+			assertNotNull(MD5Utils.encode(new ByteArrayInputStream(data)));
+		}
+		long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+		// 每次调用只分配输入流和结果, 不分配64KB读取缓冲区
+		assertTrue("allocated " + allocated + " bytes for " + count + " calls", allocated < count * 1024L);
+		assertEquals(expected, MD5Utils.encode(new ByteArrayInputStream(data)));
+	}
+	
+	@Test
+	public void encodeAll_matchesEncode() throws Exception {
+		// 长度覆盖填充跨分组的边界, 数量不是路数的整数倍
+		byte[][] inputs = new byte[203][];
+		byte[][] mds = new byte[inputs.length][16];
+		for (int index = 0; index < inputs.length; index++) {
+			inputs[index] = randomBytes(index % 2 == 0 ? index : inputs.length - index);
+		}
+		assertTrue(MD5Utils.encodeAll(inputs, mds));
+		for (int index = 0; index < inputs.length; index++) {
+			byte[] expected = new byte[16];
+			assertTrue(MD5Utils.encode(inputs[index], 0, inputs[index].length, expected, 0));
+			assertArrayEquals(expected, mds[index]);
+		}
+		
+		String[] results = MD5Utils.encodeAll(new String[]{"", "abc", "message digest"});
+		assertArrayEquals(new String[]{"d41d8cd98f00b204e9800998ecf8427e", "900150983cd24fb0d6963f7d28e17f72", "f96b697d7cb7938d525a2f31aaf161d0"}, results);
+		assertEquals(0, MD5Utils.encodeAll(new String[0]).length);
+	}
+	
+	@Test
+	public void encodeTree_chunks() throws Exception {
+		int chunkSize = 10000;
+		byte[] data = randomBytes(chunkSize * 37 + 123);
+		File file = createFile(data);
+		try {
+			byte[][] chunkDigests = MD5Utils.encodeChunks(file, chunkSize);
+			assertNotNull(chunkDigests);
+			assertEquals(38, chunkDigests.length);
+			ByteArrayOutputStream concat = new ByteArrayOutputStream();
+			for (int index = 0; index < chunkDigests.length; index++) {
+				int offset = index * chunkSize;
+				int length = Math.min(chunkSize, data.length - offset);
+				byte[] expected = new byte[16];
+				assertTrue(MD5Utils.encode(data, offset, length, expected, 0));
+				assertArrayEquals(expected, chunkDigests[index]);
+				concat.write(expected);
+			}
+			assertEquals(MD5Utils.encode(concat.toByteArray()), MD5Utils.encodeTree(file, chunkSize));
+			assertEquals(0, MD5Utils.verifyChunks(file, chunkSize, chunkDigests).length);
+			
+			// 修改两个分块并截断最后一个分块
+			data[chunkSize * 3 + 5]++;
+			data[chunkSize * 20]++;
+			File corrupted = createFile(Arrays.copyOf(data, chunkSize * 37));
+			try {
+				assertArrayEquals(new int[]{3, 20, 37}, MD5Utils.verifyChunks(corrupted, chunkSize, chunkDigests));
+			} finally {
+				assertTrue(corrupted.delete());
+			}
+		} finally {
+			assertTrue(file.delete());
+		}
+		
+		File empty = createFile(new byte[0]);
+		try {
+			assertEquals(0, MD5Utils.encodeChunks(empty, chunkSize).length);
+			assertEquals(MD5Utils.encode(""), MD5Utils.encodeTree(empty, chunkSize));
+		} finally {
+			assertTrue(empty.delete());
+		}
+	}
+	
+	@Test
+	public void encodeChunks_interruptedKeepsInterruptStatus() throws Exception {
+		File file = createFile(randomBytes(1024 * 1024));
+		try {
+			Thread.currentThread().interrupt();
+			assertNull(MD5Utils.encodeChunks(file, 16 * 1024));
+			assertTrue(Thread.interrupted());
+			
+			Thread.currentThread().interrupt();
+			assertNull(MD5Utils.encodeTree(file, 16 * 1024));
+			assertTrue(Thread.interrupted());
+			
+			// 中断状态清除后可以正常计算
+			assertEquals(64, MD5Utils.encodeChunks(file, 16 * 1024).length);
+		} finally {
+			Thread.interrupted();
+			assertTrue(file.delete());
+		}
+	}
+	
+	@Test
+	public void encode_missingFile() throws Exception {
+		assertNull(MD5Utils.encode(new File("/nonexistent/md5-utils-test")));
+		assertNull(MD5Utils.encodeChunks(new File("/nonexistent/md5-utils-test"), 1024));
+	}
+	
+	static byte[] randomBytes(int size) {
+		byte[] data = new byte[size];
+		new Random(size).nextBytes(data);
+		return data;
+	}
+	
+	static File createFile(byte[] data) throws IOException {
+		File file = File.createTempFile("md5", ".bin");
+		FileOutputStream outputStream = new FileOutputStream(file);
+		try {
+			outputStream.write(data);
+		} finally {
+			outputStream.close();
+		}
+		return file;
+	}
+}
@@ -0,0 +1,189 @@
+package com.kycq.library.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 权限请求的吞吐量、内存和回收测试, 使用模拟的Activity和Fragment, 结果输出至标准输出
+ * 依赖垃圾回收, 默认跳过, 通过./gradlew test -Dbenchmark=true运行
+ */
+public class PermissionBenchmarkTest {
+	/** 模拟的Activity数量, 每个Activity包含两个Fragment */
+	private static final int ACTIVITY_COUNT = 5000;
+	private static int mTestCount;
+	
+	private FakePermissionUtils.FakeSystem mSystem;
+	private FakePermissionUtils.FakeFrame mFrame;
+	
+	@BeforeClass
+	public static void checkEnabled() throws Exception {
+		MD5BenchmarkTest.assumeBenchmark();
+	}
+	
+	@Before
+	public void setUp() throws Exception {
+		mSystem = new FakePermissionUtils.FakeSystem();
+		mFrame = new FakePermissionUtils.FakeFrame(mSystem);
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		mFrame.release();
+	}
+	
+	@Test
+	public void throughput_requestResultCycle() throws Exception {
+		for (int round = 0; round < 3; round++) {
+			// 每轮使用新的权限名, 检查不命中缓存
+			String prefix = "test.benchmark" + (++mTestCount) + ".";
+			String camera = prefix + "CAMERA";
+			String storage = prefix + "STORAGE";
+			String audio = prefix + "AUDIO";
+			List<FakePermissionUtils.RecordingListener> listeners = new ArrayList<>();
+			// 请求工具只弱引用界面, 存活的界面由测试持有
+			List<FakePermissionUtils.FakeComponent> components = new ArrayList<>();
+			
+			long start = System.nanoTime();
+			for (int index = 0; index < ACTIVITY_COUNT; index++) {
+				FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+				FakePermissionUtils.FakeComponent fragment1 = new FakePermissionUtils.FakeComponent(activity);
+				FakePermissionUtils.FakeComponent fragment2 = new FakePermissionUtils.FakeComponent(activity);
+				components.add(fragment1);
+				components.add(fragment2);
+				listeners.add(request(activity, camera, storage));
+				listeners.add(request(fragment1, storage, audio));
+				listeners.add(request(fragment2, audio));
+			}
+			long requestNanos = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			mFrame.run();
+			long flushNanos = System.nanoTime() - start;
+			assertEquals(ACTIVITY_COUNT, mSystem.mRequests.size());
+			
+			start = System.nanoTime();
+			for (FakePermissionUtils.SystemRequest request : mSystem.mRequests) {
+				assertTrue(mSystem.answer(request, camera, storage));
+			}
+			long resultNanos = System.nanoTime() - start;
+			
+			for (int index = 0; index < listeners.size(); index++) {
+				FakePermissionUtils.RecordingListener listener = listeners.get(index);
+				// 每个Activity的两个Fragment都请求了被拒绝的权限
+				assertEquals(index % 3 == 0 ? 1 : 0, listener.mGrantedCount);
+				assertEquals(index % 3 == 0 ? 0 : 1, listener.mDeniedCount);
+			}
+			
+			start = System.nanoTime();
+			for (int index = 0; index < ACTIVITY_COUNT; index++) {
+				request(new FakePermissionUtils.FakeComponent(), camera, storage);
+			}
+			long cachedNanos = System.nanoTime() - start;
+			
+			if (round == 2) {
+				report("request", listeners.size(), requestNanos);
+				report("flush", ACTIVITY_COUNT, flushNanos);
+				report("result", ACTIVITY_COUNT, resultNanos);
+				report("request cached", ACTIVITY_COUNT, cachedNanos);
+			}
+			mSystem.release();
+			mSystem.mRequests.clear();
+			assertEquals(ACTIVITY_COUNT * 2, components.size());
+		}
+		assertEquals(0, PermissionUtils.getPendingCount());
+	}
+	
+	@Test
+	public void memory_pendingRequests() throws Exception {
+		String permission = "test.benchmark" + (++mTestCount) + ".CAMERA";
+		List<FakePermissionUtils.FakeComponent> components = new ArrayList<>();
+		for (int index = 0; index < ACTIVITY_COUNT; index++) {
+			components.add(new FakePermissionUtils.FakeComponent());
+		}
+		List<FakePermissionUtils.RecordingListener> listeners = new ArrayList<>();
+		long before = usedMemory();
+		for (FakePermissionUtils.FakeComponent component : components) {
+			listeners.add(request(component, permission));
+		}
+		mFrame.run();
+		long after = usedMemory();
+		
+		assertEquals(ACTIVITY_COUNT, PermissionUtils.getPendingCount());
+		assertEquals(ACTIVITY_COUNT, listeners.size());
+		System.out.println(String.format("%-24s %10.1f B/request", "pending memory", (after - before) / (double) ACTIVITY_COUNT));
+	}
+	
+	@Test
+	public void retention_destroyedComponentsAreCollected() throws Exception {
+		String permission = "test.benchmark" + (++mTestCount) + ".CAMERA";
+		List<WeakReference<FakePermissionUtils.FakeComponent>> references = new ArrayList<>();
+		for (int index = 0; index < ACTIVITY_COUNT; index++) {
+			FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+			FakePermissionUtils.FakeComponent fragment = new FakePermissionUtils.FakeComponent(activity);
+			references.add(new WeakReference<>(activity));
+			references.add(new WeakReference<>(fragment));
+			// 监听器通常是界面的内部类, 强引用界面
+			requestHolding(activity, permission);
+			requestHolding(fragment, permission);
+		}
+		mFrame.run();
+		assertEquals(ACTIVITY_COUNT, PermissionUtils.getPendingCount());
+		
+		// 界面销毁但未调用release, 也未收到结果
+		for (FakePermissionUtils.SystemRequest request : mSystem.mRequests) {
+			((FakePermissionUtils.FakeComponent) request.mComponent).mDestroyed = true;
+		}
+		for (WeakReference<FakePermissionUtils.FakeComponent> reference : references) {
+			FakePermissionUtils.FakeComponent component = reference.get();
+			if (component != null) {
+				component.mDestroyed = true;
+			}
+		}
+		mSystem.mRequests.clear();
+		
+		long start = System.nanoTime();
+		PermissionUtils.purge();
+		long purgeNanos = System.nanoTime() - start;
+		assertEquals(0, PermissionUtils.getPendingCount());
+		assertEquals(0, FakePermissionUtils.countRetained(references));
+		report("purge", ACTIVITY_COUNT, purgeNanos);
+	}
+	
+	private FakePermissionUtils.RecordingListener request(FakePermissionUtils.FakeComponent component, String... permissions) {
+		FakePermissionUtils.RecordingListener listener = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, component, PermissionUtils.AUTO_REQUEST_CODE).setOnPermissionListener(listener).requestPermissions(permissions);
+		return listener;
+	}
+	
+	private void requestHolding(final FakePermissionUtils.FakeComponent component, String... permissions) {
+		new FakePermissionUtils(mSystem, component, PermissionUtils.AUTO_REQUEST_CODE).setOnPermissionListener(new FakePermissionUtils.RecordingListener() {
+			@Override
+			public void onGranted() {
+				assertFalse(component.mDestroyed);
+			}
+		}).requestPermissions(permissions);
+	}
+	
+	private static long usedMemory() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			System.gc();
+			Thread.sleep(20);
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+	
+	private static void report(String name, int count, long nanos) {
+		System.out.println(String.format("%-24s %10.1f ops/ms", name, count / (nanos / 1e6)));
+	}
+}
@@ -0,0 +1,71 @@
+package com.kycq.library.support;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PermissionCacheTest {
+	private static final String CAMERA = "android.permission.CAMERA";
+	private static final String STORAGE = "android.permission.WRITE_EXTERNAL_STORAGE";
+	private static final String LOCATION = "android.permission.ACCESS_FINE_LOCATION";
+	
+	@Test
+	public void put_publishesSnapshot() throws Exception {
+		PermissionCache cache = new PermissionCache(new PermissionTable());
+		assertNull(cache.get(CAMERA));
+		cache.put(CAMERA, true);
+		cache.putAll(new String[]{STORAGE, LOCATION, CAMERA}, new boolean[]{false, true, false}, 2);
+		
+		assertEquals(Boolean.TRUE, cache.get(CAMERA));
+		assertEquals(Boolean.FALSE, cache.get(STORAGE));
+		assertEquals(Boolean.TRUE, cache.get(LOCATION));
+		assertEquals(3, cache.size());
+	}
+	
+	@Test
+	public void putAllIfAbsent_keepsCachedState() throws Exception {
+		PermissionCache cache = new PermissionCache(new PermissionTable());
+		cache.put(CAMERA, true);
+		cache.putAllIfAbsent(new String[]{CAMERA, STORAGE}, new boolean[]{false, false}, 2);
+		
+		assertEquals(Boolean.TRUE, cache.get(CAMERA));
+		assertEquals(Boolean.FALSE, cache.get(STORAGE));
+	}
+	
+	@Test
+	public void invalidate_keepsGrantedState() throws Exception {
+		PermissionCache cache = new PermissionCache(new PermissionTable());
+		cache.putAll(new String[]{CAMERA, STORAGE}, new boolean[]{true, false}, 2);
+		cache.invalidate();
+		
+		assertEquals(Boolean.TRUE, cache.get(CAMERA));
+		assertNull(cache.get(STORAGE));
+		cache.clear();
+		assertNull(cache.get(CAMERA));
+	}
+	
+	@Test
+	public void concurrentReaders_seeConsistentState() throws Exception {
+		final PermissionCache cache = new PermissionCache(new PermissionTable());
+		final boolean[] failed = new boolean[1];
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int index = 0; index < 200000; index++) {
+					Boolean granted = cache.get(CAMERA);
+					if (granted != null && !granted) {
+						failed[0] = true;
+					}
+				}
+			}
+		});
+		reader.start();
+		for (int index = 0; index < 2000; index++) {
+			cache.put(CAMERA, true);
+			cache.put("permission" + index, index % 2 == 0);
+			cache.invalidate();
+		}
+		reader.join();
+		assertFalse(failed[0]);
+	}
+}
@@ -0,0 +1,176 @@
+package com.kycq.library.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PermissionCoalescerTest {
+	private static int mTestCount;
+	
+	private FakePermissionUtils.FakeSystem mSystem;
+	private FakePermissionUtils.FakeFrame mFrame;
+	/** 权限状态缓存为进程内共享, 每个测试使用不同的权限名 */
+	private String mCamera;
+	private String mStorage;
+	private String mAudio;
+	
+	@Before
+	public void setUp() throws Exception {
+		mSystem = new FakePermissionUtils.FakeSystem();
+		String prefix = "test.coalescer" + (++mTestCount) + ".";
+		mCamera = prefix + "CAMERA";
+		mStorage = prefix + "STORAGE";
+		mAudio = prefix + "AUDIO";
+		mFrame = new FakePermissionUtils.FakeFrame(mSystem);
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		mFrame.release();
+	}
+	
+	@Test
+	public void sameFrameRequests_mergeIntoOneSystemRequest() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.FakeComponent fragment1 = new FakePermissionUtils.FakeComponent(activity);
+		FakePermissionUtils.FakeComponent fragment2 = new FakePermissionUtils.FakeComponent(activity);
+		FakePermissionUtils.RecordingListener listener1 = new FakePermissionUtils.RecordingListener();
+		FakePermissionUtils.RecordingListener listener2 = new FakePermissionUtils.RecordingListener();
+		FakePermissionUtils.RecordingListener listener3 = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, fragment1, 0).setOnPermissionListener(listener1).requestPermissions(mCamera, mStorage);
+		new FakePermissionUtils(mSystem, fragment2, 0).setOnPermissionListener(listener2).requestPermissions(mStorage);
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(listener3).requestPermissions(mAudio, mCamera);
+		assertTrue(mSystem.mRequests.isEmpty());
+		
+		mFrame.run();
+		assertEquals(1, mSystem.mRequests.size());
+		FakePermissionUtils.SystemRequest request = mSystem.mRequests.get(0);
+		assertSame(fragment1, request.mComponent);
+		assertEquals(Arrays.asList(mCamera, mStorage, mAudio), Arrays.asList(request.mPermissions));
+		
+		assertTrue(mSystem.answer(request, mCamera, mStorage));
+		assertEquals(1, listener1.mGrantedCount);
+		assertEquals(1, listener2.mGrantedCount);
+		assertEquals(0, listener3.mGrantedCount);
+		assertEquals(1, listener3.mDeniedCount);
+		assertFalse(mSystem.answer(request, mCamera, mStorage));
+	}
+	
+	@Test
+	public void differentHosts_requestSeparately() throws Exception {
+		FakePermissionUtils.FakeComponent activity1 = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.FakeComponent activity2 = new FakePermissionUtils.FakeComponent();
+		new FakePermissionUtils(mSystem, activity1, 0).setOnPermissionListener(new FakePermissionUtils.RecordingListener()).requestPermissions(mCamera);
+		new FakePermissionUtils(mSystem, activity2, 0).setOnPermissionListener(new FakePermissionUtils.RecordingListener()).requestPermissions(mCamera);
+		mFrame.run();
+		assertEquals(2, mSystem.mRequests.size());
+	}
+	
+	@Test
+	public void destroyedIssuer_handsOverToNextRequest() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.FakeComponent fragment1 = new FakePermissionUtils.FakeComponent(activity);
+		FakePermissionUtils.FakeComponent fragment2 = new FakePermissionUtils.FakeComponent(activity);
+		FakePermissionUtils.RecordingListener listener1 = new FakePermissionUtils.RecordingListener();
+		FakePermissionUtils.RecordingListener listener2 = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, fragment1, 0).setOnPermissionListener(listener1).requestPermissions(mCamera);
+		new FakePermissionUtils(mSystem, fragment2, 0).setOnPermissionListener(listener2).requestPermissions(mStorage);
+		fragment1.mDestroyed = true;
+		mFrame.run();
+		
+		FakePermissionUtils.SystemRequest request = mSystem.mRequests.get(0);
+		assertSame(fragment2, request.mComponent);
+		assertTrue(mSystem.answer(request, mCamera, mStorage));
+		assertEquals(0, listener1.mGrantedCount);
+		assertEquals(1, listener2.mGrantedCount);
+	}
+	
+	@Test
+	public void interruptedRequest_isDenied() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.RecordingListener listener = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(listener).requestPermissions(mAudio);
+		mFrame.run();
+		
+		assertTrue(PermissionUtils.onPermissionsResult(activity, 0, new String[0], new int[0]));
+		assertEquals(1, listener.mDeniedCount);
+	}
+	
+	@Test
+	public void autoRequestCodes_doNotOverwritePendingRequests() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.RecordingListener listener1 = new FakePermissionUtils.RecordingListener();
+		FakePermissionUtils.RecordingListener listener2 = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, PermissionUtils.AUTO_REQUEST_CODE).setOnPermissionListener(listener1).requestPermissions(mCamera);
+		assertEquals(1, PermissionUtils.getPendingCount());
+		mFrame.run();
+		new FakePermissionUtils(mSystem, activity, PermissionUtils.AUTO_REQUEST_CODE).setOnPermissionListener(listener2).requestPermissions(mStorage);
+		mFrame.run();
+		assertEquals(2, PermissionUtils.getPendingCount());
+		
+		FakePermissionUtils.SystemRequest request1 = mSystem.mRequests.get(0);
+		FakePermissionUtils.SystemRequest request2 = mSystem.mRequests.get(1);
+		assertNotEquals(request1.mRequestCode, request2.mRequestCode);
+		assertTrue(mSystem.answer(request2, mStorage));
+		assertTrue(mSystem.answer(request1, mCamera));
+		assertEquals(1, listener1.mGrantedCount);
+		assertEquals(1, listener2.mGrantedCount);
+		assertEquals(0, PermissionUtils.getPendingCount());
+	}
+	
+	@Test
+	public void explicitRequestCode_cancelsDisplacedRequest() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.RecordingListener listener1 = new FakePermissionUtils.RecordingListener();
+		FakePermissionUtils.RecordingListener listener2 = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, 7).setOnPermissionListener(listener1).requestPermissions(mCamera);
+		mFrame.run();
+		new FakePermissionUtils(mSystem, activity, 7).setOnPermissionListener(listener2).requestPermissions(mStorage);
+		mFrame.run();
+		assertEquals(1, listener1.mCancelledCount);
+		assertEquals(1, PermissionUtils.getPendingCount());
+		
+		assertTrue(mSystem.answer(mSystem.mRequests.get(1), mStorage));
+		assertEquals(1, listener2.mGrantedCount);
+		assertEquals(0, listener1.mGrantedCount + listener1.mDeniedCount);
+		assertEquals(0, listener2.mCancelledCount);
+	}
+	
+	@Test
+	public void autoRequestCodes_exhaustedCancelsRequest() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		int count = PermissionRegistry.MAX_AUTO_REQUEST_CODE - PermissionRegistry.MIN_AUTO_REQUEST_CODE + 1;
+		for (int index = 0; index < count; index++) {
+			new FakePermissionUtils(mSystem, activity, PermissionUtils.AUTO_REQUEST_CODE).setOnPermissionListener(new FakePermissionUtils.RecordingListener()).requestPermissions(mCamera);
+			mFrame.run();
+		}
+		assertEquals(count, mSystem.mRequests.size());
+		
+		// 没有可用的请求代码时不发起请求, 也不抛出异常
+		FakePermissionUtils.RecordingListener listener = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, PermissionUtils.AUTO_REQUEST_CODE).setOnPermissionListener(listener).requestPermissions(mCamera);
+		mFrame.run();
+		assertEquals(count, mSystem.mRequests.size());
+		assertEquals(1, listener.mCancelledCount);
+		assertEquals(count, PermissionUtils.getPendingCount());
+	}
+	
+	@Test
+	public void release_dropsPendingRequests() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.RecordingListener listener = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, PermissionUtils.AUTO_REQUEST_CODE).setOnPermissionListener(listener).requestPermissions(mCamera);
+		mFrame.run();
+		assertEquals(1, PermissionUtils.getPendingCount());
+		
+		activity.mDestroyed = true;
+		PermissionUtils.purge();
+		assertEquals(0, PermissionUtils.getPendingCount());
+		assertFalse(mSystem.answer(mSystem.mRequests.get(0), mCamera));
+		assertEquals(0, listener.mGrantedCount);
+	}
+}
@@ -0,0 +1,158 @@
+package com.kycq.library.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PermissionFutureTest {
+	private static int mTestCount;
+	
+	private FakePermissionUtils.FakeSystem mSystem;
+	private FakePermissionUtils.FakeFrame mFrame;
+	private String mCamera;
+	private String mStorage;
+	
+	@Before
+	public void setUp() throws Exception {
+		mSystem = new FakePermissionUtils.FakeSystem();
+		String prefix = "test.future" + (++mTestCount) + ".";
+		mCamera = prefix + "CAMERA";
+		mStorage = prefix + "STORAGE";
+		mFrame = new FakePermissionUtils.FakeFrame(mSystem);
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		mFrame.release();
+	}
+	
+	@Test
+	public void request_completesWithGrantResult() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils permissionUtils = new FakePermissionUtils(mSystem, activity, 0);
+		PermissionFuture granted = permissionUtils.request(mCamera);
+		PermissionFuture denied = permissionUtils.request(mCamera, mStorage);
+		assertFalse(granted.isDone());
+		
+		mFrame.run();
+		assertEquals(1, mSystem.mRequests.size());
+		mSystem.answer(mSystem.mRequests.get(0), mCamera);
+		assertTrue(granted.get());
+		assertFalse(denied.get());
+	}
+	
+	@Test
+	public void request_grantedPermissionCompletesImmediately() throws Exception {
+		mSystem.mGranted.add(mCamera);
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		PermissionFuture future = new FakePermissionUtils(mSystem, activity, 0).request(mCamera);
+		assertTrue(future.isDone());
+		assertTrue(future.get(0, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void callbacks_runOnExecutor() throws Exception {
+		ExecutorService worker = Executors.newSingleThreadExecutor();
+		try {
+			final Thread[] callbackThread = new Thread[2];
+			final CountDownLatch latch = new CountDownLatch(2);
+			FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+			PermissionFuture future = new FakePermissionUtils(mSystem, activity, 0).request(worker, mCamera);
+			future.addCallback(new PermissionFuture.Callback() {
+				@Override
+				public void onGranted() {
+					callbackThread[0] = Thread.currentThread();
+					latch.countDown();
+				}
+			});
+			mFrame.run();
+			mSystem.answer(mSystem.mRequests.get(0), mCamera);
+			// 结束后添加的回调立即执行
+			future.addCallback(new PermissionFuture.Callback() {
+				@Override
+				public void onGranted() {
+					callbackThread[1] = Thread.currentThread();
+					latch.countDown();
+				}
+			});
+			
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+			assertNotSame(Thread.currentThread(), callbackThread[0]);
+			assertSame(callbackThread[0], callbackThread[1]);
+		} finally {
+			worker.shutdown();
+		}
+	}
+	
+	@Test
+	public void cancel_ignoresLaterResult() throws Exception {
+		final int[] counts = new int[2];
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		PermissionFuture future = new FakePermissionUtils(mSystem, activity, 0).request(mCamera);
+		future.addCallback(new PermissionFuture.Callback() {
+			@Override
+			public void onGranted() {
+				counts[0]++;
+			}
+			
+			@Override
+			public void onCancelled() {
+				counts[1]++;
+			}
+		});
+		assertTrue(future.cancel(false));
+		assertFalse(future.cancel(false));
+		mFrame.run();
+		mSystem.answer(mSystem.mRequests.get(0), mCamera);
+		
+		assertTrue(future.isCancelled());
+		assertEquals(0, counts[0]);
+		assertEquals(1, counts[1]);
+		try {
+			future.get();
+			fail();
+		} catch (CancellationException ignored) {
+		}
+	}
+	
+	@Test
+	public void request_collectedComponentIsCancelled() throws Exception {
+		FakePermissionUtils permissionUtils = new FakePermissionUtils(mSystem, new FakePermissionUtils.FakeComponent(), 0);
+		permissionUtils.mRequestReference.clear();
+		assertTrue(permissionUtils.request(mCamera).isCancelled());
+	}
+	
+	@Test
+	public void request_destroyedComponentIsCancelled() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		PermissionFuture future = new FakePermissionUtils(mSystem, activity, 0).request(mCamera);
+		mFrame.run();
+		assertEquals(1, mSystem.mRequests.size());
+		
+		// 等待结果时界面销毁, 请求被清除
+		activity.mDestroyed = true;
+		PermissionUtils.purge();
+		assertTrue(future.isCancelled());
+		assertFalse(mSystem.answer(mSystem.mRequests.get(0), mCamera));
+	}
+	
+	@Test
+	public void request_destroyedBeforeFlushIsCancelled() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		PermissionFuture future = new FakePermissionUtils(mSystem, activity, 0).request(mCamera);
+		
+		// 发起系统请求前界面销毁, 不再发起请求
+		activity.mDestroyed = true;
+		mFrame.run();
+		assertTrue(mSystem.mRequests.isEmpty());
+		assertTrue(future.isCancelled());
+	}
+}
@@ -0,0 +1,159 @@
+package com.kycq.library.support;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PermissionRegistryTest {
+	
+	@Test
+	public void put_keysByIdentityAndRequestCode() throws Exception {
+		PermissionRegistry<FakePermissionUtils.FakeEntry> registry = new PermissionRegistry<>();
+		FakePermissionUtils.FakeComponent first = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.FakeComponent second = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.FakeEntry request1 = new FakePermissionUtils.FakeEntry(first);
+		FakePermissionUtils.FakeEntry request2 = new FakePermissionUtils.FakeEntry(first);
+		FakePermissionUtils.FakeEntry request3 = new FakePermissionUtils.FakeEntry(second);
+		registry.put(first, 1, request1);
+		registry.put(first, 2, request2);
+		registry.put(second, 1, request3);
+		
+		assertEquals(3, registry.size());
+		assertSame(request1, registry.get(first, 1));
+		assertSame(request2, registry.get(first, 2));
+		assertSame(request3, registry.get(second, 1));
+		assertNull(registry.get(second, 2));
+		
+		assertSame(request1, registry.remove(first, 1));
+		assertNull(registry.remove(first, 1));
+		assertEquals(1, registry.release(first));
+		assertEquals(1, registry.size());
+		assertSame(request3, registry.get(second, 1));
+	}
+	
+	@Test
+	public void putAuto_allocatesDistinctRequestCodes() throws Exception {
+		PermissionRegistry<FakePermissionUtils.FakeEntry> registry = new PermissionRegistry<>();
+		FakePermissionUtils.FakeComponent component = new FakePermissionUtils.FakeComponent();
+		registry.put(component, PermissionRegistry.MIN_AUTO_REQUEST_CODE + 1, new FakePermissionUtils.FakeEntry(component));
+		Set<Integer> requestCodes = new HashSet<>();
+		requestCodes.add(PermissionRegistry.MIN_AUTO_REQUEST_CODE + 1);
+		int count = PermissionRegistry.MAX_AUTO_REQUEST_CODE - PermissionRegistry.MIN_AUTO_REQUEST_CODE + 1;
+		for (int index = 1; index < count; index++) {
+			FakePermissionUtils.FakeEntry request = new FakePermissionUtils.FakeEntry(component);
+			int requestCode = registry.putAuto(component, request);
+			assertTrue(requestCode >= PermissionRegistry.MIN_AUTO_REQUEST_CODE);
+			assertTrue(requestCode <= PermissionRegistry.MAX_AUTO_REQUEST_CODE);
+			assertTrue(requestCodes.add(requestCode));
+			assertSame(request, registry.get(component, requestCode));
+		}
+		assertEquals(-1, registry.putAuto(component, new FakePermissionUtils.FakeEntry(component)));
+		
+		// 其他请求对象不受影响
+		FakePermissionUtils.FakeComponent other = new FakePermissionUtils.FakeComponent();
+		assertTrue(registry.putAuto(other, new FakePermissionUtils.FakeEntry(other)) > 0);
+		registry.remove(component, 7);
+		assertEquals(7, registry.putAuto(component, new FakePermissionUtils.FakeEntry(component)));
+	}
+	
+	@Test
+	public void size_purgesDestroyedComponents() throws Exception {
+		PermissionRegistry<FakePermissionUtils.FakeEntry> registry = new PermissionRegistry<>();
+		FakePermissionUtils.FakeComponent first = new FakePermissionUtils.FakeComponent();
+		registry.put(first, 0, new FakePermissionUtils.FakeEntry(first));
+		first.mDestroyed = true;
+		FakePermissionUtils.FakeComponent second = new FakePermissionUtils.FakeComponent();
+		registry.put(second, 0, new FakePermissionUtils.FakeEntry(second));
+		
+		assertEquals(1, registry.size());
+		assertNull(registry.get(first, 0));
+	}
+	
+	@Test
+	public void releaseAndPurge_notifyRemovedRequests() throws Exception {
+		PermissionRegistry<FakePermissionUtils.FakeEntry> registry = new PermissionRegistry<>();
+		FakePermissionUtils.FakeComponent first = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.FakeComponent second = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.FakeEntry request1 = new FakePermissionUtils.FakeEntry(first);
+		FakePermissionUtils.FakeEntry request2 = new FakePermissionUtils.FakeEntry(second);
+		FakePermissionUtils.FakeEntry request3 = new FakePermissionUtils.FakeEntry(second);
+		registry.put(first, 1, request1);
+		registry.put(second, 1, request2);
+		registry.put(second, 2, request3);
+		
+		assertEquals(1, registry.release(first));
+		assertEquals(1, request1.mReleasedCount);
+		assertEquals(0, registry.release(first));
+		assertEquals(1, request1.mReleasedCount);
+		
+		// 收到结果后移除的请求不通知
+		assertSame(request2, registry.remove(second, 1));
+		second.mDestroyed = true;
+		registry.purge();
+		assertEquals(0, request2.mReleasedCount);
+		assertEquals(1, request3.mReleasedCount);
+		assertEquals(0, registry.size());
+	}
+	
+	@Test
+	public void put_amortizesDestroyedComponentSweep() throws Exception {
+		PermissionRegistry<FakePermissionUtils.FakeEntry> registry = new PermissionRegistry<>();
+		List<FakePermissionUtils.FakeComponent> components = new ArrayList<>();
+		for (int index = 0; index < 1000; index++) {
+			FakePermissionUtils.FakeComponent component = new FakePermissionUtils.FakeComponent();
+			components.add(component);
+			registry.put(component, 0, new FakePermissionUtils.FakeEntry(component));
+			component.mDestroyed = true;
+			// 注册时不逐次遍历, 但已销毁的请求不会无限累积
+			assertTrue(registry.approximateSize() <= 16);
+		}
+		
+		// 仍有效的请求在遍历后保留
+		for (int index = 0; index < 100; index++) {
+			FakePermissionUtils.FakeComponent component = new FakePermissionUtils.FakeComponent();
+			components.add(component);
+			registry.put(component, 0, new FakePermissionUtils.FakeEntry(component));
+		}
+		assertEquals(100, registry.size());
+	}
+	
+	@Test
+	public void rotationChurn_retainsNoComponents() throws Exception {
+		PermissionRegistry<FakePermissionUtils.FakeEntry> registry = new PermissionRegistry<>();
+		List<WeakReference<FakePermissionUtils.FakeComponent>> references = new ArrayList<>();
+		FakePermissionUtils.FakeComponent component = null;
+		for (int index = 0; index < 1000; index++) {
+			// 旋转屏幕: 旧的请求对象销毁, 新的请求对象发起同一请求, 旧请求的结果不会再回调
+			if (component != null) {
+				component.mDestroyed = true;
+			}
+			component = new FakePermissionUtils.FakeComponent();
+			references.add(new WeakReference<>(component));
+			registry.put(component, 0, new FakePermissionUtils.FakeEntry(component));
+		}
+		assertEquals(1, registry.size());
+		
+		assertEquals(1, FakePermissionUtils.countRetained(references));
+		assertNotNull(registry.get(component, 0));
+	}
+	
+	@Test
+	public void collectedComponents_arePurged() throws Exception {
+		PermissionRegistry<FakePermissionUtils.FakeEntry> registry = new PermissionRegistry<>();
+		for (int index = 0; index < 100; index++) {
+			// 请求不持有请求对象, 请求对象回收后通过引用队列清除
+			registry.put(new FakePermissionUtils.FakeComponent(), index, new FakePermissionUtils.FakeEntry(null));
+		}
+		for (int round = 0; round < 10 && registry.size() > 0; round++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertEquals(0, registry.size());
+	}
+}
@@ -0,0 +1,157 @@
+package com.kycq.library.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PermissionResultTest {
+	private static int mTestCount;
+	
+	private FakePermissionUtils.FakeSystem mSystem;
+	private FakePermissionUtils.FakeFrame mFrame;
+	private String mCamera;
+	private String mStorage;
+	private String mAudio;
+	private String mLocation;
+	
+	@Before
+	public void setUp() throws Exception {
+		mSystem = new FakePermissionUtils.FakeSystem();
+		String prefix = "test.result" + (++mTestCount) + ".";
+		mCamera = prefix + "CAMERA";
+		mStorage = prefix + "STORAGE";
+		mAudio = prefix + "AUDIO";
+		mLocation = prefix + "LOCATION";
+		mFrame = new FakePermissionUtils.FakeFrame(mSystem);
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		mFrame.release();
+	}
+	
+	@Test
+	public void partialGrant_reportsPerPermission() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.RecordingListener listener = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(listener)
+				.requestPermissions(mCamera, mStorage, mAudio, mLocation);
+		mFrame.run();
+		// 拒绝后仍显示请求理由的权限可以重新请求, 否则为永久拒绝
+		mSystem.mRationale.add(mAudio);
+		mSystem.answer(mSystem.mRequests.get(0), mCamera, mStorage);
+		
+		PermissionResult result = listener.mResult;
+		assertFalse(result.isAllGranted());
+		assertEquals(1, listener.mDeniedCount);
+		assertEquals(Arrays.asList(mCamera, mStorage), Arrays.asList(result.getGranted()));
+		assertEquals(Arrays.asList(mAudio, mLocation), Arrays.asList(result.getDenied()));
+		assertEquals(Arrays.asList(mLocation), Arrays.asList(result.getPermanentlyDenied()));
+		assertEquals(Arrays.asList(mAudio), Arrays.asList(result.getRetryable()));
+		assertTrue(result.isGranted(mCamera));
+		assertFalse(result.isGranted(mAudio));
+		assertTrue(result.isPermanentlyDenied(mLocation));
+	}
+	
+	@Test
+	public void preGrantedPermission_reportedAsGranted() throws Exception {
+		mSystem.mGranted.add(mCamera);
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.RecordingListener listener = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(listener)
+				.requestPermissions(mCamera, mStorage);
+		mFrame.run();
+		// 只请求未授予的权限
+		assertEquals(Arrays.asList(mStorage), Arrays.asList(mSystem.mRequests.get(0).mPermissions));
+		mSystem.mRationale.add(mStorage);
+		mSystem.answer(mSystem.mRequests.get(0));
+		
+		PermissionResult result = listener.mResult;
+		assertEquals(1, listener.mDeniedCount);
+		assertEquals(Arrays.asList(mCamera), Arrays.asList(result.getGranted()));
+		assertEquals(Arrays.asList(mStorage), Arrays.asList(result.getDenied()));
+		assertTrue(result.isGranted(mCamera));
+		assertEquals(Arrays.asList(mStorage), Arrays.asList(result.getRetryable()));
+	}
+	
+	@Test
+	public void retry_requestsOnlyRetryablePermissions() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.RecordingListener listener = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(listener)
+				.requestPermissions(mCamera, mStorage, mAudio, mLocation);
+		mFrame.run();
+		mSystem.mRationale.add(mAudio);
+		mSystem.answer(mSystem.mRequests.get(0), mCamera, mStorage);
+		
+		assertTrue(listener.retry(listener.mResult));
+		mFrame.run();
+		assertEquals(2, mSystem.mRequests.size());
+		FakePermissionUtils.SystemRequest retry = mSystem.mRequests.get(1);
+		assertEquals(Arrays.asList(mAudio), Arrays.asList(retry.mPermissions));
+		
+		mSystem.answer(retry, mAudio);
+		assertEquals(Arrays.asList(mAudio), Arrays.asList(listener.mResult.getGranted()));
+		assertTrue(listener.mResult.isAllGranted());
+		assertEquals(1, listener.mGrantedCount);
+		assertFalse(listener.retry(listener.mResult));
+	}
+	
+	@Test
+	public void interruptedRequest_isRetryable() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.RecordingListener listener = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(listener)
+				.requestPermissions(mCamera, mStorage);
+		mFrame.run();
+		// 从未询问过的权限不显示请求理由, 但没有返回结果时不能视为永久拒绝
+		assertTrue(mSystem.interrupt(mSystem.mRequests.get(0)));
+		
+		PermissionResult result = listener.mResult;
+		assertEquals(1, listener.mDeniedCount);
+		assertEquals(Arrays.asList(mCamera, mStorage), Arrays.asList(result.getDenied()));
+		assertEquals(0, result.getPermanentlyDenied().length);
+		assertEquals(Arrays.asList(mCamera, mStorage), Arrays.asList(result.getRetryable()));
+		
+		assertTrue(listener.retry(result));
+		mFrame.run();
+		assertEquals(2, mSystem.mRequests.size());
+		assertEquals(Arrays.asList(mCamera, mStorage), Arrays.asList(mSystem.mRequests.get(1).mPermissions));
+	}
+	
+	@Test
+	public void coalescedRequests_receiveOwnPermissions() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.FakeComponent fragment = new FakePermissionUtils.FakeComponent(activity);
+		FakePermissionUtils.RecordingListener listener1 = new FakePermissionUtils.RecordingListener();
+		FakePermissionUtils.RecordingListener listener2 = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(listener1).requestPermissions(mCamera, mAudio);
+		new FakePermissionUtils(mSystem, fragment, 0).setOnPermissionListener(listener2).requestPermissions(mStorage);
+		mFrame.run();
+		mSystem.answer(mSystem.mRequests.get(0), mCamera, mStorage);
+		
+		assertEquals(Arrays.asList(mCamera), Arrays.asList(listener1.mResult.getGranted()));
+		assertEquals(Arrays.asList(mAudio), Arrays.asList(listener1.mResult.getPermanentlyDenied()));
+		assertEquals(Arrays.asList(mStorage), Arrays.asList(listener2.mResult.getGranted()));
+		assertTrue(listener2.mResult.isAllGranted());
+	}
+	
+	@Test
+	public void future_exposesResult() throws Exception {
+		mSystem.mGranted.add(mCamera);
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		PermissionFuture granted = new FakePermissionUtils(mSystem, activity, 0).request(mCamera);
+		assertEquals(Arrays.asList(mCamera), Arrays.asList(granted.getResult().getGranted()));
+		
+		PermissionFuture future = new FakePermissionUtils(mSystem, activity, 0).request(mCamera, mStorage);
+		assertNull(future.getResult());
+		mFrame.run();
+		mSystem.answer(mSystem.mRequests.get(0));
+		assertFalse(future.get());
+		assertEquals(Arrays.asList(mStorage), Arrays.asList(future.getResult().getDenied()));
+	}
+}
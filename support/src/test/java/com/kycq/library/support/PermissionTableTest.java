@@ -0,0 +1,78 @@
+package com.kycq.library.support;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PermissionTableTest {
+	
+	@Test
+	public void intern_assignsStableIndices() throws Exception {
+		PermissionTable table = new PermissionTable();
+		assertEquals(-1, table.indexOf("a"));
+		assertEquals(0, table.intern("a"));
+		assertEquals(1, table.intern("b"));
+		assertEquals(0, table.intern(new String("a")));
+		assertEquals(1, table.indexOf("b"));
+		assertEquals("b", table.name(1));
+		assertEquals(2, table.size());
+	}
+	
+	@Test
+	public void bitset_spansMultipleWords() throws Exception {
+		PermissionTable table = new PermissionTable();
+		for (int index = 0; index < 200; index++) {
+			table.intern("permission" + index);
+		}
+		long[] bits = PermissionTable.set(null, 3);
+		bits = PermissionTable.set(bits, 130);
+		bits = PermissionTable.set(bits, 64);
+		assertEquals(3, bits.length);
+		assertTrue(PermissionTable.get(bits, 64));
+		assertFalse(PermissionTable.get(bits, 65));
+		assertFalse(PermissionTable.get(bits, 500));
+		assertEquals(3, PermissionTable.cardinality(bits));
+		assertEquals(Arrays.asList("permission3", "permission64", "permission130"), Arrays.asList(table.toArray(bits)));
+		
+		long[] other = PermissionTable.set(null, 3);
+		assertTrue(PermissionTable.containsAll(bits, other));
+		assertTrue(PermissionTable.containsAll(bits, null));
+		assertFalse(PermissionTable.containsAll(other, bits));
+		other = PermissionTable.or(other, bits);
+		assertTrue(PermissionTable.containsAll(other, bits));
+		PermissionTable.clear(other, 130);
+		assertFalse(PermissionTable.get(other, 130));
+		assertEquals(0, table.toArray(null).length);
+	}
+	
+	@Test
+	public void concurrentIntern_assignsOneIndexPerName() throws Exception {
+		final PermissionTable table = new PermissionTable();
+		final int[][] indices = new int[4][500];
+		Thread[] threads = new Thread[indices.length];
+		for (int thread = 0; thread < threads.length; thread++) {
+			final int[] result = indices[thread];
+			threads[thread] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int index = 0; index < result.length; index++) {
+						result[index] = table.intern("permission" + index);
+					}
+				}
+			});
+			threads[thread].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(500, table.size());
+		for (int index = 0; index < 500; index++) {
+			for (int[] result : indices) {
+				assertEquals(indices[0][index], result[index]);
+			}
+			assertEquals("permission" + index, table.name(indices[0][index]));
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.kycq.library.support;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PermissionTracerTest {
+	private static int mTestCount;
+	
+	private final RecordingTracer mTracer = new RecordingTracer();
+	private FakePermissionUtils.FakeSystem mSystem;
+	private FakePermissionUtils.FakeFrame mFrame;
+	private String mCamera;
+	private String mStorage;
+	
+	@Before
+	public void setUp() throws Exception {
+		mSystem = new FakePermissionUtils.FakeSystem();
+		String prefix = "test.tracer" + (++mTestCount) + ".";
+		mCamera = prefix + "CAMERA";
+		mStorage = prefix + "STORAGE";
+		mFrame = new FakePermissionUtils.FakeFrame(mSystem);
+		PermissionUtils.setTracer(mTracer);
+	}
+	
+	@After
+	public void tearDown() throws Exception {
+		PermissionUtils.setTracer(null);
+		mFrame.release();
+	}
+	
+	@Test
+	public void systemRequest_recordsTimingAndResults() throws Exception {
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		FakePermissionUtils.RecordingListener listener = new FakePermissionUtils.RecordingListener();
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(listener).requestPermissions(mCamera, mStorage);
+		// 两次权限检查和两次请求理由检查
+		assertEquals(Arrays.asList(4), mTracer.mCheckCounts);
+		
+		mFrame.run();
+		assertEquals(Arrays.asList(mCamera, mStorage), mTracer.mSystemRequests);
+		assertTrue(mTracer.mRequestTime >= 0);
+		assertEquals(Arrays.asList(1), mTracer.mRegistrySizes);
+		
+		mSystem.answer(mSystem.mRequests.get(0), mCamera);
+		assertTrue(mTracer.mDialogTime >= 0);
+		assertTrue(mTracer.mTotalTime >= mTracer.mDialogTime);
+		assertEquals(Arrays.asList(mCamera), mTracer.mGranted);
+		assertEquals(Arrays.asList(mStorage + ":permanently"), mTracer.mDenied);
+		assertEquals(Arrays.asList(1, 0), mTracer.mRegistrySizes);
+		
+		// 已授予的权限命中缓存, 不再查询系统
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(new FakePermissionUtils.RecordingListener()).requestPermissions(mCamera);
+		assertEquals(Arrays.asList(4, 0), mTracer.mCheckCounts);
+	}
+	
+	@Test
+	public void rationale_isRecorded() throws Exception {
+		mSystem.mRationale.add(mStorage);
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(new FakePermissionUtils.RecordingListener()).requestPermissions(mCamera, mStorage);
+		assertEquals(Arrays.asList(mStorage), mTracer.mRationale);
+		assertTrue(mTracer.mSystemRequests.isEmpty());
+	}
+	
+	@Test
+	public void removedTracer_receivesNothing() throws Exception {
+		PermissionUtils.setTracer(null);
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(new FakePermissionUtils.RecordingListener()).requestPermissions(mCamera);
+		mFrame.run();
+		mSystem.answer(mSystem.mRequests.get(0), mCamera);
+		assertTrue(mTracer.mCheckCounts.isEmpty());
+		assertTrue(mTracer.mGranted.isEmpty());
+		assertTrue(mTracer.mRegistrySizes.isEmpty());
+	}
+	
+	@Test
+	public void tracerSetAfterRequest_reportsZeroElapsed() throws Exception {
+		// 未设置跟踪时不记录时间, 之后设置的跟踪不会得到错误的耗时
+		PermissionUtils.setTracer(null);
+		FakePermissionUtils.FakeComponent activity = new FakePermissionUtils.FakeComponent();
+		new FakePermissionUtils(mSystem, activity, 0).setOnPermissionListener(new FakePermissionUtils.RecordingListener()).requestPermissions(mCamera);
+		PermissionUtils.setTracer(mTracer);
+		mFrame.run();
+		assertEquals(0, mTracer.mRequestTime);
+		
+		mSystem.answer(mSystem.mRequests.get(0), mCamera);
+		assertTrue(mTracer.mDialogTime >= 0);
+		assertEquals(0, mTracer.mTotalTime);
+	}
+	
+	static class RecordingTracer extends PermissionTracer {
+		final List<Integer> mCheckCounts = new ArrayList<>();
+		final List<String> mRationale = new ArrayList<>();
+		final List<String> mSystemRequests = new ArrayList<>();
+		final List<String> mGranted = new ArrayList<>();
+		final List<String> mDenied = new ArrayList<>();
+		final List<Integer> mRegistrySizes = new ArrayList<>();
+		long mRequestTime = -1;
+		long mDialogTime = -1;
+		long mTotalTime = -1;
+		
+		@Override
+		public void onChecked(String[] permissions, int checkCount) {
+			mCheckCounts.add(checkCount);
+		}
+		
+		@Override
+		public void onRationale(String[] permissions) {
+			mRationale.addAll(Arrays.asList(permissions));
+		}
+		
+		@Override
+		public void onSystemRequest(String[] permissions, long requestTime) {
+			mSystemRequests.addAll(Arrays.asList(permissions));
+			mRequestTime = requestTime;
+		}
+		
+		@Override
+		public void onSystemResult(String[] permissions, long dialogTime, long totalTime) {
+			mDialogTime = dialogTime;
+			mTotalTime = totalTime;
+		}
+		
+		@Override
+		public void onGranted(String permission) {
+			mGranted.add(permission);
+		}
+		
+		@Override
+		public void onDenied(String permission, boolean permanently) {
+			mDenied.add(permanently ? permission + ":permanently" : permission);
+		}
+		
+		@Override
+		public void onRegistrySize(int size) {
+			mRegistrySizes.add(size);
+		}
+	}
+}